@@ -4,10 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
-@EnableFeignClients(basePackages = {"com.nusiss.commonservice.feign", "com.nusiss.productservice.client"})
+@EnableFeignClients(basePackages = {"com.nusiss.commonservice.feign", "com.nusiss.productservice.client",
+        "com.nusiss.orderservice.feign"})
+@EnableScheduling
 public class OrderServiceApplication {
 
     public static void main(String[] args) {
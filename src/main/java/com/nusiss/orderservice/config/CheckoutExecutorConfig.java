@@ -0,0 +1,82 @@
+package com.nusiss.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+ CheckoutExecutorConfig - 下单流程使用的有界线程池
+ checkoutExecutor：下单流程中的并发远程调用，饱和时由调用线程自行执行
+ orderPipelineExecutor：异步受理订单的后台处理，饱和时拒绝受理新订单，避免无限制堆积请求
+ outboxRelayExecutor：outbox 事件投递，与下单流程的线程池隔离，事件积压时不影响同步下单
+ */
+@Configuration
+public class CheckoutExecutorConfig {
+
+    @Value("${order.checkout.executor.core-size:16}")
+    private int coreSize;
+
+    @Value("${order.checkout.executor.max-size:64}")
+    private int maxSize;
+
+    @Value("${order.checkout.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${order.pipeline.executor.core-size:8}")
+    private int pipelineCoreSize;
+
+    @Value("${order.pipeline.executor.max-size:32}")
+    private int pipelineMaxSize;
+
+    @Value("${order.pipeline.executor.queue-capacity:500}")
+    private int pipelineQueueCapacity;
+
+    @Value("${order.outbox.executor.size:8}")
+    private int outboxRelaySize;
+
+    @Value("${order.outbox.batch-size:50}")
+    private int outboxBatchSize;
+
+    @Bean(name = "checkoutExecutor")
+    public Executor checkoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "orderPipelineExecutor")
+    public Executor orderPipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pipelineCoreSize);
+        executor.setMaxPoolSize(pipelineMaxSize);
+        executor.setQueueCapacity(pipelineQueueCapacity);
+        executor.setThreadNamePrefix("order-pipeline-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    // 队列容量为一批的数量：relay 只在有空闲容量时领取新事件，正常情况下不会触发拒绝
+    @Bean(name = "outboxRelayExecutor")
+    public Executor outboxRelayExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(outboxRelaySize);
+        executor.setMaxPoolSize(outboxRelaySize);
+        executor.setQueueCapacity(outboxBatchSize);
+        executor.setThreadNamePrefix("outbox-relay-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
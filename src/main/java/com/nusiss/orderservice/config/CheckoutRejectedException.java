@@ -0,0 +1,15 @@
+package com.nusiss.orderservice.config;
+
+/*
+ 下单在发起支付之前失败（或支付被明确拒绝），未产生扣款
+ 幂等键据此释放占位，客户端可使用相同的幂等键重试
+ */
+public class CheckoutRejectedException extends RuntimeException {
+    public CheckoutRejectedException(String message) {
+        super(message);
+    }
+
+    public CheckoutRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
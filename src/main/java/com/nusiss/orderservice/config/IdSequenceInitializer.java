@@ -0,0 +1,60 @@
+package com.nusiss.orderservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/*
+ IdSequenceInitializer - 主键序列表初始化
+ MySQL 不支持原生序列，Hibernate 使用 *_seq 表模拟序列并按 allocationSize 批量分配主键
+ 序列表由 db/id_sequences.sql 创建，首次创建时从 1 开始，启动时（对外提供服务之前）将其推进到现有最大主键之后，
+ 避免与自增时期写入的数据冲突；任一序列表初始化失败则启动失败，避免之后每次写入都在运行时报错
+ 注意：切换期间不能与仍使用自增主键的旧版本实例同时写入
+ */
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // 与实体类 @SequenceGenerator 的 allocationSize 保持一致
+    private static final int ALLOCATION_SIZE = 50;
+
+    // 序列表 -> {业务表, 主键列}
+    private static final Map<String, String[]> SEQUENCES = Map.of(
+            "orders_seq", new String[]{"orders", "order_id"},
+            "order_items_seq", new String[]{"order_items", "item_id"},
+            "order_payments_seq", new String[]{"order_payments", "payment_id"},
+            "order_shipments_seq", new String[]{"order_shipments", "shipment_id"},
+            "order_outbox_seq", new String[]{"order_outbox", "event_id"}
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach((sequenceTable, target) -> {
+            int updated;
+            try {
+                updated = jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val, "
+                        + "(SELECT COALESCE(MAX(" + target[1] + "), 0) + " + (ALLOCATION_SIZE + 1)
+                        + " FROM " + target[0] + "))");
+            } catch (DataAccessException e) {
+                throw new IllegalStateException("主键序列表 " + sequenceTable
+                        + " 初始化失败，请先执行 db/id_sequences.sql", e);
+            }
+            // 序列表没有初始行时 Hibernate 无法取号
+            if (updated == 0) {
+                throw new IllegalStateException("主键序列表 " + sequenceTable
+                        + " 没有初始行，请先执行 db/id_sequences.sql");
+            }
+            log.info("主键序列表 {} 已初始化", sequenceTable);
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package com.nusiss.orderservice.config;
+
+/*
+ 幂等键冲突：相同的下单请求正在处理中，或上次处理结果未知（可能已扣款），返回 409
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package com.nusiss.orderservice.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/*
+ InternalEndpointGuard - 内部运维接口（重建、回填等）的访问控制
+ 请求头 X-Internal-Token 必须与 order.internal.token 一致，否则返回 403；未配置 token 时拒绝所有请求
+ 项目未启用 Spring Security（见 SecurityConfig），此处只保护会修改汇总 / 索引状态的接口
+ */
+@Configuration
+public class InternalEndpointGuard implements WebMvcConfigurer, HandlerInterceptor {
+
+    public static final String TOKEN_HEADER = "X-Internal-Token";
+
+    // 受保护的接口路径
+    static final String[] PROTECTED_PATHS = {
+            "/order-rollups/backfill",
+            "/orders/search/rebuild",
+            "/api/chat/order/statistics/rebuild"
+    };
+
+    @Value("${order.internal.token:}")
+    private String token;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns(PROTECTED_PATHS);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        String provided = request.getHeader(TOKEN_HEADER);
+        if (token == null || token.isEmpty() || provided == null
+                || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                provided.getBytes(StandardCharsets.UTF_8))) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Internal endpoint requires " + TOKEN_HEADER);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.nusiss.orderservice.config;
+
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.cache.CacheException;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.redisson.hibernate.RedissonRegionFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/*
+ RedissonCacheRegionFactory - Hibernate 二级缓存使用的 RegionFactory
+ 连接池等参数读取 hibernate.cache.redisson.config 指定的 YAML 文件，
+ Redis 地址读取 hibernate.cache.redisson.address（application.properties 中引用 redisson.address），
+ 与业务使用的 RedissonClient 连接同一个 Redis，地址只需配置一处
+ */
+public class RedissonCacheRegionFactory extends RedissonRegionFactory {
+
+    public static final String REDISSON_ADDRESS = CONFIG_PREFIX + "address";
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected RedissonClient createRedissonClient(StandardServiceRegistry registry, Map properties) {
+        String configPath = ConfigurationHelper.getString(REDISSON_CONFIG_PATH, properties);
+        String address = ConfigurationHelper.getString(REDISSON_ADDRESS, properties);
+        if (configPath == null || address == null || address.isBlank()) {
+            throw new CacheException("二级缓存需要配置 " + REDISSON_CONFIG_PATH + " 与 " + REDISSON_ADDRESS);
+        }
+        try (InputStream in = RedissonCacheRegionFactory.class.getClassLoader().getResourceAsStream(configPath)) {
+            if (in == null) {
+                throw new CacheException("未找到二级缓存 Redisson 配置文件: " + configPath);
+            }
+            Config config = Config.fromYAML(in);
+            config.useSingleServer().setAddress(address);
+            return Redisson.create(config);
+        } catch (IOException e) {
+            throw new CacheException("读取二级缓存 Redisson 配置文件失败: " + configPath, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.nusiss.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+ WebAsyncConfig - 流式响应（StreamingResponseBody）使用的线程池
+ 项目中已自定义 Executor，Spring Boot 不会再创建默认的 applicationTaskExecutor，
+ 此处为 MVC 异步请求指定有界线程池，避免每个导出请求新建线程；池满时拒绝新的导出请求
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    @Value("${order.export.executor.core-size:2}")
+    private int coreSize;
+
+    @Value("${order.export.executor.max-size:4}")
+    private int maxSize;
+
+    @Value("${order.export.executor.queue-capacity:10}")
+    private int queueCapacity;
+
+    // 导出大表耗时较长，超时需覆盖一次完整导出
+    @Value("${order.export.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Bean(name = "streamingExecutor")
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("streaming-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nusiss.orderservice.config.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/*
+ ReadRouting - 读写分离的路由判定
+ 只有由业务服务层 @Transactional(readOnly = true) 开启的事务才会读从库：
+ Spring Data 仓库方法自带的只读事务（如写流程中直接调用 findById）仍走主库，避免写流程读到从库的旧数据
+ 需要读到刚写入数据的场景可用 onPrimary 强制走主库
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /*
+     在主库上执行读取（嵌套调用时保持外层设置）
+     常用于从库未查到数据时的回退，如订单刚创建后立即查询详情
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    /*
+     当前线程获取连接时是否可以使用从库
+     @param transactionPrefix 允许读从库的事务名前缀（事务名为开启事务的 类全名.方法名）
+     */
+    static boolean replicaEligible(String transactionPrefix) {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && replicaEligible(TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+                TransactionSynchronizationManager.getCurrentTransactionName(), transactionPrefix);
+    }
+
+    // 按事务定义判断（事务开始时同步状态尚未设置）
+    static boolean replicaEligible(boolean readOnly, String transactionName, String transactionPrefix) {
+        return readOnly && !Boolean.TRUE.equals(FORCE_PRIMARY.get())
+                && transactionName != null && transactionName.startsWith(transactionPrefix);
+    }
+}
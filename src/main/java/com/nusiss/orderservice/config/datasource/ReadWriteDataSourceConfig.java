@@ -0,0 +1,103 @@
+package com.nusiss.orderservice.config.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ ReadWriteDataSourceConfig - 读写分离数据源（order.datasource.replica.enabled=true 时启用）
+ 主库沿用 spring.datasource.* 配置；从库地址由 order.datasource.replica.urls 指定，账号默认与主库相同
+ 业务服务层 @Transactional(readOnly = true) 的方法读从库，其余读写均走主库
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.datasource.replica.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Value("${order.datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${order.datasource.replica.username:}")
+    private String replicaUsername;
+
+    @Value("${order.datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${order.datasource.replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${order.datasource.replica.max-lag-seconds:1}")
+    private long maxLagSeconds;
+
+    @Value("${order.datasource.replica.transaction-prefix:com.nusiss.orderservice.service.}")
+    private String transactionPrefix;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties properties, HikariDataSource primaryDataSource) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, replicaDataSource(name, replicaUrls.get(i), properties, primaryDataSource));
+        }
+        return new ReplicaSet(replicas, maxLagSeconds);
+    }
+
+    // JPA 使用的数据源：按事务路由，并延迟到第一条 SQL 时才获取物理连接
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSet replicaSet) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaSet, transactionPrefix));
+        // 显式指定连接默认属性，启动时无需先获取一次连接探测
+        proxy.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        return proxy;
+    }
+
+    // 可能读从库的事务不写入二级缓存，避免落后的数据进入共享缓存
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionManager.setJpaDialect(new ReplicaReadJpaDialect(transactionPrefix));
+        return transactionManager;
+    }
+
+    private HikariDataSource replicaDataSource(String name, String url, DataSourceProperties properties,
+                                               HikariDataSource primary) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setUsername(StringUtils.hasText(replicaUsername) ? replicaUsername : properties.determineUsername());
+        config.setPassword(StringUtils.hasText(replicaUsername) ? replicaPassword : properties.determinePassword());
+        config.setMaximumPoolSize(replicaPoolSize);
+        config.setConnectionTimeout(primary.getConnectionTimeout());
+        config.setReadOnly(true);
+        // 从库不可用时不阻止服务启动，由延迟检测将其排除
+        config.setInitializationFailTimeout(-1);
+        // 沿用主库的驱动参数（如 rewriteBatchedStatements）
+        config.setDataSourceProperties(primary.getDataSourceProperties());
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nusiss.orderservice.config.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/*
+ ReadWriteRoutingDataSource - 按当前事务选择主库或从库
+ 需要包装在 LazyConnectionDataSourceProxy 中使用：JPA 事务开始时尚未设置只读标记，
+ 延迟到第一条 SQL 执行时再获取连接才能按只读标记路由
+ 从库获取连接失败时回退到主库
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    private final ReplicaSet replicas;
+
+    private final String transactionPrefix;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaSet replicas, String transactionPrefix) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.transactionPrefix = transactionPrefix;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String replica = ReadRouting.replicaEligible(transactionPrefix) ? replicas.pick() : null;
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(replica).getConnection();
+        } catch (SQLException e) {
+            log.warn("从库 {} 获取连接失败，回退到主库: {}", replica, e.getMessage());
+            replicas.markDown(replica);
+            return primary.getConnection();
+        }
+    }
+
+    // 指定用户名密码的连接只用于主库
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+}
@@ -0,0 +1,32 @@
+package com.nusiss.orderservice.config.datasource;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/*
+ ReplicaReadJpaDialect - 可能读从库的事务只读取二级缓存、不写入二级缓存
+ 从库数据可能落后于主库，若写入共享的二级缓存会让其他实例在缓存过期前一直读到旧数据
+ */
+public class ReplicaReadJpaDialect extends HibernateJpaDialect {
+
+    private final String transactionPrefix;
+
+    public ReplicaReadJpaDialect(String transactionPrefix) {
+        this.transactionPrefix = transactionPrefix;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (ReadRouting.replicaEligible(definition.isReadOnly(), definition.getName(), transactionPrefix)) {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        }
+        return transactionData;
+    }
+}
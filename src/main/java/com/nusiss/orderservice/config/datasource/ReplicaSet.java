@@ -0,0 +1,157 @@
+package com.nusiss.orderservice.config.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ ReplicaSet - 从库连接池集合及复制延迟检测
+ 定时在每个从库上执行 SHOW REPLICA STATUS：复制线程停止（Seconds_Behind_Source 为 NULL）、
+ 延迟超过上限或无法连接的从库暂停使用，恢复后自动加入；没有可用从库时读请求回退到主库
+ MySQL 8.0.22 之前的版本及 MariaDB 改用 SHOW SLAVE STATUS / Seconds_Behind_Master，首次检测成功后记住每个从库可用的语句；
+ 两种语句都执行失败（版本不支持或缺少 REPLICATION CLIENT 权限）时记录错误日志，该从库保持暂停
+ 获取连接失败的从库立即暂停，等待下一次检测
+ */
+public class ReplicaSet implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final Map<String, DataSource> replicas;
+
+    private final long maxLagSeconds;
+
+    private final Set<String> available = ConcurrentHashMap.newKeySet();
+
+    // 每个从库检测成功过的延迟查询语句
+    private final Map<String, LagQuery> lagQueries = new ConcurrentHashMap<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaSet(Map<String, DataSource> replicas, long maxLagSeconds) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    /*
+     轮询选择一个可用从库
+     @return 从库名称，没有可用从库返回 null
+     */
+    public String pick() {
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    public DataSource get(String name) {
+        return replicas.get(name);
+    }
+
+    // 获取连接失败时调用，暂停该从库直到下一次检测通过
+    public void markDown(String name) {
+        if (available.remove(name)) {
+            refresh();
+        }
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${order.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        replicas.forEach((name, dataSource) -> {
+            boolean ok = withinLag(name, dataSource);
+            boolean changed = ok ? available.add(name) : available.remove(name);
+            if (changed) {
+                log.info("从库 {} {}", name, ok ? "恢复读流量" : "暂停读流量");
+            }
+        });
+        refresh();
+    }
+
+    private boolean withinLag(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            LagQuery known = lagQueries.get(name);
+            if (known != null) {
+                return withinLag(name, connection, known);
+            }
+            SQLException failure = null;
+            for (LagQuery candidate : LagQuery.values()) {
+                try {
+                    boolean ok = withinLag(name, connection, candidate);
+                    lagQueries.put(name, candidate);
+                    log.info("从库 {} 使用 {} 检测复制延迟", name, candidate.query);
+                    return ok;
+                } catch (SQLException e) {
+                    failure = e;
+                }
+            }
+            log.error("从库 {} 无法执行 SHOW REPLICA STATUS 或 SHOW SLAVE STATUS，复制延迟无法检测，保持暂停: {}",
+                    name, failure.getMessage());
+            return false;
+        } catch (SQLException | RuntimeException e) {
+            log.warn("从库 {} 延迟检测失败: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean withinLag(String name, Connection connection, LagQuery lagQuery) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery.query)) {
+            if (!rs.next()) {
+                // 未配置复制（如开发环境直接指向独立实例）时视为没有延迟
+                return true;
+            }
+            long lag = rs.getLong(lagQuery.column);
+            if (rs.wasNull()) {
+                log.warn("从库 {} 复制线程未运行", name);
+                return false;
+            }
+            return lag <= maxLagSeconds;
+        }
+    }
+
+    private void refresh() {
+        List<String> names = new ArrayList<>();
+        replicas.keySet().stream().filter(available::contains).forEach(names::add);
+        healthy = List.copyOf(names);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // 按顺序尝试：MySQL 8.0.22+ 的新语法，其次是旧版本 MySQL / MariaDB 的旧语法
+    private enum LagQuery {
+        REPLICA("SHOW REPLICA STATUS", "Seconds_Behind_Source"),
+        SLAVE("SHOW SLAVE STATUS", "Seconds_Behind_Master");
+
+        private final String query;
+
+        private final String column;
+
+        LagQuery(String query, String column) {
+            this.query = query;
+            this.column = column;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.nusiss.orderservice.controller;
 
-import com.nusiss.orderservice.dao.OrderRepository;
-import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.service.stats.UserOrderStats;
+import com.nusiss.orderservice.service.stats.UserOrderStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,38 +9,44 @@ import java.util.*;
 
 /*
  ChatBox 交互相关接口：用于返回简洁的文本内容供 ChatBox 展示
+ 统计数据来自按用户预计算的订单统计（见 UserOrderStatsService），每次请求只读取一次
  */
 @RestController
 @RequestMapping("/api/chat/order")
 public class OrderChatController {
 
     @Autowired
-    private OrderRepository orderRepository;
+    private UserOrderStatsService userOrderStatsService;
 
     // 接口1：查询最近订单状态
     @GetMapping("/latest-status")
     public Map<String, Object> getLatestOrderStatus(@RequestParam Long userId) {
-        List<Order> orders = orderRepository.findByUserIdOrderByCreateDatetimeDesc(userId);
-        if (orders.isEmpty()) {
+        UserOrderStats stats = userOrderStatsService.getStats(userId);
+        if (stats.getTotal() == 0 || stats.getLatestStatus() == null) {
             return responseText("您还没有下过订单哦～");
         }
-        Order latestOrder = orders.get(0);
-        return responseText("您最近的订单状态是：" + latestOrder.getOrderStatus());
+        return responseText("您最近的订单状态是：" + stats.getLatestStatus());
     }
 
     // 接口2：查询未支付订单数量
     @GetMapping("/unpaid-count")
     public Map<String, Object> getUnpaidOrderCount(@RequestParam Long userId) {
-        int count = orderRepository.countByUserIdAndOrderStatus(userId, "UNPAID");
+        long count = userOrderStatsService.getStats(userId).countOf("UNPAID");
         return responseText("您还有 " + count + " 个订单未完成支付。");
     }
 
     // 接口3：查询订单总数与完成数
     @GetMapping("/statistics")
     public Map<String, Object> getOrderStatistics(@RequestParam Long userId) {
-        int total = orderRepository.countByUserId(userId);
-        int completed = orderRepository.countByUserIdAndOrderStatus(userId, "COMPLETED");
-        return responseText("您共下单 " + total + " 次，其中已完成 " + completed + " 个订单。");
+        UserOrderStats stats = userOrderStatsService.getStats(userId);
+        return responseText("您共下单 " + stats.getTotal() + " 次，其中已完成 " + stats.countOf("COMPLETED") + " 个订单。");
+    }
+
+    // 接口4：丢弃缓存的统计并从数据库重建（数据修复后使用，需要内部 token，见 InternalEndpointGuard）
+    @PostMapping("/statistics/rebuild")
+    public Map<String, Object> rebuildOrderStatistics(@RequestParam Long userId) {
+        UserOrderStats stats = userOrderStatsService.rebuild(userId);
+        return responseText("订单统计已重建，共 " + stats.getTotal() + " 个订单。");
     }
 
     // 统一返回格式（ChatBox 文本块格式）
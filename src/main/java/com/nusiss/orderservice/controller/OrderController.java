@@ -1,19 +1,35 @@
 package com.nusiss.orderservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.orderservice.config.datasource.ReadRouting;
 import com.nusiss.orderservice.dto.CreateOrderFromCartRequest;
 import com.nusiss.orderservice.dto.DirectOrderRequest;
 import com.nusiss.orderservice.dto.FacePaymentDirectOrderRequest;
+import com.nusiss.orderservice.dto.OrderDetailResponse;
+import com.nusiss.orderservice.dto.OrderSlice;
+import com.nusiss.orderservice.dto.OrderStatusResponse;
+import com.nusiss.orderservice.dto.OrderSummary;
 import com.nusiss.orderservice.entity.Order;
 import com.nusiss.orderservice.service.OrderService;
+import com.nusiss.orderservice.service.idempotency.IdempotentOrderExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /*
  OrderController - 订单模块的 REST 控制器
@@ -26,6 +42,17 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotentOrderExecutor idempotentOrderExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    // 导出时每写出多少行刷新一次输出流
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     /*
      已废用--创建订单
      */
@@ -37,13 +64,27 @@ public class OrderController {
 
     /*
     通过Feign进行联动接口：用于前端调用【创建订单 + 获取商品详情 + 验证库存 + 选择支付方式（支付成功后）（预留） + 扣减商品库存】这一整套流程。
+    客户端超时重试时携带相同的 Idempotency-Key，重复请求直接返回第一次下单的结果
     */
     @PostMapping("/direct")
-    public ResponseEntity<ApiResponse<Order>> createDirectOrder(@RequestBody DirectOrderRequest request) {
-        Order createdOrder = orderService.createDirectOrder(request);
+    public ResponseEntity<ApiResponse<Order>> createDirectOrder(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody DirectOrderRequest request) {
+        Order createdOrder = idempotentOrderExecutor.execute("direct", request.getUserId(), idempotencyKey,
+                () -> orderService.createDirectOrder(request));
         return ResponseEntity.ok(ApiResponse.success(createdOrder));
     }
 
+    /*
+     异步受理直接下单：订单落库后立即返回 202 和订单ID，其余流程在后台执行
+     客户端通过 GET /orders/{orderId}/status 轮询处理结果
+     */
+    @PostMapping("/direct/async")
+    public ResponseEntity<ApiResponse<Long>> acceptDirectOrder(@RequestBody DirectOrderRequest request) {
+        Long orderId = orderService.acceptDirectOrder(request);
+        return ResponseEntity.accepted().body(new ApiResponse<>(true, "订单已受理，正在处理中", orderId));
+    }
+
     /*
      人脸识别下单接口（包含图像路径）
      流程：前端传入人脸图像路径 + 商品信息，后端通过图像识别出 userId 并完成下单
@@ -72,15 +113,28 @@ public class OrderController {
 
     /*
      从购物车创建订单（校验库存 + 创建订单 + 扣库存 + 清空购物车）
+     @param idempotencyKey 幂等键（可选），重复请求直接返回第一次下单的结果
      @param request 请求体，包括 userId 和 shippingAddress
      @return 创建好的订单信息
      */
     @PostMapping("/fromCart")
-    public ResponseEntity<ApiResponse<Order>> createOrderFromCart(@RequestBody CreateOrderFromCartRequest request) {
-        Order createdOrder = orderService.createOrderFromCart(request);
+    public ResponseEntity<ApiResponse<Order>> createOrderFromCart(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CreateOrderFromCartRequest request) {
+        Order createdOrder = idempotentOrderExecutor.execute("fromCart", request.getUserId(), idempotencyKey,
+                () -> orderService.createOrderFromCart(request));
         return ResponseEntity.ok(ApiResponse.success(createdOrder));
     }
 
+    /*
+     异步受理购物车下单：订单落库后立即返回 202 和订单ID，其余流程在后台执行
+     */
+    @PostMapping("/fromCart/async")
+    public ResponseEntity<ApiResponse<Long>> acceptOrderFromCart(@RequestBody CreateOrderFromCartRequest request) {
+        Long orderId = orderService.acceptOrderFromCart(request);
+        return ResponseEntity.accepted().body(new ApiResponse<>(true, "订单已受理，正在处理中", orderId));
+    }
+
     /*
      人脸识别下单 - 从购物车提交（包含图像路径）
      前端传入人脸图像 + 收货地址 + 支付方式
@@ -115,6 +169,90 @@ public class OrderController {
         return ResponseEntity.ok(new ApiResponse<>(true, "获取全部订单成功", orders));
     }
 
+    /*
+     导出全部订单（NDJSON，每行一条订单），边读边写，内存占用与订单总量无关
+     Accept-Encoding 接受 gzip（q 值大于 0）时以 gzip 压缩输出
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+            // 先提交响应头，客户端立即开始接收
+            target.flush();
+            long[] written = {0};
+            orderService.streamAllOrders(order -> {
+                try {
+                    target.write(objectMapper.writeValueAsBytes(order));
+                    target.write('\n');
+                    if (++written[0] % EXPORT_FLUSH_ROWS == 0) {
+                        target.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+            target.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /*
+     按 Accept-Encoding 的 q 值判断客户端是否接受 gzip：gzip;q=0 表示拒绝，未列出 gzip 时按 * 判断
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if ("gzip".equals(coding) || "x-gzip".equals(coding)) {
+                gzipQuality = quality;
+            } else if ("*".equals(coding)) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    /*
+     批量查询订单：GET /orders/batch?ids=1,2,3
+     一次 IN 查询代替逐个调用 GET /orders/{orderId}，不存在的订单不出现在结果中
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ApiResponse<Map<Long, Order>>> getOrdersByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(new ApiResponse<>(true, "获取订单成功", orderService.getOrdersByIds(ids)));
+    }
+
     /*
      根据订单ID获取订单详情
      */
@@ -125,6 +263,30 @@ public class OrderController {
                 .orElseGet(() -> ResponseEntity.status(404).body(new ApiResponse<>(false, "订单不存在", null)));
     }
 
+    /*
+     订单详情聚合：订单、订单项、支付记录、发货记录一次返回，供订单详情页使用
+     详情读取从库，下单后立即查询时从库可能尚未同步，未查到时回到主库再查一次
+     */
+    @GetMapping("/{orderId}/detail")
+    public ResponseEntity<ApiResponse<OrderDetailResponse>> getOrderDetail(@PathVariable Long orderId) {
+        Optional<OrderDetailResponse> detail = orderService.getOrderDetail(orderId)
+                .or(() -> ReadRouting.onPrimary(() -> orderService.getOrderDetail(orderId)));
+        return detail.map(value -> ResponseEntity.ok(new ApiResponse<>(true, "获取订单详情成功", value)))
+                .orElseGet(() -> ResponseEntity.status(404).body(new ApiResponse<>(false, "订单不存在", null)));
+    }
+
+    /*
+     查询订单处理状态（异步受理的订单轮询使用）
+     */
+    @GetMapping("/{orderId}/status")
+    public ResponseEntity<ApiResponse<OrderStatusResponse>> getOrderStatus(@PathVariable Long orderId) {
+        Optional<Order> order = orderService.getOrderById(orderId);
+        return order.map(value -> ResponseEntity.ok(new ApiResponse<>(true, "获取订单状态成功",
+                        new OrderStatusResponse(value.getOrderId(), value.getOrderStatus(), value.getPaymentStatus(),
+                                "CREATED".equals(value.getOrderStatus()) && "UNPAID".equals(value.getPaymentStatus())))))
+                .orElseGet(() -> ResponseEntity.status(404).body(new ApiResponse<>(false, "订单不存在", null)));
+    }
+
     /*
      更新订单
      */
@@ -164,7 +326,16 @@ public class OrderController {
     }
 
     /*
-     扩展功能2：多条件筛选订单
+     扩展功能1：根据用户ID查询订单摘要（列表页使用，只返回摘要字段）
+     */
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<ApiResponse<List<OrderSummary>>> getOrderSummariesByUserId(@PathVariable Long userId) {
+        List<OrderSummary> orders = orderService.getOrderSummariesByUserId(userId);
+        return ResponseEntity.ok(new ApiResponse<>(true, "获取用户订单成功", orders));
+    }
+
+    /*
+     扩展功能2：多条件筛选订单（数据库分页查询）
      */
     @GetMapping("/filter")
     public ResponseEntity<ApiResponse<List<Order>>> filterOrders(
@@ -172,9 +343,11 @@ public class OrderController {
             @RequestParam(required = false) Date startDate,
             @RequestParam(required = false) Date endDate,
             @RequestParam(required = false) Double minAmount,
-            @RequestParam(required = false) Double maxAmount) {
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "100") int size) {
 
-        List<Order> filtered = orderService.filterOrders(status, startDate, endDate, minAmount, maxAmount);
+        List<Order> filtered = orderService.filterOrders(status, startDate, endDate, minAmount, maxAmount, page, size);
         return ResponseEntity.ok(new ApiResponse<>(true, "筛选订单成功", filtered));
     }
 
@@ -192,4 +365,32 @@ public class OrderController {
         return ResponseEntity.ok(new ApiResponse<>(true, "分页获取订单成功", orders));
     }
 
+    /*
+     扩展功能3：分页+排序，只返回摘要字段
+     */
+    @GetMapping("/paged/summary")
+    public ResponseEntity<ApiResponse<List<OrderSummary>>> getOrderSummaries(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortOrder) {
+
+        List<OrderSummary> orders = orderService.getOrderSummaries(page, size, sortBy, sortOrder);
+        return ResponseEntity.ok(new ApiResponse<>(true, "分页获取订单成功", orders));
+    }
+
+    /*
+     扩展功能3：游标分页（keyset），传入上一页返回的 nextCursor 获取下一页
+     */
+    @GetMapping("/paged/cursor")
+    public ResponseEntity<ApiResponse<OrderSlice>> getOrdersByCursor(
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+
+        OrderSlice slice = orderService.getOrdersByCursor(sortBy, sortOrder, size, cursor);
+        return ResponseEntity.ok(new ApiResponse<>(true, "分页获取订单成功", slice));
+    }
+
 }
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /*
  OrderItemController - 订单项模块的 REST 控制器
@@ -36,6 +37,13 @@ public class OrderItemController {
         return ResponseEntity.ok(new ApiResponse<>(true, "查询成功", items));
     }
 
+    // 批量查询多个订单的订单项，按 orderId 分组：GET /order-items/by-orders?orderIds=1,2,3
+    @GetMapping("/by-orders")
+    public ResponseEntity<ApiResponse<Map<Long, List<OrderItem>>>> getItemsByOrderIds(
+            @RequestParam List<Long> orderIds) {
+        return ResponseEntity.ok(new ApiResponse<>(true, "查询成功", orderItemService.getItemsByOrderIds(orderIds)));
+    }
+
     // 更新订单项
     @PutMapping("/{itemId}")
     public ResponseEntity<ApiResponse<Boolean>> updateItem(@PathVariable Long itemId, @RequestBody OrderItem item) {
@@ -77,5 +85,17 @@ public class OrderItemController {
         return orderItemService.getProductIdsByUserId(userId);
     }
 
+    // 工具类功能 5：判断用户是否购买过某商品
+    @GetMapping("/user/{userId}/purchased/{productId}")
+    public boolean hasPurchased(@PathVariable Long userId, @PathVariable Long productId) {
+        return orderItemService.hasPurchased(userId, productId);
+    }
+
+    // 工具类功能 6：从候选商品中筛选用户购买过的商品（如推荐结果去除已购商品）
+    @GetMapping("/user/{userId}/purchased")
+    public List<Long> filterPurchased(@PathVariable Long userId, @RequestParam List<Long> productIds) {
+        return orderItemService.filterPurchased(userId, productIds);
+    }
+
 
 }
@@ -1,13 +1,19 @@
 package com.nusiss.orderservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nusiss.orderservice.config.ApiResponse;
+import com.nusiss.orderservice.dto.OrderPaymentSummary;
 import com.nusiss.orderservice.entity.OrderPayment;
 import com.nusiss.orderservice.service.OrderPaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +29,9 @@ public class OrderPaymentController {
     @Autowired
     private OrderPaymentService orderPaymentService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /*
      创建支付记录
      */
@@ -41,6 +50,17 @@ public class OrderPaymentController {
         return ResponseEntity.ok(new ApiResponse<>(true, "Payments retrieved successfully", payments));
     }
 
+    /*
+     分页获取支付记录摘要（列表页使用，只返回摘要字段）
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<List<OrderPaymentSummary>>> getPaymentSummaries(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<OrderPaymentSummary> payments = orderPaymentService.getPaymentSummaries(page, size);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Payments retrieved successfully", payments));
+    }
+
     /*
      根据支付 ID 获取记录
      */
@@ -89,18 +109,44 @@ public class OrderPaymentController {
     }
 
     /*
-     扩展功能2: 多条件筛选支付记录
+     扩展功能2: 多条件筛选支付记录（数据库分页查询）
      */
     @GetMapping("/filter")
     public ResponseEntity<ApiResponse<List<OrderPayment>>> filterPayments(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String method,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date startDate,
-            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate) {
-        List<OrderPayment> results = orderPaymentService.filterPayments(status, method, startDate, endDate);
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        List<OrderPayment> results = orderPaymentService.filterPayments(status, method, startDate, endDate, page, size);
         return ResponseEntity.ok(new ApiResponse<>(true, "Filtered payments retrieved", results));
     }
 
+    /*
+     扩展功能2: 多条件筛选支付记录 - 流式返回全部结果（NDJSON，每行一条记录）
+     供对账任务导出完整结果，服务端不在内存中汇总结果
+     */
+    @GetMapping(value = "/filter/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamFilteredPayments(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String method,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date endDate) {
+        StreamingResponseBody body = out -> orderPaymentService.streamPayments(status, method, startDate, endDate,
+                payment -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(payment));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     /*
      扩展功能3: 获取某订单的累计支付金额
      */
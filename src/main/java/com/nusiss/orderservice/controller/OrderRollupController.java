@@ -0,0 +1,61 @@
+package com.nusiss.orderservice.controller;
+
+import com.nusiss.orderservice.config.ApiResponse;
+import com.nusiss.orderservice.entity.OrderRollup;
+import com.nusiss.orderservice.entity.PaymentRollup;
+import com.nusiss.orderservice.service.rollup.OrderRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+ OrderRollupController - 订单 / 支付汇总查询（运营看板使用）
+ */
+@RestController
+@RequestMapping("/order-rollups")
+public class OrderRollupController {
+
+    @Autowired
+    private OrderRollupService orderRollupService;
+
+    /*
+     按小时 / 天查询订单数量与金额，维度为订单状态、支付状态
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<ApiResponse<List<OrderRollup>>> getOrderRollups(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) String status) {
+        List<OrderRollup> rollups = orderRollupService.getOrderRollups(granularity, from, to, status);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Order rollups retrieved", rollups));
+    }
+
+    /*
+     按小时 / 天查询支付笔数与实付金额，维度为支付方式、支付状态
+     */
+    @GetMapping("/payments")
+    public ResponseEntity<ApiResponse<List<PaymentRollup>>> getPaymentRollups(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) String method) {
+        List<PaymentRollup> rollups = orderRollupService.getPaymentRollups(granularity, from, to, method);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Payment rollups retrieved", rollups));
+    }
+
+    /*
+     从明细表重算日期范围内的汇总（上线初始化或数据修复后使用）
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<ApiResponse<Integer>> backfill(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        int days = orderRollupService.backfill(from, to);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Rollups rebuilt", days));
+    }
+}
@@ -0,0 +1,65 @@
+package com.nusiss.orderservice.controller;
+
+import com.nusiss.orderservice.config.ApiResponse;
+import com.nusiss.orderservice.dto.OrderSearchPage;
+import com.nusiss.orderservice.service.search.OrderSearchIndex;
+import com.nusiss.orderservice.service.search.OrderSearchIndexer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ OrderSearchController - 按商品名称 / 收货地址片段搜索订单（客服使用）
+ 查询本地搜索索引，不扫描数据库；order.search.enabled=false 时不注册
+ */
+@RestController
+@ConditionalOnProperty(name = "order.search.enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping("/orders/search")
+public class OrderSearchController {
+
+    @Autowired
+    private OrderSearchIndex orderSearchIndex;
+
+    @Autowired
+    private OrderSearchIndexer orderSearchIndexer;
+
+    /*
+     搜索订单，按下单时间倒序分页
+     field 取值：all（商品名称或收货地址）、product、address
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<OrderSearchPage>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = OrderSearchIndex.FIELD_ALL) String field,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        OrderSearchPage result = orderSearchIndex.search(q, field, page, size);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Orders searched", result));
+    }
+
+    /*
+     从数据库全量重建本实例的搜索索引（后台执行，立即返回）
+     内部运维接口，需携带 X-Internal-Token（见 InternalEndpointGuard）
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<ApiResponse<String>> rebuild() {
+        orderSearchIndexer.startRebuild();
+        return ResponseEntity.ok(new ApiResponse<>(true, "Search index rebuild started", null));
+    }
+
+    /*
+     索引状态：文档数、是否正在重建、等待写入的变更订单数
+     */
+    @GetMapping("/status")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("documents", orderSearchIndex.numDocs());
+        status.put("rebuilding", orderSearchIndexer.isRebuilding());
+        status.put("pending", orderSearchIndexer.getPendingCount());
+        return ResponseEntity.ok(new ApiResponse<>(true, "Search index status", status));
+    }
+}
@@ -1,6 +1,7 @@
 package com.nusiss.orderservice.controller;
 
 import com.nusiss.orderservice.config.ApiResponse;
+import com.nusiss.orderservice.dto.OrderShipmentSummary;
 import com.nusiss.orderservice.entity.OrderShipment;
 import com.nusiss.orderservice.service.OrderShipmentService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /*
@@ -67,6 +69,17 @@ public class OrderShipmentController {
                 .orElseGet(() -> ResponseEntity.status(404).body(new ApiResponse<>(false, "Shipment not found", null)));
     }
 
+    /*
+     批量查询多个订单的发货记录：GET /order-shipments/by-orders?orderIds=1,2,3
+     没有发货记录的订单不出现在结果中
+     */
+    @GetMapping("/by-orders")
+    public ResponseEntity<ApiResponse<Map<Long, OrderShipment>>> getShipmentsByOrderIds(
+            @RequestParam List<Long> orderIds) {
+        return ResponseEntity.ok(new ApiResponse<>(true, "Shipments found",
+                shipmentService.getShipmentsByOrderIds(orderIds)));
+    }
+
     /*
      获取全部发货记录
      主要用于测试或管理端使用
@@ -76,4 +89,15 @@ public class OrderShipmentController {
         List<OrderShipment> shipments = shipmentService.getAllShipments();
         return ResponseEntity.ok(new ApiResponse<>(true, "All shipments retrieved", shipments));
     }
+
+    /*
+     分页获取发货记录摘要（列表页使用，只返回摘要字段）
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<List<OrderShipmentSummary>>> getShipmentSummaries(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<OrderShipmentSummary> shipments = shipmentService.getShipmentSummaries(page, size);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Shipments retrieved", shipments));
+    }
 }
@@ -1,11 +1,15 @@
 package com.nusiss.orderservice.dao;
 
 import com.nusiss.orderservice.entity.OrderItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /*
@@ -15,13 +19,31 @@ import java.util.List;
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
+    /*
+     按主键判断是否存在：通过 findById 读取，命中二级缓存时不访问数据库
+     （默认实现执行 COUNT 查询，不经过二级缓存）
+     */
+    @Override
+    default boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
     /*
      根据订单 ID 查询该订单的所有订单项
      @param orderId 所属订单 ID
      @return 商品项列表
+     order_items 写入频繁，不使用查询缓存（任何写入都会使整张表的查询缓存失效）
      */
     List<OrderItem> findByOrderId(Long orderId);
 
+    // 批量查询多个订单的订单项（一次 IN 查询，走 order_id 索引）
+    List<OrderItem> findByOrderIdIn(Collection<Long> orderIds);
+
+    // 重建搜索索引时批量读取订单项：不读写二级缓存，避免全表数据写入 Redis
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    List<OrderItem> findUncachedByOrderIdIn(Collection<Long> orderIds);
+
     @Query(value = "SELECT oi.product_id FROM order_items oi " +
             "JOIN orders o ON oi.order_id = o.order_id " +
             "WHERE o.user_id = :userId", nativeQuery = true)
@@ -0,0 +1,55 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ OrderOutboxRepository - 操作 order_outbox 表的 JPA 数据访问接口
+ */
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    /*
+     锁定一批可投递的事件（待投递，或处理中但租约已过期）
+     使用 SKIP LOCKED，多个实例同时拉取时互不阻塞、不会重复领取
+     @param now      当前时间
+     @param pageable 本批数量
+     @return 已加锁的事件列表
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OrderOutboxEvent e WHERE e.status IN ('PENDING', 'PROCESSING') " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.eventId")
+    List<OrderOutboxEvent> findClaimable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /*
+     加锁读取单个事件，用于在更新投递结果前确认租约仍由当前持有者持有
+     @param eventId 事件ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OrderOutboxEvent e WHERE e.eventId = :eventId")
+    Optional<OrderOutboxEvent> findLockedById(@Param("eventId") Long eventId);
+
+    /*
+     更新事件内容（记录处理进度）
+     @param eventId 事件ID
+     @param payload 新的事件内容（JSON）
+     @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.payload = :payload WHERE e.eventId = :eventId")
+    int updatePayload(@Param("eventId") Long eventId, @Param("payload") String payload);
+}
@@ -1,16 +1,24 @@
 package com.nusiss.orderservice.dao;
 
+import com.nusiss.orderservice.dto.OrderPaymentSummary;
 import com.nusiss.orderservice.entity.OrderPayment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.List;
 
 /*
  OrderPaymentRepository - 操作 order_payments 表的 JPA 数据访问接口
+ 继承 JpaSpecificationExecutor 支持按条件动态构建查询（见 OrderPaymentSpecifications）
  */
-public interface OrderPaymentRepository extends JpaRepository<OrderPayment, Long> {
+public interface OrderPaymentRepository extends JpaRepository<OrderPayment, Long>, JpaSpecificationExecutor<OrderPayment> {
 
     // 根据订单ID查询所有支付记录（一个订单可能有多个支付行为）
     List<OrderPayment> findByOrderId(Long orderId);
 
+    // 分页查询支付记录摘要（只选取摘要列，不执行 COUNT 查询）
+    Slice<OrderPaymentSummary> findSummaryBy(Pageable pageable);
+
 }
@@ -0,0 +1,51 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.entity.OrderPayment;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/*
+ OrderPaymentSpecifications - 支付记录动态查询条件
+ 状态、支付方式按等值匹配：列的 *_ci 排序规则在数据库中完成大小写不敏感比较，同时可以使用索引
+ （不在列上套用 UPPER/LOWER 函数，避免索引失效）
+ 依赖 payment_status、payment_method 列使用 *_ci 排序规则，部署前用 db/order_payments_collation.sql 检查
+ */
+public final class OrderPaymentSpecifications {
+
+    private OrderPaymentSpecifications() {
+    }
+
+    /*
+     组合多条件筛选
+     @param status    支付状态（可选，大小写不敏感）
+     @param method    支付方式（可选，大小写不敏感）
+     @param startDate 起始支付时间（可选，包含）
+     @param endDate   结束支付时间（可选，包含）
+     */
+    public static Specification<OrderPayment> filter(String status, String method,
+                                                     LocalDateTime startDate, LocalDateTime endDate) {
+        return Specification.where(hasStatus(status))
+                .and(hasMethod(method))
+                .and(paymentDateFrom(startDate))
+                .and(paymentDateTo(endDate));
+    }
+
+    public static Specification<OrderPayment> hasStatus(String status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("paymentStatus"), status);
+    }
+
+    public static Specification<OrderPayment> hasMethod(String method) {
+        return method == null ? null : (root, query, cb) -> cb.equal(root.get("paymentMethod"), method);
+    }
+
+    public static Specification<OrderPayment> paymentDateFrom(LocalDateTime startDate) {
+        return startDate == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("paymentDate"), startDate);
+    }
+
+    public static Specification<OrderPayment> paymentDateTo(LocalDateTime endDate) {
+        return endDate == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("paymentDate"), endDate);
+    }
+}
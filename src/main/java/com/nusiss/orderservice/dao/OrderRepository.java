@@ -1,17 +1,39 @@
 package com.nusiss.orderservice.dao;
 
+import com.nusiss.orderservice.dto.OrderSummary;
 import com.nusiss.orderservice.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /*
  OrderRepository 接口用于定义与订单（Order）相关的数据库访问操作。
  继承 JpaRepository 可自动获得常用的 CRUD 方法，无需手动实现。
+ 继承 JpaSpecificationExecutor 支持按条件动态构建查询（见 OrderSpecifications）。
+ 继承 OrderSliceRepository 支持按条件分页查询且不执行 COUNT。
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+        OrderSliceRepository {
+
+    /*
+     按主键判断是否存在：通过 findById 读取，命中二级缓存时不访问数据库
+     （默认实现执行 COUNT 查询，不经过二级缓存）
+     */
+    @Override
+    default boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
 
     /*
      根据用户 ID 查找所有订单记录
@@ -20,6 +42,30 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByUserId(Long userId);
 
+    /*
+     根据用户 ID 查询订单摘要（只选取摘要列），按下单时间倒序
+     @param userId 用户 ID
+     @return 订单摘要列表
+     */
+    List<OrderSummary> findSummaryByUserIdOrderByOrderDateDesc(Long userId);
+
+    /*
+     分页查询订单摘要（只选取摘要列，不执行 COUNT 查询）
+     @param pageable 分页与排序
+     @return 当前页订单摘要
+     */
+    Slice<OrderSummary> findSummaryBy(Pageable pageable);
+
+    /*
+     按主键顺序分批读取订单（键集分页，用于重建搜索索引）
+     不读写二级缓存，避免全表数据写入 Redis
+     @param orderId  上一批最后一个订单 ID
+     @param pageable 只使用其中的数量
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    List<Order> findByOrderIdGreaterThanOrderByOrderIdAsc(Long orderId, Pageable pageable);
+
     /*
      根据订单状态查询订单
      @param orderStatus 订单状态（如已付款、已发货等）
@@ -38,4 +84,11 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     // 查询该用户指定状态的订单数量
     int countByUserIdAndOrderStatus(Long userId, String status);
+
+    // 按状态统计该用户的订单数量，每行为 [订单状态, 数量]（用于重建用户订单统计）
+    @Query("SELECT o.orderStatus, COUNT(o) FROM Order o WHERE o.userId = :userId GROUP BY o.orderStatus")
+    List<Object[]> countByStatusForUser(@Param("userId") Long userId);
+
+    // 查询该用户最近创建的一笔订单
+    Optional<Order> findFirstByUserIdOrderByCreateDatetimeDescOrderIdDesc(Long userId);
 }
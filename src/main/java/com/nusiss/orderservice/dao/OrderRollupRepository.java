@@ -0,0 +1,62 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.dto.RollupAggregateRow;
+import com.nusiss.orderservice.entity.OrderRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ OrderRollupRepository - 操作 order_rollups 表的 JPA 数据访问接口
+ 原生写语句都声明了影响的表（HINT_NATIVE_SPACES），否则 Hibernate 执行后会清空全部二级缓存区域
+ */
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, OrderRollup.Key> {
+
+    /*
+     按维度查询时间范围内的汇总行（status 为空时返回所有状态）
+     */
+    @Query("SELECT r FROM OrderRollup r WHERE r.granularity = :granularity " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND (:status IS NULL OR r.orderStatus = :status) ORDER BY r.bucketStart")
+    List<OrderRollup> findRange(@Param("granularity") String granularity,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                @Param("status") String status);
+
+    // 增量累加，汇总行不存在时插入
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_rollups"))
+    @Query(value = "INSERT INTO order_rollups (granularity, bucket_start, order_status, payment_status, order_count, total_amount) " +
+            "VALUES (:granularity, :bucketStart, :orderStatus, :paymentStatus, :count, :amount) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "total_amount = total_amount + VALUES(total_amount)", nativeQuery = true)
+    int upsertDelta(@Param("granularity") String granularity,
+                    @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("orderStatus") String orderStatus,
+                    @Param("paymentStatus") String paymentStatus,
+                    @Param("count") long count,
+                    @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_rollups"))
+    @Query(value = "DELETE FROM order_rollups WHERE bucket_start >= :from AND bucket_start < :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /*
+     按小时聚合一天内的订单（范围不超过一天），结果由调用方写入汇总表
+     普通 SELECT 是一致性非锁定读，不会像 INSERT ... SELECT 那样对 orders 的扫描范围加 next-key 锁、阻塞下单
+     */
+    @Query(value = "SELECT HOUR(o.order_date) AS hourOfDay, o.order_status AS dimension, " +
+            "o.payment_status AS paymentStatus, COUNT(*) AS rowCount, COALESCE(SUM(o.total_amount), 0) AS amount " +
+            "FROM orders o WHERE o.order_date >= :from AND o.order_date < :to " +
+            "GROUP BY 1, 2, 3", nativeQuery = true)
+    List<RollupAggregateRow> aggregateHourly(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -1,9 +1,13 @@
 package com.nusiss.orderservice.dao;
 
+import com.nusiss.orderservice.dto.OrderShipmentSummary;
 import com.nusiss.orderservice.entity.OrderShipment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +17,22 @@ import java.util.Optional;
 @Repository
 public interface OrderShipmentRepository extends JpaRepository<OrderShipment, Long> {
 
-    // 根据订单 ID 查询该订单的所有发货记录（一个订单对应一个发货记录）
+    /*
+     按主键判断是否存在：通过 findById 读取，命中二级缓存时不访问数据库
+     （默认实现执行 COUNT 查询，不经过二级缓存）
+     */
+    @Override
+    default boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    // 根据订单 ID 查询该订单的所有发货记录（一个订单对应一个发货记录）；order_shipments 写入频繁，不使用查询缓存
     Optional<OrderShipment> findByOrderId(Long orderId);
 
+    // 批量查询多个订单的发货记录（一次 IN 查询）
+    List<OrderShipment> findByOrderIdIn(Collection<Long> orderIds);
+
+    // 分页查询发货记录摘要（只选取摘要列，不执行 COUNT 查询）
+    Slice<OrderShipmentSummary> findSummaryBy(Pageable pageable);
+
 }
@@ -0,0 +1,21 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.entity.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/*
+ OrderSliceRepository - 按条件分页查询订单，不执行 COUNT 查询（由 OrderRepository 继承，实现见 OrderSliceRepositoryImpl）
+ JpaSpecificationExecutor.findAll(spec, pageable) 每页都会额外执行一次 COUNT，列表接口不需要总数
+ */
+public interface OrderSliceRepository {
+
+    /*
+     按条件查询一页订单，多取一行判断是否还有下一页
+     @param spec     查询条件，为 null 时不过滤
+     @param pageable 分页与排序
+     @return 当前页订单
+     */
+    Slice<Order> findSlice(Specification<Order> spec, Pageable pageable);
+}
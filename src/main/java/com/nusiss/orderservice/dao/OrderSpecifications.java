@@ -0,0 +1,92 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.entity.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+ OrderSpecifications - 订单动态查询条件
+ 每个条件在参数为空时返回 null，组合时自动忽略，由数据库完成过滤
+ 状态 + 下单时间命中 idx_orders_status_date，金额范围命中 idx_orders_amount_id
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /*
+     组合多条件筛选
+     @param status    订单状态（可选）
+     @param startDate 下单开始时间（可选，包含）
+     @param endDate   下单结束时间（可选，包含）
+     @param minAmount 最小金额（可选，包含）
+     @param maxAmount 最大金额（可选，包含）
+     */
+    public static Specification<Order> filter(String status, LocalDateTime startDate, LocalDateTime endDate,
+                                              BigDecimal minAmount, BigDecimal maxAmount) {
+        return Specification.where(hasStatus(status))
+                .and(orderDateFrom(startDate))
+                .and(orderDateTo(endDate))
+                .and(totalAmountFrom(minAmount))
+                .and(totalAmountTo(maxAmount));
+    }
+
+    public static Specification<Order> hasStatus(String status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("orderStatus"), status);
+    }
+
+    public static Specification<Order> orderDateFrom(LocalDateTime startDate) {
+        return startDate == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("orderDate"), startDate);
+    }
+
+    public static Specification<Order> orderDateTo(LocalDateTime endDate) {
+        return endDate == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("orderDate"), endDate);
+    }
+
+    public static Specification<Order> totalAmountFrom(BigDecimal minAmount) {
+        return minAmount == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("totalAmount"), minAmount);
+    }
+
+    public static Specification<Order> totalAmountTo(BigDecimal maxAmount) {
+        return maxAmount == null ? null
+                : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("totalAmount"), maxAmount);
+    }
+
+    /*
+     游标分页条件：取排序位置位于 (value, lastOrderId) 之后的行
+     排序为 (sortBy, orderId) 同方向，可沿 (字段, order_id) 复合索引直接定位，无需 OFFSET 扫描
+     NULL 按 MySQL 默认规则处理：升序排在最前，降序排在最后
+     @param sortBy      排序字段（须在白名单内）
+     @param descending  是否倒序
+     @param value       上一页最后一行的排序字段值（可能为 null）
+     @param lastOrderId 上一页最后一行的订单ID，为空表示第一页
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Order> seekAfter(String sortBy, boolean descending, Comparable value, Long lastOrderId) {
+        if (lastOrderId == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<Long> orderId = root.get("orderId");
+            Predicate idAfter = descending ? cb.lessThan(orderId, lastOrderId) : cb.greaterThan(orderId, lastOrderId);
+            if ("orderId".equals(sortBy)) {
+                return idAfter;
+            }
+            Path<Comparable> column = root.get(sortBy);
+            if (value == null) {
+                Predicate sameNull = cb.and(cb.isNull(column), idAfter);
+                return descending ? sameNull : cb.or(sameNull, cb.isNotNull(column));
+            }
+            Predicate beyond = descending ? cb.lessThan(column, value) : cb.greaterThan(column, value);
+            Predicate tie = cb.and(cb.equal(column, value), idAfter);
+            return descending ? cb.or(beyond, tie, cb.isNull(column)) : cb.or(beyond, tie);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.dto.RollupAggregateRow;
+import com.nusiss.orderservice.entity.PaymentRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ PaymentRollupRepository - 操作 payment_rollups 表的 JPA 数据访问接口
+ 原生写语句都声明了影响的表（HINT_NATIVE_SPACES），否则 Hibernate 执行后会清空全部二级缓存区域
+ */
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollup, PaymentRollup.Key> {
+
+    /*
+     按维度查询时间范围内的汇总行（method 为空时返回所有支付方式）
+     */
+    @Query("SELECT r FROM PaymentRollup r WHERE r.granularity = :granularity " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND (:method IS NULL OR r.paymentMethod = :method) ORDER BY r.bucketStart")
+    List<PaymentRollup> findRange(@Param("granularity") String granularity,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("method") String method);
+
+    // 增量累加，汇总行不存在时插入
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "payment_rollups"))
+    @Query(value = "INSERT INTO payment_rollups (granularity, bucket_start, payment_method, payment_status, payment_count, amount_paid) " +
+            "VALUES (:granularity, :bucketStart, :paymentMethod, :paymentStatus, :count, :amount) " +
+            "ON DUPLICATE KEY UPDATE payment_count = payment_count + VALUES(payment_count), " +
+            "amount_paid = amount_paid + VALUES(amount_paid)", nativeQuery = true)
+    int upsertDelta(@Param("granularity") String granularity,
+                    @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("paymentMethod") String paymentMethod,
+                    @Param("paymentStatus") String paymentStatus,
+                    @Param("count") long count,
+                    @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "payment_rollups"))
+    @Query(value = "DELETE FROM payment_rollups WHERE bucket_start >= :from AND bucket_start < :to", nativeQuery = true)
+    int deleteRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /*
+     按小时聚合一天内的支付记录（范围不超过一天），结果由调用方写入汇总表
+     普通 SELECT 是一致性非锁定读，不会对 order_payments 的扫描范围加锁；实付金额按 DECIMAL 返回
+     */
+    @Query(value = "SELECT HOUR(p.payment_date) AS hourOfDay, p.payment_method AS dimension, " +
+            "p.payment_status AS paymentStatus, COUNT(*) AS rowCount, " +
+            "CAST(COALESCE(SUM(p.amount_paid), 0) AS DECIMAL(19, 2)) AS amount " +
+            "FROM order_payments p WHERE p.payment_date >= :from AND p.payment_date < :to " +
+            "GROUP BY 1, 2, 3", nativeQuery = true)
+    List<RollupAggregateRow> aggregateHourly(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,33 @@
+package com.nusiss.orderservice.dao;
+
+import com.nusiss.orderservice.entity.RollupFence;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ RollupFenceRepository - 操作 rollup_fences 表的 JPA 数据访问接口
+ 写入增量时以共享锁读取栅栏，重算时以排他锁写入栅栏，同一天的增量写入与重算互相等待（InnoDB 可重复读下不存在的行加间隙锁）
+ */
+public interface RollupFenceRepository extends JpaRepository<RollupFence, LocalDate> {
+
+    // 共享锁读取多天的栅栏，持有到增量写入事务提交
+    @Query(value = "SELECT * FROM rollup_fences WHERE bucket_date IN (:days) FOR SHARE", nativeQuery = true)
+    List<RollupFence> lockForFlush(@Param("days") Collection<LocalDate> days);
+
+    // 写入栅栏并持有排他锁，到重算事务提交
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rollup_fences"))
+    @Query(value = "INSERT INTO rollup_fences (bucket_date, rebuilt_at) VALUES (:day, :rebuiltAt) " +
+            "ON DUPLICATE KEY UPDATE rebuilt_at = VALUES(rebuilt_at)", nativeQuery = true)
+    int fence(@Param("day") LocalDate day, @Param("rebuiltAt") LocalDateTime rebuiltAt);
+}
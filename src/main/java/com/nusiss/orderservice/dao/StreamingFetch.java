@@ -0,0 +1,15 @@
+package com.nusiss.orderservice.dao;
+
+/*
+ StreamingFetch - MySQL 流式读取的 fetch size
+ Connector/J 只有在 fetch size 为 Integer.MIN_VALUE（只读、只向前的结果集）时才逐行读取，其他值会把整个结果集读入内存
+ 只作用于设置了该值的查询，不需要在连接池上开启 useCursorFetch（该参数会让所有带 fetch size 的查询都改用服务端游标）
+ 流式读取期间同一连接不能执行其他语句，消费者中不能触发懒加载或其他查询
+ */
+public final class StreamingFetch {
+
+    public static final int FETCH_SIZE = Integer.MIN_VALUE;
+
+    private StreamingFetch() {
+    }
+}
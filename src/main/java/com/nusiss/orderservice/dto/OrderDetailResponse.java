@@ -0,0 +1,41 @@
+package com.nusiss.orderservice.dto;
+
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.entity.OrderPayment;
+import com.nusiss.orderservice.entity.OrderShipment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ 订单详情聚合结果（订单 + 订单项 + 支付记录 + 发货记录），供订单详情页一次请求获取
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderDetailResponse {
+    private Long orderId;
+    private Long userId;
+    private String orderStatus;
+    private String paymentStatus;
+    private BigDecimal totalAmount;
+    private String shippingAddress;
+    private LocalDateTime orderDate;
+    private LocalDateTime deliveryDate;
+    private List<OrderItem> items;
+    private List<OrderPayment> payments;
+    // 尚未发货时为 null
+    private OrderShipment shipment;
+
+    public static OrderDetailResponse of(Order order, List<OrderItem> items, List<OrderPayment> payments,
+                                         OrderShipment shipment) {
+        return new OrderDetailResponse(order.getOrderId(), order.getUserId(), order.getOrderStatus(),
+                order.getPaymentStatus(), order.getTotalAmount(), order.getShippingAddress(),
+                order.getOrderDate(), order.getDeliveryDate(), items, payments, shipment);
+    }
+}
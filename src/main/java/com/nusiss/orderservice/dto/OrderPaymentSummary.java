@@ -0,0 +1,20 @@
+package com.nusiss.orderservice.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ 支付记录列表摘要（接口投影），查询时只选取以下列，结果不进入持久化上下文
+ */
+public interface OrderPaymentSummary {
+    Long getPaymentId();
+
+    Long getOrderId();
+
+    String getPaymentMethod();
+
+    String getPaymentStatus();
+
+    Double getAmountPaid();
+
+    LocalDateTime getPaymentDate();
+}
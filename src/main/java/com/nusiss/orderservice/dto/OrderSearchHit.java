@@ -0,0 +1,27 @@
+package com.nusiss.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ 订单搜索结果中的一条订单（字段取自搜索索引，不查询数据库）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSearchHit {
+    private Long orderId;
+    private Long userId;
+    private String orderStatus;
+    private String paymentStatus;
+    private BigDecimal totalAmount;
+    private String shippingAddress;
+    private LocalDateTime orderDate;
+    // 订单中各订单项的商品名称
+    private List<String> productNames;
+}
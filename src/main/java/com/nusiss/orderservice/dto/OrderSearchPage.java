@@ -0,0 +1,22 @@
+package com.nusiss.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ 订单搜索分页结果（按下单时间倒序）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSearchPage {
+    private List<OrderSearchHit> content;
+    private int page;
+    private int size;
+    private long total;
+    // total 是否为精确值；命中数量很大时只统计到下限，此时为 false
+    private boolean totalExact;
+}
@@ -0,0 +1,20 @@
+package com.nusiss.orderservice.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ 发货记录列表摘要（接口投影），查询时只选取以下列，结果不进入持久化上下文
+ */
+public interface OrderShipmentSummary {
+    Long getShipmentId();
+
+    Long getOrderId();
+
+    String getCarrier();
+
+    String getTrackingNumber();
+
+    String getShipmentStatus();
+
+    LocalDateTime getShippedDate();
+}
@@ -0,0 +1,21 @@
+package com.nusiss.orderservice.dto;
+
+import com.nusiss.orderservice.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ 游标分页结果（不包含总数，不执行 COUNT 查询）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSlice {
+    private List<Order> content;
+    // 下一页游标，没有更多数据时为 null
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,19 @@
+package com.nusiss.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ 订单处理状态（供异步受理的订单轮询使用）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusResponse {
+    private Long orderId;
+    private String orderStatus;
+    private String paymentStatus;
+    // 是否仍在后台处理中（CREATED 且 UNPAID）
+    private boolean processing;
+}
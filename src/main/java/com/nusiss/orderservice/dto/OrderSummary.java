@@ -0,0 +1,21 @@
+package com.nusiss.orderservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+ 订单列表摘要（接口投影），查询时只选取以下列，结果不进入持久化上下文
+ */
+public interface OrderSummary {
+    Long getOrderId();
+
+    Long getUserId();
+
+    String getOrderStatus();
+
+    String getPaymentStatus();
+
+    BigDecimal getTotalAmount();
+
+    LocalDateTime getOrderDate();
+}
@@ -0,0 +1,25 @@
+package com.nusiss.orderservice.dto;
+
+import com.nusiss.commonservice.entity.CartItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ outbox 库存扣减事件内容
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxInventoryPayload {
+    private Long userId;
+    // 扣减成功后是否清空购物车（购物车下单）
+    private boolean clearCart;
+    private List<CartItem> items;
+    // Redis 库存预留ID，扣减成功后确认、失败后释放（未预留时为空）
+    private String reservationId;
+    // 库存是否已全部扣减：扣减成功后写回事件，重复投递时跳过扣减，只执行后续的确认预留、清空购物车
+    private boolean deducted;
+}
@@ -0,0 +1,17 @@
+package com.nusiss.orderservice.dto;
+
+import com.nusiss.commonservice.entity.PaymentRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ outbox 支付事件内容：支付请求 + 支付成功后需要扣减的库存
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxPaymentPayload {
+    private PaymentRequest paymentRequest;
+    private OutboxInventoryPayload inventory;
+}
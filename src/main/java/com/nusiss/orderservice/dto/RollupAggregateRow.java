@@ -0,0 +1,19 @@
+package com.nusiss.orderservice.dto;
+
+import java.math.BigDecimal;
+
+/*
+ 汇总重算时按小时聚合的明细（接口投影），一行对应一天中某个小时的一组维度
+ 订单汇总的 dimension 为订单状态，支付汇总的 dimension 为支付方式
+ */
+public interface RollupAggregateRow {
+    Integer getHourOfDay();
+
+    String getDimension();
+
+    String getPaymentStatus();
+
+    Long getRowCount();
+
+    BigDecimal getAmount();
+}
@@ -2,6 +2,8 @@ package com.nusiss.orderservice.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,12 +13,21 @@ import java.time.LocalDateTime;
  用于存储每一笔订单的核心信息
  */
 @Data // Lombok 自动生成 Getter、Setter、toString 等方法
+@Cacheable // 二级缓存：状态会被更新，使用软锁保证缓存与数据库一致
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Entity // 表示这是一个 JPA 实体类
-@Table(name = "orders") // 指定数据库中的表名
+@Table(name = "orders", indexes = { // 指定数据库中的表名
+        @Index(name = "idx_orders_status_date", columnList = "order_status, order_date"), // 按状态 + 时间筛选
+        @Index(name = "idx_orders_amount_id", columnList = "total_amount, order_id"), // 按金额范围筛选 / 游标分页
+        @Index(name = "idx_orders_date_id", columnList = "order_date, order_id"), // 按下单时间游标分页
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date"), // 按用户查询订单
+        @Index(name = "idx_orders_user_created", columnList = "user_id, create_datetime") // 用户最近订单、用户订单统计
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 主键自增
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq") // 池化分配主键，支持 JDBC 批量插入
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId; // 订单ID（主键）
 
     private Long userId; // 用户ID，表示订单属于哪个用户
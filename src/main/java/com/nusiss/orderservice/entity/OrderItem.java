@@ -2,6 +2,8 @@ package com.nusiss.orderservice.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,12 +13,17 @@ import java.time.LocalDateTime;
  用于表示订单中的单个商品项信息
  */
 @Data
+@Cacheable // 二级缓存：订单项创建后基本不再修改，更新时直接失效缓存
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Entity
-@Table(name = "order_items")  // 注意：表名使用小写，防止大小写兼容问题
+@Table(name = "order_items", indexes = { // 注意：表名使用小写，防止大小写兼容问题
+        @Index(name = "idx_order_items_order_id", columnList = "order_id") // 按订单查询订单项
+})
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 主键自增
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq") // 池化分配主键，支持 JDBC 批量插入
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long itemId; // 订单项 ID（主键）
 
     private Long orderId; // 所属订单 ID
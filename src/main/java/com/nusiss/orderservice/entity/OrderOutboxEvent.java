@@ -0,0 +1,48 @@
+package com.nusiss.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/*
+ OrderOutboxEvent 实体类 - 对应数据库中的 order_outbox 表
+ 与订单在同一个本地事务中写入的待投递事件（调用 payment-service、inventory-service 等）
+ 由 OrderOutboxRelay 批量投递，失败后按退避时间重试，至少投递一次
+ 表结构见 db/order_outbox.sql
+ */
+@Data
+@Entity
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_order_outbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_order_outbox_order", columnList = "order_id")
+})
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq") // 池化分配主键，支持 JDBC 批量插入
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long eventId; // 事件ID（主键）
+
+    private Long orderId; // 关联的订单ID
+
+    private String eventType; // 事件类型，例如：PAYMENT_PROCESS、INVENTORY_DEDUCT、INVENTORY_RESTORE
+
+    @Column(columnDefinition = "TEXT")
+    private String payload; // 事件内容（JSON）
+
+    private String status; // 投递状态：PENDING、PROCESSING、SENT、FAILED
+
+    private Integer attempts; // 已尝试投递次数
+
+    private LocalDateTime nextAttemptAt; // 下次可投递时间（PROCESSING 状态下为租约到期时间）
+
+    @Column(length = 64)
+    private String leaseOwner; // 当前租约的持有者标识（每次领取生成），租约过期被重新领取后原持有者不能再更新事件
+
+    @Column(length = 500)
+    private String lastError; // 最近一次失败原因
+
+    private LocalDateTime createDatetime; // 创建时间
+    private LocalDateTime updateDatetime; // 更新时间
+}
@@ -11,11 +11,17 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "order_payments")
+@Table(name = "order_payments", indexes = {
+        @Index(name = "idx_order_payments_status_date", columnList = "payment_status, payment_date"), // 按状态 + 时间筛选
+        @Index(name = "idx_order_payments_method_date", columnList = "payment_method, payment_date"), // 按方式 + 时间筛选
+        @Index(name = "idx_order_payments_date", columnList = "payment_date"), // 按时间范围筛选
+        @Index(name = "idx_order_payments_order_id", columnList = "order_id") // 按订单查询支付记录
+})
 public class OrderPayment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 主键自增
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_payments_seq") // 池化分配主键，支持 JDBC 批量插入
+    @SequenceGenerator(name = "order_payments_seq", sequenceName = "order_payments_seq", allocationSize = 50)
     private Long paymentId; // 支付记录主键
 
     private Long orderId; // 对应的订单ID（外键）
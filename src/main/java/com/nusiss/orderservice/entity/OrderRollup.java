@@ -0,0 +1,54 @@
+package com.nusiss.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+ OrderRollup 实体类，对应数据库中的 order_rollups 表
+ 按小时 / 天汇总的订单数量与金额（GMV），维度为订单状态、支付状态，由 OrderRollupService 增量维护
+ */
+@Data
+@Entity
+@IdClass(OrderRollup.Key.class)
+@Table(name = "order_rollups")
+public class OrderRollup {
+
+    @Id
+    @Column(length = 8)
+    private String granularity; // 汇总粒度：HOUR、DAY
+
+    @Id
+    private LocalDateTime bucketStart; // 时间桶起点（按下单时间截断到小时 / 天）
+
+    @Id
+    @Column(length = 32)
+    private String orderStatus; // 订单状态
+
+    @Id
+    @Column(length = 32)
+    private String paymentStatus; // 支付状态
+
+    private Long orderCount; // 订单数量
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal totalAmount; // 订单总金额
+
+    /*
+     复合主键：粒度 + 时间桶 + 订单状态 + 支付状态
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String granularity;
+        private LocalDateTime bucketStart;
+        private String orderStatus;
+        private String paymentStatus;
+    }
+}
@@ -2,18 +2,25 @@ package com.nusiss.orderservice.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 /*
  OrderShipment 实体类 - 映射 order_shipments 表
  */
 @Data
+@Cacheable // 二级缓存：发货状态会被更新，使用软锁保证缓存与数据库一致
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Entity
-@Table(name = "order_shipments")
+@Table(name = "order_shipments", indexes = {
+        @Index(name = "idx_order_shipments_order_id", columnList = "order_id") // 按订单查询发货记录
+})
 public class OrderShipment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_shipments_seq") // 池化分配主键，支持 JDBC 批量插入
+    @SequenceGenerator(name = "order_shipments_seq", sequenceName = "order_shipments_seq", allocationSize = 50)
     private Long shipmentId;
 
     private Long orderId;
@@ -0,0 +1,54 @@
+package com.nusiss.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+ PaymentRollup 实体类，对应数据库中的 payment_rollups 表
+ 按小时 / 天汇总的支付笔数与实付金额，维度为支付方式、支付状态，由 OrderRollupService 增量维护
+ */
+@Data
+@Entity
+@IdClass(PaymentRollup.Key.class)
+@Table(name = "payment_rollups")
+public class PaymentRollup {
+
+    @Id
+    @Column(length = 8)
+    private String granularity; // 汇总粒度：HOUR、DAY
+
+    @Id
+    private LocalDateTime bucketStart; // 时间桶起点（按支付时间截断到小时 / 天）
+
+    @Id
+    @Column(length = 32)
+    private String paymentMethod; // 支付方式
+
+    @Id
+    @Column(length = 32)
+    private String paymentStatus; // 支付状态
+
+    private Long paymentCount; // 支付笔数
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal amountPaid; // 实付金额合计
+
+    /*
+     复合主键：粒度 + 时间桶 + 支付方式 + 支付状态
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String granularity;
+        private LocalDateTime bucketStart;
+        private String paymentMethod;
+        private String paymentStatus;
+    }
+}
@@ -0,0 +1,24 @@
+package com.nusiss.orderservice.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/*
+ RollupFence 实体类，对应数据库中的 rollup_fences 表
+ 记录每一天的汇总最近一次从明细表重算的时间，所有实例写入增量前都会检查（见 OrderRollupService.flush）
+ */
+@Data
+@Entity
+@Table(name = "rollup_fences")
+public class RollupFence {
+
+    @Id
+    private LocalDate bucketDate; // 汇总日期
+
+    private LocalDateTime rebuiltAt; // 重算完成时间，早于该时间产生的增量已包含在重算结果中
+}
@@ -0,0 +1,24 @@
+package com.nusiss.orderservice.feign;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.InventoryChangeRequest;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/*
+ InventoryCompensationClient - 库存补偿调用
+ commonservice 中的 InventoryFeignClient 只提供扣减接口，下单失败时需要回补已扣减的库存
+ 回补接口路径可通过 order.inventory.restore-path 配置
+ */
+@FeignClient(name = "inventory-service", contextId = "inventoryCompensationClient")
+public interface InventoryCompensationClient {
+
+    /*
+     回补库存（扣减的逆操作）
+     @param request 商品ID、回补数量与操作人
+     @return 是否回补成功
+     */
+    @PostMapping("${order.inventory.restore-path:/inventory/restore}")
+    ApiResponse<Boolean> restoreInventory(@RequestBody InventoryChangeRequest request);
+}
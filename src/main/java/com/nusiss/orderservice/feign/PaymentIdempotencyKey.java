@@ -0,0 +1,52 @@
+package com.nusiss.orderservice.feign;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/*
+ PaymentIdempotencyKey - 为 payment-service 调用附加幂等键（请求头 Idempotency-Key）
+ commonservice 中的 PaymentRequest 没有幂等字段，因此由 Feign 拦截器在当前线程的调用上附加请求头；
+ payment-service 对相同幂等键的重复请求应返回第一次的支付结果，不再重复扣款
+ */
+@Component
+public class PaymentIdempotencyKey implements RequestInterceptor {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /*
+     在附加幂等键的情况下执行远程调用（Feign 调用在当前线程同步执行）
+     @param key  幂等键
+     @param call 远程调用
+     */
+    public static <T> T with(String key, Supplier<T> call) {
+        String previous = CURRENT.get();
+        CURRENT.set(key);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    // 订单支付的幂等键：同一订单的重复投递使用相同的键
+    public static String forOrder(Long orderId) {
+        return "order-payment-" + orderId;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        String key = CURRENT.get();
+        if (key != null) {
+            template.header(HEADER, key);
+        }
+    }
+}
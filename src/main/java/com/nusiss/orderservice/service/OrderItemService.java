@@ -3,7 +3,9 @@ package com.nusiss.orderservice.service;
 import com.nusiss.orderservice.entity.OrderItem;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /*
@@ -28,6 +30,13 @@ public interface OrderItemService {
      */
     List<OrderItem> getItemsByOrderId(Long orderId);
 
+    /*
+     批量获取多个订单的订单项，一次 IN 查询
+     @param orderIds 订单ID列表（去重后不超过 order.query.max-batch-ids）
+     @return 按请求顺序排列的 orderId -> 订单项列表，没有订单项的订单对应空列表
+     */
+    Map<Long, List<OrderItem>> getItemsByOrderIds(List<Long> orderIds);
+
     /*
      更新订单项信息（如数量等）
      @param itemId 订单项ID
@@ -75,4 +84,22 @@ public interface OrderItemService {
      */
     List<Long> getProductIdsByUserId(Long userId);
 
+    /*
+     工具方法：
+     判断用户是否购买过指定商品
+     @param userId 用户ID
+     @param productId 商品ID
+     @return 是否购买过
+     */
+    boolean hasPurchased(Long userId, Long productId);
+
+    /*
+     工具方法：
+     从候选商品中筛选出用户购买过的商品
+     @param userId 用户ID
+     @param productIds 候选商品ID
+     @return 用户购买过的商品ID（去重，保持候选顺序）
+     */
+    List<Long> filterPurchased(Long userId, Collection<Long> productIds);
+
 }
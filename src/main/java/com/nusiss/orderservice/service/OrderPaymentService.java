@@ -1,10 +1,12 @@
 package com.nusiss.orderservice.service;
 
+import com.nusiss.orderservice.dto.OrderPaymentSummary;
 import com.nusiss.orderservice.entity.OrderPayment;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /*
  OrderPaymentService 接口 - 定义订单支付相关的业务逻辑
@@ -33,6 +35,14 @@ public interface OrderPaymentService {
      */
     List<OrderPayment> getAllPayments();
 
+    /*
+     分页获取支付记录摘要（只包含列表展示所需字段），按支付记录ID倒序
+     @param page 当前页码（从 1 开始）
+     @param size 每页数量（不超过配置的上限）
+     @return 当前页支付记录摘要
+     */
+    List<OrderPaymentSummary> getPaymentSummaries(int page, int size);
+
     /*
      更新支付信息
      @param payment 要更新的支付记录
@@ -63,9 +73,18 @@ public interface OrderPaymentService {
      @param method       支付方式（可选）
      @param startDate    起始支付时间（可选）
      @param endDate      结束支付时间（可选）
-     @return 满足条件的支付记录列表
+     @param page         当前页码（从 1 开始）
+     @param size         每页数量（不超过配置的上限）
+     @return 满足条件的支付记录列表（按支付时间倒序）
+     */
+    List<OrderPayment> filterPayments(String status, String method, Date startDate, Date endDate, int page, int size);
+
+    /*
+     按相同条件流式读取全部支付记录（供对账任务导出完整结果）
+     数据库游标逐批读取，处理过的记录立即从持久化上下文中移除，内存占用与结果总量无关
+     @param consumer     逐条处理支付记录
      */
-    List<OrderPayment> filterPayments(String status, String method, Date startDate, Date endDate);
+    void streamPayments(String status, String method, Date startDate, Date endDate, Consumer<OrderPayment> consumer);
 
     /*
      获取某订单的总支付金额（用于核对总额）
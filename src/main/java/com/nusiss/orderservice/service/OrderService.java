@@ -3,12 +3,17 @@ package com.nusiss.orderservice.service;
 import com.nusiss.orderservice.dto.CreateOrderFromCartRequest;
 import com.nusiss.orderservice.dto.DirectOrderRequest;
 import com.nusiss.orderservice.dto.FacePaymentDirectOrderRequest;
+import com.nusiss.orderservice.dto.OrderDetailResponse;
+import com.nusiss.orderservice.dto.OrderSlice;
+import com.nusiss.orderservice.dto.OrderSummary;
 import com.nusiss.orderservice.entity.Order;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /*
  OrderService 接口 - 订单模块业务逻辑接口定义
@@ -50,6 +55,19 @@ public interface OrderService {
     */
     Order createOrderFromCartWithFaceRecognition(CreateOrderFromCartRequest request, MultipartFile faceImage);
 
+    /*
+     异步受理直接下单：订单以 CREATED / UNPAID 状态落库后立即返回，其余流程在后台执行
+     完成后 paymentStatus 变为 PAID，失败时 orderStatus 变为 FAILED（扣减库存失败为 CANCELLED）
+     @return 已受理订单的 ID
+     */
+    Long acceptDirectOrder(DirectOrderRequest request);
+
+    /*
+     异步受理购物车下单：订单以 CREATED / UNPAID 状态落库后立即返回，其余流程在后台执行
+     @return 已受理订单的 ID
+     */
+    Long acceptOrderFromCart(CreateOrderFromCartRequest request);
+
     /*
      根据 ID 查询订单详情
      @param orderId 订单主键
@@ -57,12 +75,34 @@ public interface OrderService {
      */
     Optional<Order> getOrderById(Long orderId);
 
+    /*
+     批量查询订单，一次 IN 查询
+     @param orderIds 订单主键列表（去重后不超过 order.query.max-batch-ids）
+     @return 按请求顺序排列的 orderId -> 订单，不存在的订单不出现在结果中
+     */
+    Map<Long, Order> getOrdersByIds(List<Long> orderIds);
+
+    /*
+     查询订单详情聚合（订单、订单项、支付记录、发货记录）
+     在同一个只读事务中按 order_id 索引各查询一次，共 4 次查询
+     @param orderId 订单主键
+     @return 订单详情，若订单不存在返回 Optional.empty()
+     */
+    Optional<OrderDetailResponse> getOrderDetail(Long orderId);
+
     /*
      查询所有订单列表
      @return 所有订单
      */
     List<Order> getAllOrders();
 
+    /*
+     流式读取全部订单（按订单ID升序），逐条交给 consumer 处理，不在内存中汇总结果
+     供数据导出使用，调用方负责写出每条订单
+     @param consumer 每条订单的处理逻辑
+     */
+    void streamAllOrders(Consumer<Order> consumer);
+
     /*
      更新订单信息
      @param order 更新后的订单对象
@@ -93,9 +133,12 @@ public interface OrderService {
      @param endDate      下单结束时间（可选）
      @param minAmount    最小金额（可选）
      @param maxAmount    最大金额（可选）
-     @return 满足条件的订单列表
+     @param page         当前页码（从 1 开始）
+     @param size         每页数量（不超过配置的上限）
+     @return 满足条件的订单列表（按下单时间倒序）
      */
-    List<Order> filterOrders(String status, Date startDate, Date endDate, Double minAmount, Double maxAmount);
+    List<Order> filterOrders(String status, Date startDate, Date endDate, Double minAmount, Double maxAmount,
+                             int page, int size);
 
     /*
      扩展功能3：分页获取订单列表，并按指定字段排序
@@ -107,5 +150,32 @@ public interface OrderService {
      */
     List<Order> getOrdersWithPaginationAndSorting(int page, int size, String sortBy, String sortOrder);
 
+    /*
+     扩展功能1：根据用户ID查询订单摘要（只包含列表展示所需字段），按下单时间倒序
+     @param userId 用户ID
+     @return 订单摘要列表
+     */
+    List<OrderSummary> getOrderSummariesByUserId(Long userId);
+
+    /*
+     扩展功能3：分页获取订单摘要，不执行 COUNT 查询
+     @param page         当前页码（从 1 开始）
+     @param size         每页数量（不超过配置的上限）
+     @param sortBy       排序字段（仅支持 orderDate、totalAmount、orderId）
+     @param sortOrder    排序方式（"asc" 或 "desc"）
+     @return 当前页订单摘要
+     */
+    List<OrderSummary> getOrderSummaries(int page, int size, String sortBy, String sortOrder);
+
+    /*
+     扩展功能3：游标分页（keyset），按上一页最后一行定位，任意深度的翻页代价相同，且不执行 COUNT 查询
+     @param sortBy       排序字段（仅支持 orderDate、totalAmount、orderId）
+     @param sortOrder    排序方式（"asc" 或 "desc"）
+     @param size         每页数量（不超过配置的上限）
+     @param cursor       上一页返回的游标，为空表示第一页
+     @return 当前页订单及下一页游标
+     */
+    OrderSlice getOrdersByCursor(String sortBy, String sortOrder, int size, String cursor);
+
 
 }
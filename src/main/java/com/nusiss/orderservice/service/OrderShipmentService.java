@@ -1,8 +1,10 @@
 package com.nusiss.orderservice.service;
 
+import com.nusiss.orderservice.dto.OrderShipmentSummary;
 import com.nusiss.orderservice.entity.OrderShipment;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OrderShipmentService {
@@ -19,6 +21,12 @@ public interface OrderShipmentService {
     // 根据订单 ID 查询发货记录
     Optional<OrderShipment> getShipmentByOrderId(Long orderId);
 
+    // 批量查询多个订单的发货记录（一次 IN 查询），按请求顺序返回 orderId -> 发货记录，没有发货记录的订单不出现在结果中
+    Map<Long, OrderShipment> getShipmentsByOrderIds(List<Long> orderIds);
+
     // 获取所有发货记录（可选调试）
     List<OrderShipment> getAllShipments();
+
+    // 分页获取发货记录摘要（只包含列表展示所需字段），按发货记录ID倒序
+    List<OrderShipmentSummary> getShipmentSummaries(int page, int size);
 }
@@ -0,0 +1,137 @@
+package com.nusiss.orderservice.service.cache;
+
+import jakarta.annotation.PostConstruct;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/*
+ InventoryNearCache - 库存数量的进程内短时缓存
+ 仅用于下单前的库存预校验（真正的扣减仍由 inventory-service 保证），缓存条目数量有上限，超出时淘汰最久未使用的条目
+ 本服务扣减或回补库存后通过 Redisson Topic 广播失效消息，所有实例同步删除对应条目
+ */
+@Component
+public class InventoryNearCache {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryNearCache.class);
+
+    private static final String INVALIDATION_TOPIC = "order-service:inventory-invalidation";
+
+    private final RTopic topic;
+
+    private final boolean enabled;
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    private final Map<Long, CachedQuantity> entries;
+
+    @Autowired
+    public InventoryNearCache(RedissonClient redissonClient,
+                              @Value("${order.cache.inventory.enabled:true}") boolean enabled,
+                              @Value("${order.cache.inventory.ttl-ms:2000}") long ttlMillis,
+                              @Value("${order.cache.inventory.max-size:10000}") int maxSize) {
+        this(redissonClient, enabled, ttlMillis, maxSize, System::currentTimeMillis);
+    }
+
+    InventoryNearCache(RedissonClient redissonClient, boolean enabled, long ttlMillis, int maxSize,
+                       LongSupplier clock) {
+        this.topic = redissonClient.getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE);
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedQuantity> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // 订阅其他实例发出的失效消息
+    @PostConstruct
+    public void subscribe() {
+        try {
+            topic.addListener(String.class, (channel, message) -> evictLocal(parse(message)));
+        } catch (RuntimeException e) {
+            log.warn("库存缓存失效消息订阅失败，仅依赖 TTL 过期: {}", e.getMessage());
+        }
+    }
+
+    /*
+     读取缓存的库存数量
+     @param productId 商品ID
+     @return 未过期的库存数量，未命中返回 null
+     */
+    public Integer get(Long productId) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            CachedQuantity cached = entries.get(productId);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt() <= clock.getAsLong()) {
+                entries.remove(productId);
+                return null;
+            }
+            return cached.quantity();
+        }
+    }
+
+    // 缓存从 inventory-service 查询到的库存数量
+    public void put(Long productId, Integer quantity) {
+        if (!enabled || productId == null || quantity == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(productId, new CachedQuantity(quantity, clock.getAsLong() + ttlMillis));
+        }
+    }
+
+    /*
+     库存发生变化（扣减、回补）后调用：删除本地条目并通知其他实例
+     @param productIds 库存发生变化的商品ID
+     */
+    public void invalidate(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        evictLocal(productIds);
+        try {
+            topic.publish(productIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            log.warn("库存缓存失效消息发送失败，其他实例将在 TTL 后过期: {}", e.getMessage());
+        }
+    }
+
+    private void evictLocal(Collection<Long> productIds) {
+        synchronized (entries) {
+            productIds.forEach(entries::remove);
+        }
+    }
+
+    private Collection<Long> parse(String message) {
+        return Arrays.stream(message.split(","))
+                .filter(id -> !id.isBlank())
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    private record CachedQuantity(int quantity, long expiresAt) {
+    }
+}
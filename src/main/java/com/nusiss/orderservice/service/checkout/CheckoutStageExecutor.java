@@ -0,0 +1,116 @@
+package com.nusiss.orderservice.service.checkout;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*
+ CheckoutStageExecutor - 下单流程中的并发阶段执行器
+ 将同一阶段内互不依赖的远程调用并发提交到有界线程池，并为整个阶段设置统一的超时时间
+ 任意一个调用失败或阶段超时，其余尚未完成的调用都会被取消
+ */
+@Component
+public class CheckoutStageExecutor {
+
+    private final Executor executor;
+
+    private final long stageTimeoutMs;
+
+    @Autowired
+    public CheckoutStageExecutor(@Qualifier("checkoutExecutor") Executor executor,
+                                 @Value("${order.checkout.stage-timeout-ms:3000}") long stageTimeoutMs) {
+        this.executor = executor;
+        this.stageTimeoutMs = stageTimeoutMs;
+    }
+
+    /*
+     提交一个远程调用任务
+     @param task 远程调用逻辑
+     @return 对应的异步结果
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /*
+     等待阶段内的所有任务完成
+     任意任务失败时立即返回（不等待其余任务），并取消其余未完成的任务
+     @param futures 本阶段提交的所有任务
+     @throws RuntimeException 任务本身抛出的业务异常，或阶段超时/中断异常
+     */
+    public void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        CompletableFuture<?>[] all = futures.toArray(new CompletableFuture<?>[0]);
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<?> future : all) {
+            future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    firstFailure.completeExceptionally(ex);
+                }
+            });
+        }
+
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(all), firstFailure)
+                    .get(stageTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancelAll(futures);
+            throw new RuntimeException("下游服务响应超时，请稍后重试", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll(futures);
+            throw new RuntimeException("下单流程被中断", e);
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw unwrap(e);
+        }
+    }
+
+    /*
+     将一组元素轮流分配到不超过 groupCount 个分组中，用于限制同一阶段的并发调用数量
+     @param items      待分组的元素
+     @param groupCount 分组数量上限
+     @return 分组结果（不包含空分组）
+     */
+    public static <T> List<List<T>> partition(List<T> items, int groupCount) {
+        int size = Math.min(Math.max(1, groupCount), items.size());
+        List<List<T>> groups = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            groups.get(i % size).add(items.get(i));
+        }
+        return groups;
+    }
+
+    // 取消所有尚未完成的任务（已在线程池排队但未开始执行的任务将不再执行）
+    private void cancelAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    // 剥离并发框架包装的异常，保留业务异常原本的提示信息
+    private RuntimeException unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new RuntimeException(cause.getMessage(), cause);
+    }
+}
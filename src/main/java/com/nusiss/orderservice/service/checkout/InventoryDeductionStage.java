@@ -0,0 +1,206 @@
+package com.nusiss.orderservice.service.checkout;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.commonservice.entity.InventoryChangeRequest;
+import com.nusiss.commonservice.feign.InventoryFeignClient;
+import com.nusiss.orderservice.feign.InventoryCompensationClient;
+import com.nusiss.orderservice.service.cache.InventoryNearCache;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ InventoryDeductionStage - 购物车下单的批量库存扣减
+ 所有商品行在同一个并发阶段内扣减，并记录已经扣减成功的商品
+ 任意一行扣减失败时，对已扣减成功的商品并发发起回补，避免库存泄漏
+ 扣减结束后统一失效涉及商品的库存缓存
+ 回补失败的商品写入 outbox，由 relay 稍后重试
+ */
+@Component
+public class InventoryDeductionStage {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryDeductionStage.class);
+
+    private static final String OPERATOR = "order-service";
+
+    private final InventoryFeignClient inventoryFeignClient;
+
+    private final InventoryCompensationClient compensationClient;
+
+    private final CheckoutStageExecutor stageExecutor;
+
+    private final InventoryNearCache inventoryNearCache;
+
+    private final OrderOutboxService outboxService;
+
+    // 单次扣减允许同时进行的远程调用数量上限
+    private final int parallelism;
+
+    @Autowired
+    public InventoryDeductionStage(InventoryFeignClient inventoryFeignClient,
+                                   InventoryCompensationClient compensationClient,
+                                   CheckoutStageExecutor stageExecutor,
+                                   InventoryNearCache inventoryNearCache,
+                                   OrderOutboxService outboxService,
+                                   @Value("${order.checkout.deduct-parallelism:8}") int parallelism) {
+        this.inventoryFeignClient = inventoryFeignClient;
+        this.compensationClient = compensationClient;
+        this.stageExecutor = stageExecutor;
+        this.inventoryNearCache = inventoryNearCache;
+        this.outboxService = outboxService;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /*
+     扣减购物车中所有商品的库存
+     同一商品出现在多行时合并为一次扣减
+     @param orderId   订单ID（写入回补事件，便于追踪与去重）
+     @param cartItems 购物车商品项
+     @throws RuntimeException 任一商品扣减失败（此时已扣减成功的商品已发起回补）
+     */
+    public void deductAll(Long orderId, List<CartItem> cartItems) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (CartItem item : cartItems) {
+            lines.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        DeductionLedger ledger = new DeductionLedger();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<Map.Entry<Long, Integer>> group
+                : CheckoutStageExecutor.partition(new ArrayList<>(lines.entrySet()), parallelism)) {
+            futures.add(stageExecutor.submit(() -> {
+                deductGroup(orderId, group, ledger, failure);
+                return null;
+            }));
+        }
+
+        try {
+            stageExecutor.awaitAll(futures);
+        } catch (RuntimeException e) {
+            // 阶段超时或被中断：超时的扣减结果未知，只回补明确成功的部分
+            failure.compareAndSet(null, e.getMessage());
+        }
+
+        try {
+            if (failure.get() != null) {
+                compensate(orderId, ledger.startCompensation());
+                throw new RuntimeException(failure.get());
+            }
+        } finally {
+            inventoryNearCache.invalidate(lines.keySet());
+        }
+    }
+
+    // 顺序扣减同一分组内的商品，其他分组已失败时提前结束
+    private void deductGroup(Long orderId, List<Map.Entry<Long, Integer>> group, DeductionLedger ledger,
+                             AtomicReference<String> failure) {
+        for (Map.Entry<Long, Integer> line : group) {
+            if (failure.get() != null) {
+                return;
+            }
+            Long productId = line.getKey();
+            Integer quantity = line.getValue();
+            boolean deducted;
+            try {
+                ApiResponse<Boolean> deductRes = inventoryFeignClient.deductInventory(
+                        changeRequest(productId, quantity));
+                deducted = deductRes.isSuccess() && !Boolean.FALSE.equals(deductRes.getData());
+            } catch (RuntimeException e) {
+                deducted = false;
+            }
+            if (!deducted) {
+                failure.compareAndSet(null, "库存扣减失败，商品ID: " + productId);
+                return;
+            }
+            if (!ledger.record(productId, quantity)) {
+                // 回补已经开始后才返回的扣减结果，直接单独回补
+                restore(orderId, productId, quantity);
+            }
+        }
+    }
+
+    // 并发回补已扣减成功的商品，回补失败交给 outbox 重试，不覆盖原始失败原因
+    private void compensate(Long orderId, Map<Long, Integer> deducted) {
+        if (deducted.isEmpty()) {
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<Map.Entry<Long, Integer>> group
+                : CheckoutStageExecutor.partition(new ArrayList<>(deducted.entrySet()), parallelism)) {
+            futures.add(stageExecutor.submit(() -> {
+                group.forEach(line -> restore(orderId, line.getKey(), line.getValue()));
+                return null;
+            }));
+        }
+        try {
+            stageExecutor.awaitAll(futures);
+        } catch (RuntimeException e) {
+            log.error("库存回补未在超时时间内完成，订单ID: {}，待回补商品: {}", orderId, deducted, e);
+        }
+    }
+
+    private void restore(Long orderId, Long productId, Integer quantity) {
+        InventoryChangeRequest change = changeRequest(productId, quantity);
+        try {
+            ApiResponse<Boolean> restoreRes = compensationClient.restoreInventory(change);
+            if (restoreRes.isSuccess() && !Boolean.FALSE.equals(restoreRes.getData())) {
+                return;
+            }
+            log.warn("库存回补失败，订单ID: {}，商品ID: {}，数量: {}，原因: {}", orderId, productId, quantity,
+                    restoreRes.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("库存回补失败，订单ID: {}，商品ID: {}，数量: {}，原因: {}", orderId, productId, quantity,
+                    e.getMessage());
+        }
+        try {
+            outboxService.enqueueInventoryRestore(orderId, change);
+        } catch (RuntimeException e) {
+            log.error("库存回补事件写入失败，需人工处理，订单ID: {}，商品ID: {}，数量: {}", orderId, productId, quantity, e);
+        }
+    }
+
+    private InventoryChangeRequest changeRequest(Long productId, Integer quantity) {
+        InventoryChangeRequest change = new InventoryChangeRequest();
+        change.setProductId(productId);
+        change.setQuantity(quantity);
+        change.setOperator(OPERATOR);
+        return change;
+    }
+
+    /*
+     扣减记录：保存已经扣减成功的商品
+     一旦开始回补便不再接收新的记录，迟到的扣减结果由调用方单独回补
+     */
+    private static class DeductionLedger {
+
+        private final Map<Long, Integer> deducted = new LinkedHashMap<>();
+
+        private boolean compensating;
+
+        synchronized boolean record(Long productId, Integer quantity) {
+            if (compensating) {
+                return false;
+            }
+            deducted.put(productId, quantity);
+            return true;
+        }
+
+        synchronized Map<Long, Integer> startCompensation() {
+            compensating = true;
+            return new LinkedHashMap<>(deducted);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nusiss.orderservice.service.checkout;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.Product;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ ProductSnapshotFetcher - 购物车下单时一次性获取所有商品快照
+ 对商品ID去重后按并发上限分组，在同一个并发阶段内完成查询；商品价格用于扣款，始终读取 product-service
+ 返回不可变的 productId -> Product 映射（按商品ID首次出现的顺序，即购物车顺序），供计价、创建订单项、发起支付复用
+ */
+@Component
+public class ProductSnapshotFetcher {
+
+    private final CoalescingReadClient readClient;
+
+    private final CheckoutStageExecutor stageExecutor;
+
+    // 单次获取允许同时进行的远程调用数量上限
+    private final int parallelism;
+
+    @Autowired
+    public ProductSnapshotFetcher(CoalescingReadClient readClient,
+                                  CheckoutStageExecutor stageExecutor,
+                                  @Value("${order.checkout.product-fetch-parallelism:8}") int parallelism) {
+        this.readClient = readClient;
+        this.stageExecutor = stageExecutor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /*
+     获取一组商品的快照
+     product-service 目前未提供批量查询接口，因此按分组并发调用单个查询接口
+     @param productIds 商品ID（允许重复）
+     @return 不可变的商品快照映射，遍历顺序与 productIds 中首次出现的顺序一致
+     @throws RuntimeException 任一商品不存在或查询失败
+     */
+    public Map<Long, Product> fetch(Collection<Long> productIds) {
+        List<Long> distinctIds = productIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<CompletableFuture<Map<Long, Product>>> futures = new ArrayList<>();
+        for (List<Long> group : CheckoutStageExecutor.partition(distinctIds, parallelism)) {
+            futures.add(stageExecutor.submit(() -> fetchGroup(group)));
+        }
+        stageExecutor.awaitAll(futures);
+
+        Map<Long, Product> snapshot = new HashMap<>();
+        for (CompletableFuture<Map<Long, Product>> future : futures) {
+            snapshot.putAll(future.join());
+        }
+        return inOrder(distinctIds, snapshot);
+    }
+
+    // 按请求顺序排列，调用方取第一个商品时结果是确定的
+    private static Map<Long, Product> inOrder(List<Long> ids, Map<Long, Product> snapshot) {
+        Map<Long, Product> ordered = new LinkedHashMap<>();
+        for (Long id : ids) {
+            ordered.put(id, snapshot.get(id));
+        }
+        return Collections.unmodifiableMap(ordered);
+    }
+
+    // 顺序查询同一分组内的商品
+    private Map<Long, Product> fetchGroup(List<Long> group) {
+        Map<Long, Product> result = new HashMap<>();
+        for (Long productId : group) {
+            ApiResponse<Product> productRes = readClient.getProductById(productId);
+            if (!productRes.isSuccess() || productRes.getData() == null) {
+                throw new RuntimeException("获取商品信息失败，商品ID: " + productId);
+            }
+            result.put(productId, productRes.getData());
+        }
+        return result;
+    }
+}
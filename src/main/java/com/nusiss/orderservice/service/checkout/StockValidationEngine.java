@@ -0,0 +1,113 @@
+package com.nusiss.orderservice.service.checkout;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.orderservice.service.cache.InventoryNearCache;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/*
+ StockValidationEngine - 购物车下单前的并发库存校验
+ 所有商品行在同一个并发阶段内校验，并发数量受配置上限约束
+ 优先使用进程内库存缓存，缓存已判定库存不足时不发起任何远程调用
+ 库存不足不影响其他商品行的校验，所有库存不足的商品在同一个异常中返回；库存查询失败时尚未开始的校验不再发起
+ */
+@Component
+public class StockValidationEngine {
+
+    private final CoalescingReadClient readClient;
+
+    private final CheckoutStageExecutor stageExecutor;
+
+    private final InventoryNearCache inventoryNearCache;
+
+    // 单次校验允许同时进行的远程调用数量上限
+    private final int parallelism;
+
+    @Autowired
+    public StockValidationEngine(CoalescingReadClient readClient,
+                                 CheckoutStageExecutor stageExecutor,
+                                 InventoryNearCache inventoryNearCache,
+                                 @Value("${order.checkout.stock-check-parallelism:8}") int parallelism) {
+        this.readClient = readClient;
+        this.stageExecutor = stageExecutor;
+        this.inventoryNearCache = inventoryNearCache;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /*
+     校验购物车中所有商品的库存是否充足
+     同一商品出现在多行时按合计数量校验
+     @param cartItems 购物车商品项
+     @throws RuntimeException 库存查询失败，或存在库存不足的商品（异常信息中列出所有库存不足的商品ID）
+     */
+    public void validate(List<CartItem> cartItems) {
+        Map<Long, Integer> required = new LinkedHashMap<>();
+        for (CartItem item : cartItems) {
+            required.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        ConcurrentLinkedQueue<Long> insufficient = new ConcurrentLinkedQueue<>();
+        List<Map.Entry<Long, Integer>> uncached = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : required.entrySet()) {
+            Integer cachedStock = inventoryNearCache.get(line.getKey());
+            if (cachedStock == null) {
+                uncached.add(line);
+            } else if (cachedStock < line.getValue()) {
+                insufficient.add(line.getKey());
+            }
+        }
+
+        // 缓存中已发现库存不足时直接拒绝，不再发起远程校验
+        if (insufficient.isEmpty() && !uncached.isEmpty()) {
+            AtomicBoolean aborted = new AtomicBoolean(false);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (List<Map.Entry<Long, Integer>> group : CheckoutStageExecutor.partition(uncached, parallelism)) {
+                futures.add(stageExecutor.submit(() -> {
+                    checkGroup(group, aborted, insufficient);
+                    return null;
+                }));
+            }
+            stageExecutor.awaitAll(futures);
+        }
+
+        if (!insufficient.isEmpty()) {
+            String productIds = insufficient.stream()
+                    .sorted()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+            throw new RuntimeException("商品库存不足，商品ID: " + productIds);
+        }
+    }
+
+    // 顺序校验同一分组内的商品，其他分组库存查询失败时提前结束
+    private void checkGroup(List<Map.Entry<Long, Integer>> group, AtomicBoolean aborted,
+                            ConcurrentLinkedQueue<Long> insufficient) {
+        for (Map.Entry<Long, Integer> line : group) {
+            if (aborted.get()) {
+                return;
+            }
+            Long productId = line.getKey();
+            ApiResponse<Integer> stockRes = readClient.getInventoryQuantity(productId);
+            if (!stockRes.isSuccess() || stockRes.getData() == null) {
+                aborted.set(true);
+                throw new RuntimeException("无法获取商品库存，商品ID: " + productId);
+            }
+            inventoryNearCache.put(productId, stockRes.getData());
+            if (stockRes.getData() < line.getValue()) {
+                insufficient.add(productId);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.nusiss.orderservice.service.event;
+
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.entity.OrderPayment;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/*
+ OrderChangeEventBridge - 将 Hibernate 的提交后事件转换为 OrderChangedEvent / OrderPaymentChangedEvent / OrderItemChangedEvent
+ 所有通过 JPA 写入 orders、order_payments、order_items 表的路径（下单、异步受理、outbox 处理器、更新、删除）都会经过这里，
+ 事件只在事务成功提交后发布，回滚的写入不会影响订阅方
+ 订阅方在提交事务的线程中同步执行，需自行处理异常，不能影响业务流程；
+ 此时原事务仍在提交过程中，订阅方不应在回调中直接访问数据库，需要写库的订阅方应先缓冲再异步写入
+ */
+@Component
+public class OrderChangeEventBridge implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderChangeEventBridge.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderChangeEventBridge(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return Order.class.equals(type) || OrderPayment.class.equals(type) || OrderItem.class.equals(type);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Order order) {
+            publish(order.getOrderId(), new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED, order, null));
+        } else if (event.getEntity() instanceof OrderPayment payment) {
+            publish(payment.getOrderId(),
+                    new OrderPaymentChangedEvent(OrderChangedEvent.ChangeType.CREATED, payment, null));
+        } else if (event.getEntity() instanceof OrderItem item) {
+            publish(item.getOrderId(), new OrderItemChangedEvent(OrderChangedEvent.ChangeType.CREATED, item));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object previous = snapshot(event);
+        if (event.getEntity() instanceof Order order) {
+            publish(order.getOrderId(),
+                    new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED, order, (Order) previous));
+        } else if (event.getEntity() instanceof OrderPayment payment) {
+            publish(payment.getOrderId(), new OrderPaymentChangedEvent(OrderChangedEvent.ChangeType.UPDATED,
+                    payment, (OrderPayment) previous));
+        } else if (event.getEntity() instanceof OrderItem item) {
+            publish(item.getOrderId(), new OrderItemChangedEvent(OrderChangedEvent.ChangeType.UPDATED, item));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Order order) {
+            publish(order.getOrderId(), new OrderChangedEvent(OrderChangedEvent.ChangeType.DELETED, order, order));
+        } else if (event.getEntity() instanceof OrderPayment payment) {
+            publish(payment.getOrderId(),
+                    new OrderPaymentChangedEvent(OrderChangedEvent.ChangeType.DELETED, payment, payment));
+        } else if (event.getEntity() instanceof OrderItem item) {
+            publish(item.getOrderId(), new OrderItemChangedEvent(OrderChangedEvent.ChangeType.DELETED, item));
+        }
+    }
+
+    // 提交失败时事务已回滚，不发布事件
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void publish(Long orderId, Object event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish change event for order {}", orderId, e);
+        }
+    }
+
+    // 按更新前的字段值构造实体快照，未加载快照时返回 null
+    private static Object snapshot(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            return null;
+        }
+        EntityPersister persister = event.getPersister();
+        Object previous = persister.instantiate(event.getId(), event.getSession());
+        persister.setValues(previous, oldState);
+        return previous;
+    }
+}
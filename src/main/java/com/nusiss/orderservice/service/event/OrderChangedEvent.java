@@ -0,0 +1,55 @@
+package com.nusiss.orderservice.service.event;
+
+import com.nusiss.orderservice.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/*
+ OrderChangedEvent - 订单写入事务提交后发布的变更事件
+ order 为提交后的订单状态（删除时为删除前的状态），previous 为变更前的订单快照（新建时为 null，删除时与 order 相同）
+ 更新时变更前的状态无法确定（如未加载快照的更新）则 previous 为 null，订阅方应按全量重建处理
+ */
+@Getter
+@AllArgsConstructor
+public class OrderChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final ChangeType type;
+
+    private final Order order;
+
+    private final Order previous;
+
+    public boolean isPreviousKnown() {
+        return type != ChangeType.UPDATED || previous != null;
+    }
+
+    public Long getOrderId() {
+        return order.getOrderId();
+    }
+
+    public Long getUserId() {
+        return order.getUserId();
+    }
+
+    public String getCurrentStatus() {
+        return order.getOrderStatus();
+    }
+
+    public Long getPreviousUserId() {
+        return previous == null ? null : previous.getUserId();
+    }
+
+    public String getPreviousStatus() {
+        return previous == null ? null : previous.getOrderStatus();
+    }
+
+    public BigDecimal getPreviousTotalAmount() {
+        return previous == null ? null : previous.getTotalAmount();
+    }
+}
@@ -0,0 +1,22 @@
+package com.nusiss.orderservice.service.event;
+
+import com.nusiss.orderservice.entity.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ OrderItemChangedEvent - 订单项写入事务提交后发布的变更事件
+ item 为提交后的订单项（删除时为删除前的状态），不携带变更前的快照
+ */
+@Getter
+@AllArgsConstructor
+public class OrderItemChangedEvent {
+
+    private final OrderChangedEvent.ChangeType type;
+
+    private final OrderItem item;
+
+    public Long getOrderId() {
+        return item.getOrderId();
+    }
+}
@@ -0,0 +1,25 @@
+package com.nusiss.orderservice.service.event;
+
+import com.nusiss.orderservice.entity.OrderPayment;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ OrderPaymentChangedEvent - 支付记录写入事务提交后发布的变更事件
+ payment 为提交后的状态（删除时为删除前的状态），previous 为变更前的快照（新建时为 null，删除时与 payment 相同）
+ 更新时变更前的状态无法确定则 previous 为 null
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPaymentChangedEvent {
+
+    private final OrderChangedEvent.ChangeType type;
+
+    private final OrderPayment payment;
+
+    private final OrderPayment previous;
+
+    public boolean isPreviousKnown() {
+        return type != OrderChangedEvent.ChangeType.UPDATED || previous != null;
+    }
+}
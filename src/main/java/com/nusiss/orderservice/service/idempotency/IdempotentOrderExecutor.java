@@ -0,0 +1,153 @@
+package com.nusiss.orderservice.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nusiss.orderservice.config.CheckoutRejectedException;
+import com.nusiss.orderservice.config.IdempotencyConflictException;
+import com.nusiss.orderservice.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ IdempotentOrderExecutor - 基于 Idempotency-Key 请求头的下单去重（Redis / Redisson）
+ 1. 第一个请求以 IN_FLIGHT 占位（短 TTL，防止实例宕机后永久占用），执行下单流程
+ 2. 下单成功后保存订单结果（配置的 TTL），重复请求直接返回保存的结果
+ 3. 处理中的重复请求不等待，直接返回 409，客户端稍后重试
+ 4. 发起支付之前失败（CheckoutRejectedException，未扣款）时删除占位，客户端重试会重新执行
+ 5. 其他失败（例如支付调用超时）可能已经扣款，保存 UNKNOWN 记录，重复请求返回 409，
+    客户端需先查询订单状态，确认未下单后再使用新的幂等键
+ Redis 不可用时不做去重，直接执行下单流程
+ */
+@Component
+public class IdempotentOrderExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotentOrderExecutor.class);
+
+    private static final String KEY_PREFIX = "order-service:idempotency:";
+
+    private static final String IN_FLIGHT = "IN_FLIGHT";
+
+    private static final String COMPLETED = "COMPLETED";
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final RedissonClient redissonClient;
+
+    private final TypedJsonJacksonCodec codec;
+
+    private final boolean enabled;
+
+    // 已完成（或结果未知）请求记录的保存时间
+    private final long ttlSeconds;
+
+    // 处理中占位的保存时间，需明显大于下单流程的最长耗时（支付调用的 Feign 读超时为 60 秒）
+    private final long inFlightTtlSeconds;
+
+    @Autowired
+    public IdempotentOrderExecutor(RedissonClient redissonClient,
+                                   ObjectMapper objectMapper,
+                                   @Value("${order.idempotency.enabled:true}") boolean enabled,
+                                   @Value("${order.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                                   @Value("${order.idempotency.in-flight-ttl-seconds:300}") long inFlightTtlSeconds) {
+        this.redissonClient = redissonClient;
+        this.codec = new TypedJsonJacksonCodec(IdempotencyRecord.class, objectMapper.copy());
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.inFlightTtlSeconds = inFlightTtlSeconds;
+    }
+
+    /*
+     按幂等键执行下单
+     @param scope          接口范围，例如 direct、fromCart
+     @param userId         下单用户，幂等键按用户隔离
+     @param idempotencyKey 客户端提供的幂等键，为空时不做去重
+     @param action         下单流程
+     @return 下单结果（重复请求返回第一次请求的结果）
+     @throws IdempotencyConflictException 相同的请求正在处理中，或上次处理结果未知
+     */
+    public Order execute(String scope, Long userId, String idempotencyKey, Supplier<Order> action) {
+        if (!enabled || idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        RBucket<IdempotencyRecord> bucket = redissonClient.getBucket(
+                KEY_PREFIX + scope + ":" + userId + ":" + idempotencyKey, codec);
+
+        boolean claimed;
+        IdempotencyRecord existing = null;
+        try {
+            claimed = bucket.trySet(new IdempotencyRecord(IN_FLIGHT, null, null),
+                    inFlightTtlSeconds, TimeUnit.SECONDS);
+            if (!claimed) {
+                existing = bucket.get();
+            }
+        } catch (RuntimeException e) {
+            log.warn("幂等键读写失败，跳过去重，幂等键: {}，原因: {}", idempotencyKey, e.getMessage());
+            return action.get();
+        }
+
+        if (claimed) {
+            return runAndStore(bucket, action);
+        }
+        if (existing != null && COMPLETED.equals(existing.getStatus())) {
+            return existing.getOrder();
+        }
+        if (existing != null && UNKNOWN.equals(existing.getStatus())) {
+            log.warn("重复的下单请求，上次处理结果未知，原因: {}", existing.getMessage());
+            throw new IdempotencyConflictException("相同的下单请求上次处理结果未知，请先查询订单状态，确认未下单后使用新的幂等键重试");
+        }
+        // 第一个请求仍在处理中（或刚刚失败释放了占位）
+        throw new IdempotencyConflictException("相同的下单请求正在处理中，请稍后重试");
+    }
+
+    private Order runAndStore(RBucket<IdempotencyRecord> bucket, Supplier<Order> action) {
+        Order order;
+        try {
+            order = action.get();
+        } catch (CheckoutRejectedException e) {
+            // 未扣款，释放占位允许重试
+            try {
+                bucket.delete();
+            } catch (RuntimeException deleteError) {
+                log.warn("幂等键占位释放失败，将在占位过期后释放: {}", deleteError.getMessage());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // 可能已扣款，保留记录，重复请求不再执行下单流程
+            try {
+                bucket.set(new IdempotencyRecord(UNKNOWN, null, e.getMessage()), ttlSeconds, TimeUnit.SECONDS);
+            } catch (RuntimeException storeError) {
+                log.warn("下单结果未知且记录保存失败，将在占位过期后允许重试: {}", storeError.getMessage());
+            }
+            throw e;
+        }
+        try {
+            bucket.set(new IdempotencyRecord(COMPLETED, order, null), ttlSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            log.warn("下单结果保存失败，订单ID: {}，原因: {}", order.getOrderId(), e.getMessage());
+        }
+        return order;
+    }
+
+    /*
+     幂等记录：处理状态 + 下单结果（结果未知时为失败原因）
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class IdempotencyRecord {
+        private String status;
+        private Order order;
+        private String message;
+    }
+}
@@ -1,14 +1,27 @@
 package com.nusiss.orderservice.service.impl;
 
 import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.entity.Order;
 import com.nusiss.orderservice.entity.OrderItem;
 import com.nusiss.orderservice.service.OrderItemService;
+import com.nusiss.orderservice.service.paging.IdBatch;
+import com.nusiss.orderservice.service.purchase.PurchasedProductCache;
+import com.nusiss.orderservice.service.purchase.PurchasedProductSet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderItemServiceImpl implements OrderItemService {
@@ -16,6 +29,16 @@ public class OrderItemServiceImpl implements OrderItemService {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PurchasedProductCache purchasedProductCache;
+
+    // 批量查询单次 ID 数量上限
+    @Value("${order.query.max-batch-ids:200}")
+    private int maxBatchIds = 200;
+
 
     /* 添加商品项至订单，暂时弃用*/
 //    @Override
@@ -30,12 +53,23 @@ public class OrderItemServiceImpl implements OrderItemService {
         return orderItemRepository.findByOrderId(orderId);
     }
 
+    // 批量获取多个订单的订单项，按 orderId 分组
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<OrderItem>> getItemsByOrderIds(List<Long> orderIds) {
+        List<Long> ids = IdBatch.of(orderIds, maxBatchIds);
+        Map<Long, List<OrderItem>> result = new LinkedHashMap<>();
+        ids.forEach(id -> result.put(id, new ArrayList<>()));
+        orderItemRepository.findByOrderIdIn(ids).forEach(item -> result.get(item.getOrderId()).add(item));
+        return result;
+    }
+
     // 修改某个商品项（如数量）
     @Override
     public boolean updateOrderItem(Long itemId, OrderItem updatedItem) {
         if (orderItemRepository.existsById(itemId)) {
             updatedItem.setItemId(itemId); // 确保使用传入的 ID
-            orderItemRepository.save(updatedItem);
+            orderItemRepository.save(updatedItem); // 已购集合由 PurchasedProductCache 订阅变更事件后失效
             return true;
         }
         return false;
@@ -64,7 +98,9 @@ public class OrderItemServiceImpl implements OrderItemService {
     // 扩展功能：批量添加
     @Override
     public List<OrderItem> addOrderItemsInBatch(List<OrderItem> items) {
-        return orderItemRepository.saveAll(items);
+        List<OrderItem> saved = orderItemRepository.saveAll(items);
+        recordPurchases(saved);
+        return saved;
     }
 
     // 扩展功能：批量删除
@@ -82,7 +118,38 @@ public class OrderItemServiceImpl implements OrderItemService {
     // 工具类功能，用于联动：根据用户ID获取所有商品ID
     @Override
     public List<Long> getProductIdsByUserId(Long userId) {
-        return orderItemRepository.findProductIdsByUserId(userId);
+        return purchasedProductCache.get(userId).toList();
+    }
+
+    @Override
+    public boolean hasPurchased(Long userId, Long productId) {
+        return productId != null && purchasedProductCache.get(userId).contains(productId);
+    }
+
+    @Override
+    public List<Long> filterPurchased(Long userId, Collection<Long> productIds) {
+        PurchasedProductSet purchased = purchasedProductCache.get(userId);
+        return productIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(purchased::contains)
+                .toList();
+    }
+
+    // 按订单所属用户归并新写入的商品ID，更新已购商品缓存
+    private void recordPurchases(List<OrderItem> items) {
+        List<Long> orderIds = items.stream().map(OrderItem::getOrderId).filter(Objects::nonNull).distinct().toList();
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> userIdByOrderId = orderRepository.findAllById(orderIds).stream()
+                .filter(order -> order.getUserId() != null)
+                .collect(Collectors.toMap(Order::getOrderId, Order::getUserId));
+        items.stream()
+                .filter(item -> item.getProductId() != null && userIdByOrderId.containsKey(item.getOrderId()))
+                .collect(Collectors.groupingBy(item -> userIdByOrderId.get(item.getOrderId()),
+                        Collectors.mapping(OrderItem::getProductId, Collectors.toList())))
+                .forEach(purchasedProductCache::recordPurchase);
     }
 
 }
@@ -1,17 +1,34 @@
 package com.nusiss.orderservice.service.impl;
 
 import com.nusiss.orderservice.dao.OrderPaymentRepository;
+import com.nusiss.orderservice.dao.OrderPaymentSpecifications;
+import com.nusiss.orderservice.dao.StreamingFetch;
+import com.nusiss.orderservice.dto.OrderPaymentSummary;
 import com.nusiss.orderservice.entity.OrderPayment;
 import com.nusiss.orderservice.service.OrderPaymentService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /*
  OrderPaymentServiceImpl - 订单支付模块业务逻辑实现类
@@ -22,6 +39,13 @@ public class OrderPaymentServiceImpl implements OrderPaymentService {
     @Autowired
     private OrderPaymentRepository paymentRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // 列表查询单页数量上限
+    @Value("${order.query.max-page-size:500}")
+    private int maxPageSize = 500;
+
     // 基础功能
     // 创建支付记录
     @Override
@@ -38,10 +62,20 @@ public class OrderPaymentServiceImpl implements OrderPaymentService {
 
     // 获取全部支付记录
     @Override
+    @Transactional(readOnly = true)
     public List<OrderPayment> getAllPayments() {
         return paymentRepository.findAll();
     }
 
+    // 分页获取支付记录摘要（只选取摘要列）
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderPaymentSummary> getPaymentSummaries(int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(Sort.Direction.DESC, "paymentId"));
+        return paymentRepository.findSummaryBy(pageable).getContent();
+    }
+
     // 更新支付记录
     @Override
     public boolean updatePayment(OrderPayment payment) {
@@ -70,35 +104,47 @@ public class OrderPaymentServiceImpl implements OrderPaymentService {
         return paymentRepository.findByOrderId(orderId);
     }
 
-    // 扩展功能2: 多条件筛选（状态、方式、时间）
+    // 扩展功能2: 多条件筛选（状态、方式、时间），过滤与分页在数据库中完成
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderPayment> filterPayments(String status, String method, Date startDate, Date endDate,
+                                             int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(Sort.Order.desc("paymentDate"), Sort.Order.desc("paymentId")));
+        return paymentRepository.findAll(toSpecification(status, method, startDate, endDate), pageable).getContent();
+    }
+
+    // 扩展功能2: 流式读取全部筛选结果（对账导出）
     @Override
-    public List<OrderPayment> filterPayments(String status, String method, Date startDate, Date endDate) {
-        //从数据库中获取所有订单支付记录
-        List<OrderPayment> all = paymentRepository.findAll();
+    @Transactional(readOnly = true)
+    public void streamPayments(String status, String method, Date startDate, Date endDate,
+                               Consumer<OrderPayment> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderPayment> query = cb.createQuery(OrderPayment.class);
+        Root<OrderPayment> root = query.from(OrderPayment.class);
+        Predicate predicate = toSpecification(status, method, startDate, endDate).toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("paymentId")));
+
+        try (Stream<OrderPayment> payments = entityManager.createQuery(query)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, StreamingFetch.FETCH_SIZE)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            payments.forEach(payment -> {
+                consumer.accept(payment);
+                entityManager.detach(payment);
+            });
+        }
+    }
+
+    private Specification<OrderPayment> toSpecification(String status, String method, Date startDate, Date endDate) {
         //将开始日期转换为LocalDateTime，如果为空则为null
         LocalDateTime startDateTime = startDate != null ? startDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
         // 将结束日期转换为LocalDateTime，如果为空则为null
         LocalDateTime endDateTime = endDate != null ? endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
-
-        // 使用流式处理过滤支付记录
-        return all.stream().filter(p -> {
-            //初始化匹配标志为true
-            boolean match = true;
-            // 如果状态参数不为空且不匹配，标记为不匹配
-            if (status != null && !status.equalsIgnoreCase(p.getPaymentStatus())) {
-                match = false;
-            }
-            if (method != null && !method.equalsIgnoreCase(p.getPaymentMethod())) {
-                match = false;
-            }
-            if (startDateTime != null && (p.getPaymentDate() == null || p.getPaymentDate().isBefore(startDateTime))) {
-                match = false;
-            }
-            if (endDateTime != null && (p.getPaymentDate() == null || p.getPaymentDate().isAfter(endDateTime))) {
-                match = false;
-            }
-            return match;
-        }).collect(Collectors.toList());
+        return OrderPaymentSpecifications.filter(status, method, startDateTime, endDateTime);
     }
 
     // 扩展功能3: 获取某订单的累计支付金额
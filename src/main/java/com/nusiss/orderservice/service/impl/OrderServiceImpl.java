@@ -3,21 +3,54 @@ package com.nusiss.orderservice.service.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nusiss.commonservice.entity.*;
+import com.nusiss.orderservice.config.CheckoutRejectedException;
+import com.nusiss.orderservice.config.CustomException;
 import com.nusiss.orderservice.dto.CreateOrderFromCartRequest;
 import com.nusiss.orderservice.dto.DirectOrderRequest;
 import com.nusiss.orderservice.dto.FacePaymentDirectOrderRequest;
+import com.nusiss.orderservice.dto.OrderDetailResponse;
+import com.nusiss.orderservice.dto.OrderSlice;
+import com.nusiss.orderservice.dto.OrderSummary;
+import com.nusiss.orderservice.dto.OutboxInventoryPayload;
+import com.nusiss.orderservice.dto.OutboxPaymentPayload;
 import com.nusiss.orderservice.entity.Order;
 import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dao.OrderSpecifications;
+import com.nusiss.orderservice.dao.StreamingFetch;
 import com.nusiss.orderservice.entity.OrderItem;
 import com.nusiss.orderservice.service.OrderService;
+import com.nusiss.orderservice.service.cache.InventoryNearCache;
+import com.nusiss.orderservice.service.checkout.CheckoutStageExecutor;
+import com.nusiss.orderservice.service.checkout.InventoryDeductionStage;
+import com.nusiss.orderservice.service.checkout.ProductSnapshotFetcher;
+import com.nusiss.orderservice.service.checkout.StockValidationEngine;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.paging.IdBatch;
+import com.nusiss.orderservice.service.paging.OrderSeekCursor;
+import com.nusiss.orderservice.service.purchase.PurchasedProductCache;
+import com.nusiss.orderservice.service.reservation.StockReservation;
+import com.nusiss.orderservice.service.reservation.StockReservationService;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.AvailableHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderPaymentRepository;
+import com.nusiss.orderservice.dao.OrderShipmentRepository;
 import com.nusiss.commonservice.config.ApiResponse;
-import com.nusiss.commonservice.feign.ProductFeignClient;
 import com.nusiss.commonservice.feign.InventoryFeignClient;
 import com.nusiss.commonservice.feign.PaymentFeignClient;
 import com.nusiss.commonservice.feign.ShoppingCartFeignClient;
@@ -27,6 +60,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /*
  OrderServiceImpl 实现类 - 提供订单模块的业务逻辑实现
@@ -34,10 +73,12 @@ import java.util.*;
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+
     private static final String SYSTEM_USER = "system"; // 🔧 提取常量避免硬编码重复
 
-    @Autowired
-    private ProductFeignClient productFeignClient;
+    // 支付调用异常、结果未知的订单的支付状态，需与 payment-service 核对
+    private static final String PAYMENT_UNKNOWN = "UNKNOWN";
 
     @Autowired
     private InventoryFeignClient inventoryFeignClient;
@@ -48,18 +89,69 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    @Autowired
+    private OrderPaymentRepository orderPaymentRepository;
+
+    @Autowired
+    private OrderShipmentRepository orderShipmentRepository;
+
     @Autowired
     private PaymentFeignClient paymentFeignClient;
 
     @Autowired
     private ShoppingCartFeignClient shoppingCartFeignClient;
 
+    @Autowired
+    private CheckoutStageExecutor checkoutStageExecutor;
+
+    @Autowired
+    private ProductSnapshotFetcher productSnapshotFetcher;
+
+    @Autowired
+    private StockValidationEngine stockValidationEngine;
+
+    @Autowired
+    private InventoryDeductionStage inventoryDeductionStage;
+
+    @Autowired
+    private InventoryNearCache inventoryNearCache;
+
+    @Autowired
+    private PurchasedProductCache purchasedProductCache;
+
+    @Autowired
+    @Qualifier("orderPipelineExecutor")
+    private Executor orderPipelineExecutor;
+
+    @Autowired
+    private OrderOutboxService orderOutboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private CoalescingReadClient coalescingReadClient;
+
+    // 列表查询单页数量上限
+    @Value("${order.query.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    // 批量查询单次 ID 数量上限
+    @Value("${order.query.max-batch-ids:200}")
+    private int maxBatchIds = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /*
      直接下单逻辑-普通支付
      */
     @Override
     public Order createDirectOrder(DirectOrderRequest request) {
-        return createDirectOrderInternal(request);
+        return createDirectOrderInternal(request, null);
     }
 
     /*
@@ -91,50 +183,137 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // Step 2: 调用共用下单逻辑
-        return createDirectOrderInternal(request);
+        return createDirectOrderInternal(request, null);
     }
 
-
+    /*
+     异步受理直接下单：订单先以 CREATED / UNPAID 状态落库，校验与计价交给后台线程池执行
+     支付与扣减库存通过 outbox 事件由 relay 投递
+     */
+    @Override
+    public Long acceptDirectOrder(DirectOrderRequest request) {
+        Order accepted = saveAcceptedOrder(request.getUserId(), request.getShippingAddress());
+        submitPipeline(accepted, () -> createDirectOrderInternal(request, accepted));
+        return accepted.getOrderId();
+    }
 
     /*
-     核心直接下单逻辑（供普通支付、人脸支付复用）
+     核心直接下单逻辑（供普通支付、人脸支付、异步受理复用）
+     @param acceptedOrder 异步受理时已落库的订单，同步下单时为 null
      */
-    private Order createDirectOrderInternal(DirectOrderRequest request) {
+    private Order createDirectOrderInternal(DirectOrderRequest request, Order acceptedOrder) {
         Long productId = request.getProductId();
         Integer quantity = request.getQuantity();
 
-        // ===== 1. 获取商品详情 (product-service) =====
-        ApiResponse<Product> productRes = productFeignClient.getProductById(productId);
-        if (!productRes.isSuccess() || productRes.getData() == null) {
-            throw new RuntimeException("商品不存在或无法获取商品信息");
+        // 进程内库存缓存已判定库存不足时直接拒绝，不发起任何远程调用
+        Integer cachedStock = inventoryNearCache.get(productId);
+        if (cachedStock != null && cachedStock < quantity) {
+            throw new CheckoutRejectedException("库存不足，无法下单");
         }
-        Product product = productRes.getData();
 
-        // ===== 2. 获取库存信息 (inventory-service) =====
-        ApiResponse<Integer> stockRes = inventoryFeignClient.getInventoryQuantity(productId);
-        if (!stockRes.isSuccess() || stockRes.getData() == null) {
-            throw new RuntimeException("无法获取库存信息");
+        // 先在 Redis 中原子预留库存，超卖请求在访问 MySQL、支付之前被拒绝
+        StockReservation reservation = beforePayment(
+                () -> stockReservationService.reserve(List.of(cartLine(productId, quantity))));
+        try {
+            return placeDirectOrder(request, acceptedOrder, cachedStock, reservation);
+        } catch (RuntimeException e) {
+            stockReservationService.release(reservation);
+            throw e;
         }
-        Integer availableStock = stockRes.getData();
+    }
+
+    private Order placeDirectOrder(DirectOrderRequest request, Order acceptedOrder, Integer cachedStock,
+                                   StockReservation reservation) {
+        Long productId = request.getProductId();
+        Integer quantity = request.getQuantity();
+
+        // ===== 1 & 2. 并发获取商品详情 (product-service) 与库存信息 (inventory-service) =====
+        // 两个调用互不依赖，放在同一阶段并发执行，任一失败或超时则取消另一个
+        CompletableFuture<Product> productFuture = checkoutStageExecutor.submit(() -> {
+            ApiResponse<Product> productRes = coalescingReadClient.getProductById(productId);
+            if (!productRes.isSuccess() || productRes.getData() == null) {
+                throw new RuntimeException("商品不存在或无法获取商品信息");
+            }
+            return productRes.getData();
+        });
+        CompletableFuture<Integer> stockFuture = checkoutStageExecutor.submit(() -> {
+            if (cachedStock != null) {
+                return cachedStock;
+            }
+            ApiResponse<Integer> stockRes = coalescingReadClient.getInventoryQuantity(productId);
+            if (!stockRes.isSuccess() || stockRes.getData() == null) {
+                throw new RuntimeException("无法获取库存信息");
+            }
+            inventoryNearCache.put(productId, stockRes.getData());
+            return stockRes.getData();
+        });
+        beforePayment(() -> {
+            checkoutStageExecutor.awaitAll(List.of(productFuture, stockFuture));
+            return null;
+        });
+
+        Product product = productFuture.join();
+        Integer availableStock = stockFuture.join();
         if (availableStock < quantity) {
-            throw new RuntimeException("库存不足，无法下单");
+            throw new CheckoutRejectedException("库存不足，无法下单");
         }
 
-        // ===== 3. 创建订单（状态为 UNPAID） =====
-        Order order = new Order();
-        order.setUserId(request.getUserId()); // 绑定用户ID
-        order.setOrderDate(LocalDateTime.now()); // 下单时间
-        order.setOrderStatus("CREATED");
-        order.setPaymentStatus("UNPAID");
         BigDecimal totalAmount = product.getPrice().multiply(BigDecimal.valueOf(quantity));
-        order.setTotalAmount(totalAmount);
-        order.setShippingAddress(request.getShippingAddress());
-        order.setCreateDatetime(LocalDateTime.now());
-        order.setCreateUser(SYSTEM_USER);
 
-        order = orderRepository.save(order); // 此时 orderId 已生成
+        // 异步受理：订单金额、订单项与支付事件在同一个本地事务中写入，后续由 outbox relay 完成
+        if (acceptedOrder != null) {
+            enqueuePayment(acceptedOrder, totalAmount,
+                    List.of(buildDirectOrderItem(acceptedOrder, product, quantity, totalAmount)),
+                    buildDirectPaymentRequest(acceptedOrder, request, product, totalAmount),
+                    List.of(cartLine(productId, quantity)), false, reservation);
+            return acceptedOrder;
+        }
+
+        // ===== 3. 创建订单（状态为 UNPAID） =====
+        Order order = beforePayment(
+                () -> createAndSaveOrder(request.getUserId(), request.getShippingAddress(), totalAmount));
 
         // ===== 4. 调用 payment-service 发起支付 =====
+        // 支付调用异常时结果未知（可能已扣款），不转换为 CheckoutRejectedException
+        PaymentRequest paymentRequest = buildDirectPaymentRequest(order, request, product, totalAmount);
+        ApiResponse<Payment> paymentRes = callPayment(order, paymentRequest);
+        if (!paymentRes.isSuccess() || paymentRes.getData() == null ||
+                !"PAID".equalsIgnoreCase(paymentRes.getData().getPaymentStatus())) {
+            throw new CheckoutRejectedException("支付失败，订单未创建");
+        }
+
+        // ===== 5. 更新订单为已支付状态 =====
+        order.setPaymentStatus("PAID");
+        order.setUpdateUser(SYSTEM_USER);
+        order.setUpdateDatetime(LocalDateTime.now());
+        orderRepository.save(order);
+
+        // ===== 6. 扣减库存 (inventory-service) =====
+        InventoryChangeRequest changeRequest = new InventoryChangeRequest();
+        changeRequest.setProductId(productId);
+        changeRequest.setQuantity(quantity);
+        changeRequest.setOperator("order-service");
+
+        ApiResponse<Boolean> deductRes;
+        try {
+            deductRes = inventoryFeignClient.deductInventory(changeRequest);
+        } finally {
+            inventoryNearCache.invalidate(List.of(productId));
+        }
+        if (!deductRes.isSuccess() || Boolean.FALSE.equals(deductRes.getData())) {
+            throw new RuntimeException("扣减库存失败");
+        }
+        stockReservationService.confirm(reservation);
+
+        // ===== 7. 创建订单项 =====
+        orderItemRepository.save(buildDirectOrderItem(order, product, quantity, totalAmount));
+        purchasedProductCache.recordPurchase(order.getUserId(), List.of(productId));
+
+        return order;
+    }
+
+    private PaymentRequest buildDirectPaymentRequest(Order order, DirectOrderRequest request, Product product,
+                                                     BigDecimal totalAmount) {
         PaymentRequest paymentRequest = new PaymentRequest();
         paymentRequest.setOrderId(order.getOrderId());
         paymentRequest.setUserId(request.getUserId());
@@ -158,31 +337,10 @@ public class OrderServiceImpl implements OrderService {
         // 设置卖家信息
         paymentRequest.setProductId(product.getId());
         paymentRequest.setSellerId(product.getSellerId());
+        return paymentRequest;
+    }
 
-        ApiResponse<Payment> paymentRes = paymentFeignClient.processPayment(paymentRequest);
-        if (!paymentRes.isSuccess() || paymentRes.getData() == null ||
-                !"PAID".equalsIgnoreCase(paymentRes.getData().getPaymentStatus())) {
-            throw new RuntimeException("支付失败，订单未创建");
-        }
-
-        // ===== 5. 更新订单为已支付状态 =====
-        order.setPaymentStatus("PAID");
-        order.setUpdateUser(SYSTEM_USER);
-        order.setUpdateDatetime(LocalDateTime.now());
-        orderRepository.save(order);
-
-        // ===== 6. 扣减库存 (inventory-service) =====
-        InventoryChangeRequest changeRequest = new InventoryChangeRequest();
-        changeRequest.setProductId(productId);
-        changeRequest.setQuantity(quantity);
-        changeRequest.setOperator("order-service");
-
-        ApiResponse<Boolean> deductRes = inventoryFeignClient.deductInventory(changeRequest);
-        if (!deductRes.isSuccess() || Boolean.FALSE.equals(deductRes.getData())) {
-            throw new RuntimeException("扣减库存失败");
-        }
-
-        // ===== 7. 创建订单项 =====
+    private OrderItem buildDirectOrderItem(Order order, Product product, Integer quantity, BigDecimal totalAmount) {
         OrderItem item = new OrderItem();
         item.setOrderId(order.getOrderId());
         item.setProductId(product.getId());
@@ -192,28 +350,81 @@ public class OrderServiceImpl implements OrderService {
         item.setSubtotalAmount(totalAmount);
         item.setCreateDatetime(LocalDateTime.now());
         item.setCreateUser(SYSTEM_USER);
+        return item;
+    }
 
-        orderItemRepository.save(item);
-
-        return order;
+    private CartItem cartLine(Long productId, Integer quantity) {
+        CartItem line = new CartItem();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        return line;
     }
 
     @Override
     public Order createOrderFromCart(CreateOrderFromCartRequest request) {
 //        overrideUserIdIfFaceRecognitionEnabled(request);
+        return createOrderFromCartInternal(request, null);
+    }
+
+    /*
+     异步受理购物车下单：订单先以 CREATED / UNPAID 状态落库，校验与计价交给后台线程池执行
+     支付、扣减库存与清空购物车通过 outbox 事件由 relay 投递
+     */
+    @Override
+    public Long acceptOrderFromCart(CreateOrderFromCartRequest request) {
+        Order accepted = saveAcceptedOrder(request.getUserId(), request.getShippingAddress());
+        submitPipeline(accepted, () -> createOrderFromCartInternal(request, accepted));
+        return accepted.getOrderId();
+    }
+
+    /*
+     核心购物车下单逻辑（供同步下单、异步受理复用）
+     @param acceptedOrder 异步受理时已落库的订单，同步下单时为 null
+     */
+    private Order createOrderFromCartInternal(CreateOrderFromCartRequest request, Order acceptedOrder) {
+        List<CartItem> cartItems = beforePayment(() -> getValidatedCartItems(request.getUserId()));
+
+        // 先在 Redis 中原子预留所有商品的库存，超卖请求在访问 MySQL、支付之前被拒绝
+        StockReservation reservation = beforePayment(() -> stockReservationService.reserve(cartItems));
+        try {
+            return placeCartOrder(request, acceptedOrder, cartItems, reservation);
+        } catch (RuntimeException e) {
+            stockReservationService.release(reservation);
+            throw e;
+        }
+    }
+
+    private Order placeCartOrder(CreateOrderFromCartRequest request, Order acceptedOrder, List<CartItem> cartItems,
+                                 StockReservation reservation) {
         Long userId = request.getUserId();
         String shippingAddress = request.getShippingAddress();
         String paymentMethod = request.getPaymentMethod();
 
-        List<CartItem> cartItems = getValidatedCartItems(userId);
-        validateStock(cartItems);
-        Map<Long, Product> productMap = new HashMap<>();
-        BigDecimal totalAmount = calculateTotalAmount(cartItems, productMap);
+        Map<Long, Product> productMap = beforePayment(() -> {
+            stockValidationEngine.validate(cartItems);
+            return productSnapshotFetcher.fetch(cartItems.stream().map(CartItem::getProductId).toList());
+        });
+        BigDecimal totalAmount = beforePayment(() -> calculateTotalAmount(cartItems, productMap));
+
+        // 异步受理：订单金额、订单项与支付事件在同一个本地事务中写入，后续由 outbox relay 完成
+        if (acceptedOrder != null) {
+            enqueuePayment(acceptedOrder, totalAmount, buildOrderItems(acceptedOrder, cartItems, productMap),
+                    buildCartPaymentRequest(acceptedOrder, userId, totalAmount, paymentMethod, productMap),
+                    cartItems, true, reservation);
+            return acceptedOrder;
+        }
 
-        Order order = createAndSaveOrder(userId, shippingAddress, totalAmount);
-        processPayment(order, userId, totalAmount, paymentMethod, productMap);
+        Order order = beforePayment(() -> createAndSaveOrder(userId, shippingAddress, totalAmount));
+        try {
+            processPayment(order, userId, totalAmount, paymentMethod, productMap);
+        } catch (CheckoutRejectedException e) {
+            // 支付被明确拒绝（未扣款）时删除未完成的订单；结果未知时保留订单（见 callPayment）
+            orderRepository.deleteById(order.getOrderId());
+            throw e;
+        }
         createOrderItems(order, cartItems, productMap);
-        deductInventory(cartItems);
+        deductInventory(order, cartItems);
+        stockReservationService.confirm(reservation);
 
         shoppingCartFeignClient.clearCart(userId);
         return order;
@@ -261,27 +472,24 @@ public class OrderServiceImpl implements OrderService {
         return cartRes.getData();
     }
 
-    private void validateStock(List<CartItem> cartItems) {
-        for (CartItem item : cartItems) {
-            ApiResponse<Integer> stockRes = inventoryFeignClient.getInventoryQuantity(item.getProductId());
-            if (!stockRes.isSuccess() || stockRes.getData() == null) {
-                throw new RuntimeException("无法获取商品库存，商品ID: " + item.getProductId());
-            }
-            if (stockRes.getData() < item.getQuantity()) {
-                throw new RuntimeException("商品库存不足，商品ID: " + item.getProductId());
-            }
+    /*
+     执行发起支付之前的步骤：失败时未产生扣款，异常转换为 CheckoutRejectedException（保留原始信息），
+     幂等键据此释放，客户端可使用相同的幂等键重试
+     */
+    private static <T> T beforePayment(Supplier<T> step) {
+        try {
+            return step.get();
+        } catch (CheckoutRejectedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CheckoutRejectedException(e.getMessage(), e);
         }
     }
 
     private BigDecimal calculateTotalAmount(List<CartItem> cartItems, Map<Long, Product> productMap) {
         BigDecimal totalAmount = BigDecimal.ZERO;
         for (CartItem item : cartItems) {
-            ApiResponse<Product> productRes = productFeignClient.getProductById(item.getProductId());
-            if (!productRes.isSuccess() || productRes.getData() == null) {
-                throw new RuntimeException("获取商品信息失败，商品ID: " + item.getProductId());
-            }
-            Product product = productRes.getData();
-            productMap.put(product.getId(), product);
+            Product product = productMap.get(item.getProductId());
             totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
         }
         return totalAmount;
@@ -300,17 +508,86 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository.save(order);
     }
 
+    // 异步受理：先保存尚未计价的订单，生成 orderId 返回给客户端
+    private Order saveAcceptedOrder(Long userId, String shippingAddress) {
+        return createAndSaveOrder(userId, shippingAddress, null);
+    }
+
+    /*
+     异步流程：在同一个本地事务中为已受理的订单补充金额、写入订单项和支付事件
+     支付成功后由支付事件处理器继续写入库存扣减事件，库存预留由事件处理器确认或释放
+     */
+    private void enqueuePayment(Order acceptedOrder, BigDecimal totalAmount, List<OrderItem> orderItems,
+                                PaymentRequest paymentRequest, List<CartItem> deductLines, boolean clearCart,
+                                StockReservation reservation) {
+        transactionTemplate.execute(status -> {
+            acceptedOrder.setTotalAmount(totalAmount);
+            acceptedOrder.setUpdateUser(SYSTEM_USER);
+            acceptedOrder.setUpdateDatetime(LocalDateTime.now());
+            orderRepository.save(acceptedOrder);
+            orderItemRepository.saveAll(orderItems);
+            purchasedProductCache.recordPurchase(acceptedOrder.getUserId(),
+                    orderItems.stream().map(OrderItem::getProductId).toList());
+            orderOutboxService.enqueuePayment(acceptedOrder.getOrderId(), new OutboxPaymentPayload(paymentRequest,
+                    new OutboxInventoryPayload(acceptedOrder.getUserId(), clearCart, deductLines,
+                            reservation.getReservationId(), false)));
+            return null;
+        });
+    }
+
+    /*
+     将已受理订单的校验与计价流程提交到后台线程池
+     流程失败时订单标记为 FAILED，线程池已满时直接拒绝受理
+     */
+    private void submitPipeline(Order accepted, Runnable pipeline) {
+        try {
+            orderPipelineExecutor.execute(() -> {
+                try {
+                    pipeline.run();
+                } catch (RuntimeException e) {
+                    log.warn("异步下单失败，订单ID: {}，原因: {}", accepted.getOrderId(), e.getMessage());
+                    markFailed(accepted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            markFailed(accepted);
+            throw new RuntimeException("系统繁忙，请稍后重试", e);
+        }
+    }
+
+    private void markFailed(Order order) {
+        order.setOrderStatus("FAILED");
+        order.setUpdateUser(SYSTEM_USER);
+        order.setUpdateDatetime(LocalDateTime.now());
+        orderRepository.save(order);
+    }
+
     private void processPayment(Order order, Long userId, BigDecimal totalAmount, String method, Map<Long, Product> productMap) {
+        PaymentRequest paymentRequest = buildCartPaymentRequest(order, userId, totalAmount, method, productMap);
+        ApiResponse<Payment> paymentRes = callPayment(order, paymentRequest);
+        if (!paymentRes.isSuccess() || paymentRes.getData() == null ||
+                !"PAID".equalsIgnoreCase(paymentRes.getData().getPaymentStatus())) {
+            throw new CheckoutRejectedException("支付失败，订单未完成");
+        }
+
+        order.setPaymentStatus("PAID");
+        order.setUpdateUser(SYSTEM_USER);
+        order.setUpdateDatetime(LocalDateTime.now());
+        orderRepository.save(order);
+    }
+
+    private PaymentRequest buildCartPaymentRequest(Order order, Long userId, BigDecimal totalAmount, String method,
+                                                   Map<Long, Product> productMap) {
         PaymentRequest paymentRequest = new PaymentRequest();
         paymentRequest.setOrderId(order.getOrderId());
         paymentRequest.setUserId(userId);
         paymentRequest.setAmount(totalAmount);
         paymentRequest.setMethod(method);
 
-        // 从 productMap 获取任意一个商品作为支付信息（用于记录 productId 和 sellerId）
+        // 取购物车中第一个商品作为支付信息（用于记录 productId 和 sellerId），productMap 按购物车顺序排列
         Product product = productMap.values().stream().findFirst().orElse(null);
         if (product == null) {
-            throw new RuntimeException("订单中无有效商品，无法发起支付");
+            throw new CheckoutRejectedException("订单中无有效商品，无法发起支付");
         }
         paymentRequest.setProductId(product.getId());
         paymentRequest.setSellerId(product.getSellerId());
@@ -328,22 +605,39 @@ public class OrderServiceImpl implements OrderService {
                 currency = "CNY"; // 默认币种
         }
         paymentRequest.setCurrency(currency);
+        return paymentRequest;
+    }
 
-        ApiResponse<Payment> paymentRes = paymentFeignClient.processPayment(paymentRequest);
-        if (!paymentRes.isSuccess() || paymentRes.getData() == null ||
-                !"PAID".equalsIgnoreCase(paymentRes.getData().getPaymentStatus())) {
-            // 可选：回滚订单或打日志
-            orderRepository.deleteById(order.getOrderId());
-            throw new RuntimeException("支付失败，订单未完成");
+    /*
+     调用 payment-service 发起支付
+     调用异常（如读超时）时扣款可能已经成功：订单保留并将支付状态标记为 UNKNOWN 待核对，原异常继续抛出
+     */
+    private ApiResponse<Payment> callPayment(Order order, PaymentRequest paymentRequest) {
+        try {
+            return paymentFeignClient.processPayment(paymentRequest);
+        } catch (RuntimeException e) {
+            try {
+                order.setPaymentStatus(PAYMENT_UNKNOWN);
+                order.setUpdateUser(SYSTEM_USER);
+                order.setUpdateDatetime(LocalDateTime.now());
+                orderRepository.save(order);
+            } catch (RuntimeException saveFailure) {
+                e.addSuppressed(saveFailure);
+            }
+            throw e;
         }
-
-        order.setPaymentStatus("PAID");
-        order.setUpdateUser(SYSTEM_USER);
-        order.setUpdateDatetime(LocalDateTime.now());
-        orderRepository.save(order);
     }
 
     private void createOrderItems(Order order, List<CartItem> cartItems, Map<Long, Product> productMap) {
+        // 主键池化分配后可通过 JDBC 批量插入一次写入
+        List<OrderItem> orderItems = buildOrderItems(order, cartItems, productMap);
+        orderItemRepository.saveAll(orderItems);
+        purchasedProductCache.recordPurchase(order.getUserId(),
+                orderItems.stream().map(OrderItem::getProductId).toList());
+    }
+
+    private List<OrderItem> buildOrderItems(Order order, List<CartItem> cartItems, Map<Long, Product> productMap) {
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
         for (CartItem item : cartItems) {
             Product product = productMap.get(item.getProductId());
 
@@ -356,22 +650,21 @@ public class OrderServiceImpl implements OrderService {
             orderItem.setSubtotalAmount(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
             orderItem.setCreateDatetime(LocalDateTime.now());
             orderItem.setCreateUser(SYSTEM_USER);
-
-            orderItemRepository.save(orderItem);
+            orderItems.add(orderItem);
         }
+        return orderItems;
     }
 
-    private void deductInventory(List<CartItem> cartItems) {
-        for (CartItem item : cartItems) {
-            InventoryChangeRequest change = new InventoryChangeRequest();
-            change.setProductId(item.getProductId());
-            change.setQuantity(item.getQuantity());
-            change.setOperator("order-service");
-
-            ApiResponse<Boolean> deductRes = inventoryFeignClient.deductInventory(change);
-            if (!deductRes.isSuccess() || Boolean.FALSE.equals(deductRes.getData())) {
-                throw new RuntimeException("库存扣减失败，商品ID: " + item.getProductId());
-            }
+    private void deductInventory(Order order, List<CartItem> cartItems) {
+        try {
+            inventoryDeductionStage.deductAll(order.getOrderId(), cartItems);
+        } catch (RuntimeException e) {
+            // 已扣减的库存已由扣减阶段回补，这里将已支付的订单标记为取消，等待后续退款处理
+            order.setOrderStatus("CANCELLED");
+            order.setUpdateUser(SYSTEM_USER);
+            order.setUpdateDatetime(LocalDateTime.now());
+            orderRepository.save(order);
+            throw e;
         }
     }
 
@@ -399,10 +692,55 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Order> getOrdersByIds(List<Long> orderIds) {
+        List<Long> ids = IdBatch.of(orderIds, maxBatchIds);
+        Map<Long, Order> found = new HashMap<>();
+        orderRepository.findAllById(ids).forEach(order -> found.put(order.getOrderId(), order));
+        Map<Long, Order> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Order order = found.get(id);
+            if (order != null) {
+                result.put(id, order);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OrderDetailResponse> getOrderDetail(Long orderId) {
+        // 订单不存在时不再查询子表
+        return orderRepository.findById(orderId).map(order -> OrderDetailResponse.of(order,
+                orderItemRepository.findByOrderId(orderId),
+                orderPaymentRepository.findByOrderId(orderId),
+                orderShipmentRepository.findByOrderId(orderId).orElse(null)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<Order> consumer) {
+        // 只读结果集逐行流式读取（见 StreamingFetch），每条处理后立即从持久化上下文中移除，内存占用与表大小无关
+        // 全表导出不读写二级缓存，避免把所有订单写入 Redis
+        try (Stream<Order> orders = entityManager
+                .createQuery("select o from Order o order by o.orderId", Order.class)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, StreamingFetch.FETCH_SIZE)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .setHint(AvailableHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream()) {
+            orders.forEach(order -> {
+                consumer.accept(order);
+                entityManager.detach(order);
+            });
+        }
+    }
+
     @Override
     public boolean updateOrder(Order order) {
         if (orderRepository.existsById(order.getOrderId())) {
@@ -422,53 +760,83 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByUserId(Long userId) {
         return orderRepository.findByUserId(userId);
     }
 
     @Override
-    public List<Order> filterOrders(String status, Date startDate, Date endDate, Double minAmount, Double maxAmount) {
-        List<Order> all = orderRepository.findAll();
-        List<Order> filtered = new ArrayList<>();
-
+    @Transactional(readOnly = true)
+    public List<Order> filterOrders(String status, Date startDate, Date endDate, Double minAmount, Double maxAmount,
+                                    int page, int size) {
         LocalDateTime startDateTime = (startDate != null) ? startDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
         LocalDateTime endDateTime = (endDate != null) ? endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
-
-        for (Order order : all) {
-            boolean match = true;
-
-            if (status != null && !status.equals(order.getOrderStatus())) {
-                match = false;
-            }
-            if (startDate != null && order.getOrderDate().isBefore(startDateTime)) {
-                match = false;
-            }
-            if (endDate != null && order.getOrderDate().isAfter(endDateTime)) {
-                match = false;
-            }
-            if (minAmount != null && order.getTotalAmount().compareTo(BigDecimal.valueOf(minAmount)) < 0) {
-                match = false;
-            }
-            if (maxAmount != null && order.getTotalAmount().compareTo(BigDecimal.valueOf(maxAmount)) > 0) {
-                match = false;
-            }
-
-            if (match) {
-                filtered.add(order);
-            }
-        }
-
-        return filtered;
+        BigDecimal min = (minAmount != null) ? BigDecimal.valueOf(minAmount) : null;
+        BigDecimal max = (maxAmount != null) ? BigDecimal.valueOf(maxAmount) : null;
+
+        // 过滤与分页在数据库中完成，只加载当前页的数据，不执行 COUNT 查询
+        Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("orderId")));
+        return orderRepository.findSlice(
+                OrderSpecifications.filter(status, startDateTime, endDateTime, min, max), pageable).getContent();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Order> getOrdersWithPaginationAndSorting(int page, int size, String sortBy, String sortOrder) {
         Sort sort = sortOrder.equalsIgnoreCase("desc")
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
 
+        // 只返回当前页，不执行 COUNT 查询
         Pageable pageable = PageRequest.of(page - 1, size, sort);
-        Page<Order> resultPage = orderRepository.findAll(pageable);
-        return resultPage.getContent();
+        return orderRepository.findSlice(null, pageable).getContent();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderSummary> getOrderSummariesByUserId(Long userId) {
+        return orderRepository.findSummaryByUserIdOrderByOrderDateDesc(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderSummary> getOrderSummaries(int page, int size, String sortBy, String sortOrder) {
+        OrderSeekCursor.requireSortable(sortBy);
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortOrder) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(direction, sortBy).and(Sort.by(direction, "orderId")));
+        return orderRepository.findSummaryBy(pageable).getContent();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSlice getOrdersByCursor(String sortBy, String sortOrder, int size, String cursor) {
+        OrderSeekCursor.requireSortable(sortBy);
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        OrderSeekCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = OrderSeekCursor.decode(cursor);
+            if (!after.getSortBy().equals(sortBy) || after.isDescending() != descending) {
+                throw new CustomException("分页游标与排序参数不匹配");
+            }
+        }
+
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = "orderId".equals(sortBy)
+                ? Sort.by(direction, "orderId")
+                : Sort.by(direction, sortBy, "orderId");
+        int limit = Math.min(Math.max(size, 1), maxPageSize);
+        Specification<Order> spec = Specification.where(after == null ? null
+                : OrderSpecifications.seekAfter(sortBy, descending, after.getValue(), after.getLastOrderId()));
+
+        // 多取一行用于判断是否还有下一页，代替 COUNT 查询
+        List<Order> rows = orderRepository.findBy(spec, q -> q.sortBy(sort).limit(limit + 1).all());
+        boolean hasNext = rows.size() > limit;
+        List<Order> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = hasNext
+                ? OrderSeekCursor.after(sortBy, descending, content.get(content.size() - 1)).encode()
+                : null;
+        return new OrderSlice(content, nextCursor, hasNext);
     }
 }
@@ -1,14 +1,24 @@
 package com.nusiss.orderservice.service.impl;
 
 import com.nusiss.orderservice.dao.OrderShipmentRepository;
+import com.nusiss.orderservice.dto.OrderShipmentSummary;
 import com.nusiss.orderservice.entity.OrderShipment;
 import com.nusiss.orderservice.service.OrderShipmentService;
+import com.nusiss.orderservice.service.paging.IdBatch;
 import com.nusiss.orderservice.service.strategy.ShipmentStrategyContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /*
@@ -23,6 +33,14 @@ public class OrderShipmentServiceImpl implements OrderShipmentService {
     @Autowired
     private ShipmentStrategyContext strategyContext;
 
+    // 列表查询单页数量上限
+    @Value("${order.query.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    // 批量查询单次 ID 数量上限
+    @Value("${order.query.max-batch-ids:200}")
+    private int maxBatchIds = 200;
+
     /*
      创建订单发货记录
      @param shipment 订单发货对象
@@ -77,12 +95,48 @@ public class OrderShipmentServiceImpl implements OrderShipmentService {
         return shipmentRepository.findByOrderId(orderId);  // 返回的是 Optional
     }
 
+    /*
+     批量查询多个订单的发货记录
+     @param orderIds 订单ID列表
+     @return orderId -> 订单发货对象
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, OrderShipment> getShipmentsByOrderIds(List<Long> orderIds) {
+        List<Long> ids = IdBatch.of(orderIds, maxBatchIds);
+        Map<Long, OrderShipment> found = new HashMap<>();
+        shipmentRepository.findByOrderIdIn(ids).forEach(shipment -> found.put(shipment.getOrderId(), shipment));
+        Map<Long, OrderShipment> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            OrderShipment shipment = found.get(id);
+            if (shipment != null) {
+                result.put(id, shipment);
+            }
+        }
+        return result;
+    }
+
     /*
      获取所有订单发货记录
      @return 订单发货列表
      */
     @Override
+    @Transactional(readOnly = true)
     public List<OrderShipment> getAllShipments() {
         return shipmentRepository.findAll();
     }
+
+    /*
+     分页获取发货记录摘要（只选取摘要列）
+     @param page 当前页码（从 1 开始）
+     @param size 每页数量（不超过配置的上限）
+     @return 当前页发货记录摘要
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderShipmentSummary> getShipmentSummaries(int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, Math.min(Math.max(size, 1), maxPageSize),
+                Sort.by(Sort.Direction.DESC, "shipmentId"));
+        return shipmentRepository.findSummaryBy(pageable).getContent();
+    }
 }
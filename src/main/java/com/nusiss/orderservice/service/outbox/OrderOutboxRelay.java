@@ -0,0 +1,217 @@
+package com.nusiss.orderservice.service.outbox;
+
+import com.nusiss.orderservice.dao.OrderOutboxRepository;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ OrderOutboxRelay - 定时批量投递 outbox 事件
+ 1. 在一个短事务中以 SKIP LOCKED 领取一批到期事件，标记为 PROCESSING，设置租约与本次领取的持有者标识
+ 2. 事件交给独立的 outboxRelayExecutor 线程池，由对应的处理器在数据库事务之外执行，成功后在短事务中标记为 SENT
+ 3. 失败时按指数退避重新排期，超过最大次数标记为 FAILED 并执行处理器的兜底逻辑
+ 定时任务只负责领取与提交，不等待投递完成；执行中的事件数量不超过 batch-size，线程池忙时不再领取新事件
+ 实例在投递过程中宕机时，租约到期后事件会被重新领取（至少投递一次）；
+ 更新投递结果前会加锁确认租约仍由本次领取持有，被重新领取的事件不会被原持有者覆盖
+ */
+@Component
+public class OrderOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    private final OrderOutboxRepository outboxRepository;
+
+    private final Map<String, OutboxEventHandler> handlers;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor executor;
+
+    // 已领取、尚未完成投递的事件数
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Value("${order.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${order.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${order.outbox.backoff-ms:2000}")
+    private long backoffMs = 2000;
+
+    @Value("${order.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs = 300000;
+
+    @Value("${order.outbox.lease-ms:60000}")
+    private long leaseMs = 60000;
+
+    @Autowired
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            Map<String, OutboxEventHandler> handlers,
+                            TransactionTemplate transactionTemplate,
+                            @Qualifier("outboxRelayExecutor") Executor executor) {
+        this.outboxRepository = outboxRepository;
+        this.handlers = handlers;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        int capacity = batchSize - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+        String owner = UUID.randomUUID().toString();
+        List<Long> claimed = transactionTemplate.execute(status -> claim(owner, capacity));
+        if (claimed == null) {
+            return;
+        }
+        for (Long eventId : claimed) {
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        dispatch(eventId, owner);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 事件保持 PROCESSING，租约到期后重新领取
+                inFlight.decrementAndGet();
+                log.warn("outbox 投递线程池已满，事件ID: {} 将在租约到期后重新投递", eventId);
+            }
+        }
+    }
+
+    // 领取一批到期事件并设置租约，事务提交后释放行锁
+    private List<Long> claim(String owner, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderOutboxEvent> events = outboxRepository.findClaimable(now, PageRequest.of(0, limit));
+        for (OrderOutboxEvent event : events) {
+            event.setStatus(OrderOutboxService.STATUS_PROCESSING);
+            event.setLeaseOwner(owner);
+            event.setNextAttemptAt(now.plusNanos(leaseMs * 1_000_000));
+            event.setUpdateDatetime(now);
+        }
+        outboxRepository.saveAll(events);
+        return events.stream().map(OrderOutboxEvent::getEventId).toList();
+    }
+
+    // 处理器在数据库事务之外执行，远程调用成功后不会因本地提交失败而回滚已完成的操作
+    private void dispatch(Long eventId, String owner) {
+        try {
+            OrderOutboxEvent event = outboxRepository.findById(eventId).orElse(null);
+            if (event == null || !holdsLease(event, owner)) {
+                return;
+            }
+            handlerFor(event).handle(event);
+            transactionTemplate.execute(status -> {
+                markSent(eventId, owner);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            try {
+                transactionTemplate.execute(status -> {
+                    recordFailure(eventId, owner, e);
+                    return null;
+                });
+            } catch (RuntimeException recordError) {
+                // 记录失败时事件保持 PROCESSING，租约到期后重新投递
+                log.error("outbox 事件失败状态记录失败，事件ID: {}", eventId, recordError);
+            }
+        }
+    }
+
+    private void markSent(Long eventId, String owner) {
+        OrderOutboxEvent event = lockIfLeaseHeld(eventId, owner);
+        if (event == null) {
+            return;
+        }
+        event.setStatus(OrderOutboxService.STATUS_SENT);
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(null);
+        event.setLeaseOwner(null);
+        event.setUpdateDatetime(LocalDateTime.now());
+        outboxRepository.save(event);
+    }
+
+    private void recordFailure(Long eventId, String owner, RuntimeException cause) {
+        OrderOutboxEvent event = lockIfLeaseHeld(eventId, owner);
+        if (event == null) {
+            return;
+        }
+        int attempts = event.getAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        event.setAttempts(attempts);
+        event.setLastError(abbreviate(cause.getMessage()));
+        event.setUpdateDatetime(now);
+        if (attempts >= maxAttempts) {
+            log.error("outbox 事件重试次数耗尽，事件ID: {}，类型: {}，订单ID: {}",
+                    eventId, event.getEventType(), event.getOrderId(), cause);
+            event.setStatus(OrderOutboxService.STATUS_FAILED);
+            event.setLeaseOwner(null);
+            OutboxEventHandler handler = handlers.get(event.getEventType());
+            if (handler != null) {
+                handler.onExhausted(event);
+            }
+        } else {
+            log.warn("outbox 事件投递失败，事件ID: {}，第 {} 次，原因: {}", eventId, attempts, cause.getMessage());
+            event.setStatus(OrderOutboxService.STATUS_PENDING);
+            event.setLeaseOwner(null);
+            event.setNextAttemptAt(now.plusNanos(backoffFor(attempts) * 1_000_000));
+        }
+        outboxRepository.save(event);
+    }
+
+    // 加锁读取事件，租约已过期并被其他领取者持有时返回 null
+    private OrderOutboxEvent lockIfLeaseHeld(Long eventId, String owner) {
+        OrderOutboxEvent event = outboxRepository.findLockedById(eventId).orElse(null);
+        if (event == null || !holdsLease(event, owner)) {
+            log.warn("outbox 事件租约已被重新领取，放弃更新投递结果，事件ID: {}", eventId);
+            return null;
+        }
+        return event;
+    }
+
+    private static boolean holdsLease(OrderOutboxEvent event, String owner) {
+        return OrderOutboxService.STATUS_PROCESSING.equals(event.getStatus()) && owner.equals(event.getLeaseOwner());
+    }
+
+    // 指数退避：backoff * 2^(attempts-1)，不超过上限
+    long backoffFor(int attempts) {
+        long delay = backoffMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffMs);
+    }
+
+    private OutboxEventHandler handlerFor(OrderOutboxEvent event) {
+        OutboxEventHandler handler = handlers.get(event.getEventType());
+        if (handler == null) {
+            throw new IllegalArgumentException("Unsupported outbox event type: " + event.getEventType());
+        }
+        return handler;
+    }
+
+    private static String abbreviate(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
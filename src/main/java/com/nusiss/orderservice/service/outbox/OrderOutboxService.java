@@ -0,0 +1,102 @@
+package com.nusiss.orderservice.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nusiss.commonservice.entity.InventoryChangeRequest;
+import com.nusiss.orderservice.dao.OrderOutboxRepository;
+import com.nusiss.orderservice.dto.OutboxInventoryPayload;
+import com.nusiss.orderservice.dto.OutboxPaymentPayload;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/*
+ OrderOutboxService - 写入 outbox 事件
+ 调用方需要在与订单变更相同的本地事务中调用，保证订单状态与待投递事件同时提交或同时回滚
+ */
+@Service
+public class OrderOutboxService {
+
+    public static final String PAYMENT_PROCESS = "PAYMENT_PROCESS";
+    public static final String INVENTORY_DEDUCT = "INVENTORY_DEDUCT";
+    public static final String INVENTORY_RESTORE = "INVENTORY_RESTORE";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final OrderOutboxRepository outboxRepository;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OrderOutboxService(OrderOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // 支付事件：支付成功后由处理器继续写入库存扣减事件
+    public OrderOutboxEvent enqueuePayment(Long orderId, OutboxPaymentPayload payload) {
+        return enqueue(orderId, PAYMENT_PROCESS, payload);
+    }
+
+    // 库存扣减事件
+    public OrderOutboxEvent enqueueInventoryDeduct(Long orderId, OutboxInventoryPayload payload) {
+        return enqueue(orderId, INVENTORY_DEDUCT, payload);
+    }
+
+    // 库存回补事件（补偿失败后交给 relay 重试），独立事务提交，外层事务回滚时不丢失
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public OrderOutboxEvent enqueueInventoryRestore(Long orderId, InventoryChangeRequest request) {
+        return enqueue(orderId, INVENTORY_RESTORE, request);
+    }
+
+    /*
+     更新事件内容，用于记录处理进度（如库存已扣减），重复投递时处理器据此跳过已完成的远程调用
+     独立事务提交，不受调用方事务影响
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void updatePayload(OrderOutboxEvent event, Object payload) {
+        String json = serialize(event.getEventType(), payload);
+        outboxRepository.updatePayload(event.getEventId(), json);
+        event.setPayload(json);
+    }
+
+    /*
+     解析事件内容
+     @throws IllegalStateException 事件内容无法解析
+     */
+    public <T> T readPayload(OrderOutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox 事件内容无法解析，事件ID: " + event.getEventId(), e);
+        }
+    }
+
+    private OrderOutboxEvent enqueue(Long orderId, String eventType, Object payload) {
+        OrderOutboxEvent event = new OrderOutboxEvent();
+        event.setOrderId(orderId);
+        event.setEventType(eventType);
+        event.setPayload(serialize(eventType, payload));
+        LocalDateTime now = LocalDateTime.now();
+        event.setStatus(STATUS_PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(now);
+        event.setCreateDatetime(now);
+        return outboxRepository.save(event);
+    }
+
+    private String serialize(String eventType, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox 事件内容序列化失败，事件类型: " + eventType, e);
+        }
+    }
+}
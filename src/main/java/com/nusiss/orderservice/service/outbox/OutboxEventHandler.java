@@ -0,0 +1,18 @@
+package com.nusiss.orderservice.service.outbox;
+
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+
+/*
+ outbox 事件处理器，Bean 名称为对应的事件类型
+ handle 不在数据库事务中执行（远程调用不占用数据库连接，也不会因本地提交失败而回滚已完成的远程操作）：
+ 需要写库的处理器自行在本地事务中提交结果；正常返回表示投递完成，抛出异常则稍后重试
+ 处理器需要保证重复投递是安全的（至少投递一次）
+ */
+public interface OutboxEventHandler {
+
+    void handle(OrderOutboxEvent event);
+
+    // 重试次数耗尽后的处理（例如将订单标记为失败），默认不处理
+    default void onExhausted(OrderOutboxEvent event) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.nusiss.orderservice.service.outbox.impl;
+
+import com.nusiss.commonservice.feign.ShoppingCartFeignClient;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dto.OutboxInventoryPayload;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import com.nusiss.orderservice.service.checkout.InventoryDeductionStage;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.outbox.OutboxEventHandler;
+import com.nusiss.orderservice.service.reservation.StockReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/*
+ 库存扣减事件处理：扣减订单中所有商品的库存并确认库存预留，购物车下单在扣减成功后清空购物车
+ 扣减失败时已扣减的部分已由扣减阶段回补，抛出异常由 relay 稍后整体重试
+ 扣减成功后先将"已扣减"写回事件内容，再确认预留：后续步骤失败、标记 SENT 失败或租约过期导致重复投递时跳过扣减，不会重复扣减库存
+ 重试次数耗尽后将已支付的订单标记为 CANCELLED 并释放库存预留，等待后续退款处理；库存已扣减的事件不取消订单
+ */
+@Component(OrderOutboxService.INVENTORY_DEDUCT)
+public class InventoryDeductHandler implements OutboxEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryDeductHandler.class);
+
+    @Autowired
+    private InventoryDeductionStage inventoryDeductionStage;
+
+    @Autowired
+    private ShoppingCartFeignClient shoppingCartFeignClient;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxService outboxService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Override
+    public void handle(OrderOutboxEvent event) {
+        OutboxInventoryPayload payload = outboxService.readPayload(event, OutboxInventoryPayload.class);
+        if (payload.isDeducted()) {
+            log.info("库存已扣减，跳过扣减，订单ID: {}", event.getOrderId());
+        } else {
+            inventoryDeductionStage.deductAll(event.getOrderId(), payload.getItems());
+            payload.setDeducted(true);
+            try {
+                outboxService.updatePayload(event, payload);
+            } catch (RuntimeException e) {
+                // 库存已扣减，不能抛出异常触发整体重试；记录失败只影响重复投递时的去重
+                log.error("库存扣减进度记录失败，订单ID: {}", event.getOrderId(), e);
+            }
+        }
+        stockReservationService.confirm(stockReservationService.restore(payload.getReservationId(), payload.getItems()));
+
+        if (payload.isClearCart()) {
+            try {
+                shoppingCartFeignClient.clearCart(payload.getUserId());
+            } catch (RuntimeException e) {
+                // 清空购物车失败不影响订单结果
+                log.warn("清空购物车失败，用户ID: {}，原因: {}", payload.getUserId(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onExhausted(OrderOutboxEvent event) {
+        OutboxInventoryPayload payload = outboxService.readPayload(event, OutboxInventoryPayload.class);
+        if (payload.isDeducted()) {
+            // 库存已扣减，订单有效，只是确认预留等后续步骤失败；未确认的预留超时后释放，计数器由定时对账按实际库存修正
+            log.error("库存已扣减但后续步骤重试耗尽，订单ID: {}", event.getOrderId());
+            return;
+        }
+        orderRepository.findById(event.getOrderId()).ifPresent(order -> {
+            order.setOrderStatus("CANCELLED");
+            order.setUpdateUser("system");
+            order.setUpdateDatetime(LocalDateTime.now());
+            orderRepository.save(order);
+        });
+        stockReservationService.release(stockReservationService.restore(payload.getReservationId(), payload.getItems()));
+    }
+}
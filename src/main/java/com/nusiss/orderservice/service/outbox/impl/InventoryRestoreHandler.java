@@ -0,0 +1,41 @@
+package com.nusiss.orderservice.service.outbox.impl;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.InventoryChangeRequest;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import com.nusiss.orderservice.feign.InventoryCompensationClient;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.outbox.OutboxEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+ 库存回补事件处理：重试扣减阶段未能完成的库存回补
+ */
+@Component(OrderOutboxService.INVENTORY_RESTORE)
+public class InventoryRestoreHandler implements OutboxEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryRestoreHandler.class);
+
+    @Autowired
+    private InventoryCompensationClient compensationClient;
+
+    @Autowired
+    private OrderOutboxService outboxService;
+
+    @Override
+    public void handle(OrderOutboxEvent event) {
+        InventoryChangeRequest request = outboxService.readPayload(event, InventoryChangeRequest.class);
+        ApiResponse<Boolean> restoreRes = compensationClient.restoreInventory(request);
+        if (!restoreRes.isSuccess() || Boolean.FALSE.equals(restoreRes.getData())) {
+            throw new RuntimeException("库存回补失败，商品ID: " + request.getProductId());
+        }
+    }
+
+    @Override
+    public void onExhausted(OrderOutboxEvent event) {
+        log.error("库存回补重试次数耗尽，需人工处理，事件ID: {}，内容: {}", event.getEventId(), event.getPayload());
+    }
+}
@@ -0,0 +1,98 @@
+package com.nusiss.orderservice.service.outbox.impl;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.Payment;
+import com.nusiss.commonservice.feign.PaymentFeignClient;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dto.OutboxPaymentPayload;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import com.nusiss.orderservice.feign.PaymentIdempotencyKey;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.outbox.OutboxEventHandler;
+import com.nusiss.orderservice.service.reservation.StockReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/*
+ 支付事件处理：调用 payment-service 发起支付
+ 支付调用不在数据库事务中执行，并携带按订单生成的幂等键（见 PaymentIdempotencyKey）
+ 支付成功后在一个独立的本地事务中将订单标记为 PAID 并写入库存扣减事件，提交后 relay 才将本事件标记为 SENT；
+ 该事务失败时事件稍后重试，重复的支付请求由 payment-service 按幂等键返回第一次的结果，不会重复扣款
+ 支付被拒绝时订单标记为 FAILED 并释放库存预留；远程调用异常时抛出，由 relay 稍后重试
+ */
+@Component(OrderOutboxService.PAYMENT_PROCESS)
+public class PaymentProcessHandler implements OutboxEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessHandler.class);
+
+    private static final String SYSTEM_USER = "system";
+
+    @Autowired
+    private PaymentFeignClient paymentFeignClient;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxService outboxService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void handle(OrderOutboxEvent event) {
+        Order order = orderRepository.findById(event.getOrderId()).orElse(null);
+        if (order == null || "PAID".equals(order.getPaymentStatus()) || "FAILED".equals(order.getOrderStatus())) {
+            // 订单已删除、已支付或已判定支付失败（重复投递），无需再次支付
+            return;
+        }
+
+        OutboxPaymentPayload payload = outboxService.readPayload(event, OutboxPaymentPayload.class);
+        ApiResponse<Payment> paymentRes = PaymentIdempotencyKey.with(PaymentIdempotencyKey.forOrder(order.getOrderId()),
+                () -> paymentFeignClient.processPayment(payload.getPaymentRequest()));
+        if (!paymentRes.isSuccess() || paymentRes.getData() == null ||
+                !"PAID".equalsIgnoreCase(paymentRes.getData().getPaymentStatus())) {
+            log.warn("异步下单支付失败，订单ID: {}，原因: {}", order.getOrderId(), paymentRes.getMessage());
+            transactionTemplate.executeWithoutResult(status -> updateOrder(order, "FAILED", order.getPaymentStatus()));
+            releaseReservation(payload);
+            return;
+        }
+
+        // 支付结果与库存扣减事件同时提交
+        transactionTemplate.executeWithoutResult(status -> {
+            updateOrder(order, order.getOrderStatus(), "PAID");
+            outboxService.enqueueInventoryDeduct(order.getOrderId(), payload.getInventory());
+        });
+    }
+
+    @Override
+    public void onExhausted(OrderOutboxEvent event) {
+        orderRepository.findById(event.getOrderId())
+                .ifPresent(order -> updateOrder(order, "FAILED", order.getPaymentStatus()));
+        releaseReservation(outboxService.readPayload(event, OutboxPaymentPayload.class));
+    }
+
+    private void releaseReservation(OutboxPaymentPayload payload) {
+        if (payload.getInventory() != null) {
+            stockReservationService.release(stockReservationService.restore(
+                    payload.getInventory().getReservationId(), payload.getInventory().getItems()));
+        }
+    }
+
+    private void updateOrder(Order order, String orderStatus, String paymentStatus) {
+        order.setOrderStatus(orderStatus);
+        order.setPaymentStatus(paymentStatus);
+        order.setUpdateUser(SYSTEM_USER);
+        order.setUpdateDatetime(LocalDateTime.now());
+        orderRepository.save(order);
+    }
+}
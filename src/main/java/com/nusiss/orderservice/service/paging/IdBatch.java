@@ -0,0 +1,35 @@
+package com.nusiss.orderservice.service.paging;
+
+import com.nusiss.orderservice.config.CustomException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ IdBatch - 批量查询接口的 ID 列表校验
+ 去除 null 与重复值并保持请求顺序；数量超过上限时直接拒绝，避免生成过长的 IN 列表
+ */
+public final class IdBatch {
+
+    private IdBatch() {
+    }
+
+    /*
+     @param ids 请求中的 ID 列表
+     @param maxSize 单次请求允许的 ID 数量上限
+     @return 去重后的 ID 列表
+     @throws CustomException ID 列表为空或超过上限
+     */
+    public static List<Long> of(Collection<Long> ids, int maxSize) {
+        List<Long> distinct = ids == null ? List.of()
+                : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) {
+            throw new CustomException("ID 列表不能为空");
+        }
+        if (distinct.size() > maxSize) {
+            throw new CustomException("单次最多查询 " + maxSize + " 个 ID");
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,86 @@
+package com.nusiss.orderservice.service.paging;
+
+import com.nusiss.orderservice.config.CustomException;
+import com.nusiss.orderservice.entity.Order;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/*
+ OrderSeekCursor - 订单游标分页的不透明游标
+ 记录上一页最后一行的 (排序字段值, orderId)，下一页从该位置之后继续读取
+ 排序字段限定在白名单内，每个字段都有 (字段, order_id) 复合索引支撑
+ */
+@Getter
+public final class OrderSeekCursor {
+
+    // 允许的排序字段：orderDate -> idx_orders_date_id，totalAmount -> idx_orders_amount_id，orderId -> 主键
+    public static final List<String> SORT_KEYS = List.of("orderDate", "totalAmount", "orderId");
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortBy;
+    private final boolean descending;
+    // 上一页最后一行的排序字段值（可能为 null；按 orderId 排序时不使用）
+    private final Comparable<?> value;
+    private final Long lastOrderId;
+
+    private OrderSeekCursor(String sortBy, boolean descending, Comparable<?> value, Long lastOrderId) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.value = value;
+        this.lastOrderId = lastOrderId;
+    }
+
+    /*
+     根据当前页最后一行生成下一页游标
+     */
+    public static OrderSeekCursor after(String sortBy, boolean descending, Order last) {
+        Comparable<?> value = switch (sortBy) {
+            case "orderDate" -> last.getOrderDate();
+            case "totalAmount" -> last.getTotalAmount();
+            default -> null;
+        };
+        return new OrderSeekCursor(sortBy, descending, value, last.getOrderId());
+    }
+
+    /*
+     校验排序字段是否在白名单内
+     */
+    public static void requireSortable(String sortBy) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new CustomException("不支持的排序字段: " + sortBy + "，可选值: " + SORT_KEYS);
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + (descending ? "desc" : "asc") + SEPARATOR + lastOrderId + SEPARATOR
+                + (value == null ? "" : value instanceof BigDecimal amount ? amount.toPlainString() : value.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderSeekCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            String sortBy = parts[0];
+            requireSortable(sortBy);
+            boolean descending = "desc".equals(parts[1]);
+            Long lastOrderId = Long.valueOf(parts[2]);
+            Comparable<?> value = parts[3].isEmpty() ? null : switch (sortBy) {
+                case "orderDate" -> LocalDateTime.parse(parts[3]);
+                case "totalAmount" -> new BigDecimal(parts[3]);
+                default -> null;
+            };
+            return new OrderSeekCursor(sortBy, descending, value, lastOrderId);
+        } catch (CustomException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CustomException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.nusiss.orderservice.service.purchase;
+
+import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import com.nusiss.orderservice.service.event.OrderItemChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/*
+ PurchasedProductCache - 按用户缓存已购商品ID集合（PurchasedProductSet）
+ 读取顺序：进程内 LRU（短 TTL）-> Redis 压缩字节串 -> 数据库聚合查询
+ 写入订单项的事务提交后增量合并到 Redis（比较并交换，失败重试），并通过 Topic 通知所有实例删除本地条目
+ Redis 中不存在该用户的集合时写入短期 dirty 标记，阻止并发读取把提交前查到的旧集合写回 Redis
+ 订单项被删除或修改（商品可能被替换）、订单被删除时无法增量维护：订阅提交后的变更事件，
+ 先缓冲订单ID / 用户ID，再由定时任务查出所属用户后失效其集合（事件回调中不访问数据库，见 OrderChangeEventBridge）
+ */
+@Component
+public class PurchasedProductCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchasedProductCache.class);
+
+    private static final String KEY_PREFIX = "order-service:purchased:";
+
+    private static final String INVALIDATION_TOPIC = "order-service:purchased-invalidation";
+
+    private static final int MERGE_RETRIES = 3;
+
+    // 写入数据库查询结果：KEYS = [集合, dirty标记]；ARGV = [编码后的集合, TTL 秒]
+    private static final String LOAD_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 1 or redis.call('EXISTS', KEYS[2]) == 1 then return 0 end " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) " +
+            "return 1";
+
+    // 比较并交换：KEYS = [集合, dirty标记]；ARGV = [读取到的旧值, 合并后的新值, TTL 秒, dirty TTL 毫秒]
+    // 集合不存在返回 -1 并写入 dirty 标记，旧值已被其他实例修改返回 0
+    private static final String MERGE_SCRIPT =
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if not current then redis.call('SET', KEYS[2], '1', 'PX', ARGV[4]) return -1 end " +
+            "if current ~= ARGV[1] then return 0 end " +
+            "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) " +
+            "return 1";
+
+    // 失效：KEYS = [集合, dirty标记]；ARGV = [dirty TTL 毫秒]
+    private static final String INVALIDATE_SCRIPT =
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('SET', KEYS[2], '1', 'PX', ARGV[1]) " +
+            "return 1";
+
+    private final RedissonClient redissonClient;
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final OrderRepository orderRepository;
+
+    private final RTopic topic;
+
+    private final boolean enabled;
+
+    private final long ttlSeconds;
+
+    private final long dirtyTtlMs;
+
+    private final long localTtlMs;
+
+    private final LongSupplier clock;
+
+    private final Map<Long, CachedSet> entries;
+
+    // 订单项被删除或修改、等待失效所属用户集合的订单ID
+    private final Set<Long> pendingOrders = ConcurrentHashMap.newKeySet();
+
+    // 订单被删除、等待失效集合的用户ID
+    private final Set<Long> pendingUsers = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PurchasedProductCache(RedissonClient redissonClient,
+                                 OrderItemRepository orderItemRepository,
+                                 OrderRepository orderRepository,
+                                 @Value("${order.cache.purchased.enabled:true}") boolean enabled,
+                                 @Value("${order.cache.purchased.ttl-seconds:86400}") long ttlSeconds,
+                                 @Value("${order.cache.purchased.dirty-ttl-ms:5000}") long dirtyTtlMs,
+                                 @Value("${order.cache.purchased.local-ttl-ms:60000}") long localTtlMs,
+                                 @Value("${order.cache.purchased.max-size:10000}") int maxSize) {
+        this(redissonClient, orderItemRepository, orderRepository, enabled, ttlSeconds, dirtyTtlMs, localTtlMs,
+                maxSize, System::currentTimeMillis);
+    }
+
+    PurchasedProductCache(RedissonClient redissonClient, OrderItemRepository orderItemRepository,
+                          OrderRepository orderRepository, boolean enabled, long ttlSeconds, long dirtyTtlMs,
+                          long localTtlMs, int maxSize, LongSupplier clock) {
+        this.redissonClient = redissonClient;
+        this.orderItemRepository = orderItemRepository;
+        this.orderRepository = orderRepository;
+        this.topic = redissonClient.getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE);
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.dirtyTtlMs = dirtyTtlMs;
+        this.localTtlMs = localTtlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedSet> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // 订阅其他实例发出的失效消息
+    @PostConstruct
+    public void subscribe() {
+        try {
+            topic.addListener(String.class, (channel, message) -> evictLocal(Long.valueOf(message)));
+        } catch (RuntimeException e) {
+            log.warn("已购商品缓存失效消息订阅失败，仅依赖本地 TTL 过期: {}", e.getMessage());
+        }
+    }
+
+    /*
+     获取用户的已购商品集合
+     @param userId 用户ID
+     @return 已购商品集合，从未购买返回空集合
+     */
+    public PurchasedProductSet get(Long userId) {
+        if (!enabled) {
+            return PurchasedProductSet.of(orderItemRepository.findProductIdsByUserId(userId));
+        }
+        PurchasedProductSet local = getLocal(userId);
+        if (local != null) {
+            return local;
+        }
+        PurchasedProductSet loaded = load(userId);
+        putLocal(userId, loaded);
+        return loaded;
+    }
+
+    /*
+     记录用户新购买的商品
+     处于事务中时在提交后执行，避免回滚的订单项进入缓存；否则立即执行
+     */
+    public void recordPurchase(Long userId, Collection<Long> productIds) {
+        if (!enabled || userId == null || productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        List<Long> added = List.copyOf(productIds);
+        afterCommit(() -> merge(userId, added));
+    }
+
+    // 新增的订单项由 recordPurchase 增量合并，删除与修改等待失效
+    @EventListener
+    public void onOrderItemChanged(OrderItemChangedEvent event) {
+        if (enabled && event.getType() != OrderChangedEvent.ChangeType.CREATED && event.getOrderId() != null) {
+            pendingOrders.add(event.getOrderId());
+        }
+    }
+
+    // 订单被删除后无法再按订单ID查出用户，直接记录事件中的用户ID
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (enabled && event.getType() == OrderChangedEvent.ChangeType.DELETED && event.getOrder() != null
+                && event.getOrder().getUserId() != null) {
+            pendingUsers.add(event.getOrder().getUserId());
+        }
+    }
+
+    /*
+     失效订单项被删除或修改的用户集合；查询所属用户失败时订单ID放回缓冲区，下一轮重试
+     */
+    @Scheduled(fixedDelayString = "${order.cache.purchased.invalidation-interval-ms:1000}")
+    public void flushInvalidations() {
+        Set<Long> userIds = new HashSet<>(drain(pendingUsers));
+        List<Long> orderIds = drain(pendingOrders);
+        if (!orderIds.isEmpty()) {
+            try {
+                orderRepository.findAllById(orderIds).stream()
+                        .map(Order::getUserId)
+                        .filter(Objects::nonNull)
+                        .forEach(userIds::add);
+            } catch (RuntimeException e) {
+                log.warn("查询订单所属用户失败，{} 个订单的已购集合稍后失效: {}", orderIds.size(), e.getMessage());
+                pendingOrders.addAll(orderIds);
+            }
+        }
+        userIds.forEach(this::invalidate);
+    }
+
+    /*
+     订单项被修改等无法增量维护的场景：删除 Redis 与所有实例的本地集合
+     */
+    public void invalidate(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                script().eval(RScript.Mode.READ_WRITE, INVALIDATE_SCRIPT, RScript.ReturnType.INTEGER,
+                        keys(userId), bytes(dirtyTtlMs));
+            } catch (RuntimeException e) {
+                log.warn("已购商品集合失效失败 userId={}: {}", userId, e.getMessage());
+            }
+            broadcastEviction(userId);
+        });
+    }
+
+    private PurchasedProductSet load(Long userId) {
+        try {
+            byte[] cached = redissonClient.<byte[]>getBucket(key(userId), ByteArrayCodec.INSTANCE).get();
+            if (cached != null) {
+                return PurchasedProductSet.decode(cached);
+            }
+        } catch (RuntimeException e) {
+            log.warn("读取 Redis 已购商品集合失败，直接查询数据库 userId={}: {}", userId, e.getMessage());
+            return PurchasedProductSet.of(orderItemRepository.findProductIdsByUserId(userId));
+        }
+        PurchasedProductSet fromDatabase = PurchasedProductSet.of(orderItemRepository.findProductIdsByUserId(userId));
+        try {
+            script().eval(RScript.Mode.READ_WRITE, LOAD_SCRIPT, RScript.ReturnType.INTEGER,
+                    keys(userId), fromDatabase.encode(), bytes(ttlSeconds));
+        } catch (RuntimeException e) {
+            log.warn("写入 Redis 已购商品集合失败 userId={}: {}", userId, e.getMessage());
+        }
+        return fromDatabase;
+    }
+
+    private void merge(Long userId, List<Long> added) {
+        try {
+            for (int attempt = 0; attempt < MERGE_RETRIES; attempt++) {
+                byte[] current = redissonClient.<byte[]>getBucket(key(userId), ByteArrayCodec.INSTANCE).get();
+                byte[] expected = current == null ? new byte[0] : current;
+                byte[] updated = PurchasedProductSet.decode(current).with(added).encode();
+                Long result = script().eval(RScript.Mode.READ_WRITE, MERGE_SCRIPT, RScript.ReturnType.INTEGER,
+                        keys(userId), expected, updated, bytes(ttlSeconds), bytes(dirtyTtlMs));
+                if (result != null && result != 0L) {
+                    return;
+                }
+            }
+            log.warn("已购商品集合并发合并冲突，改为失效 userId={}", userId);
+            script().eval(RScript.Mode.READ_WRITE, INVALIDATE_SCRIPT, RScript.ReturnType.INTEGER,
+                    keys(userId), bytes(dirtyTtlMs));
+        } catch (RuntimeException e) {
+            log.warn("合并已购商品集合失败 userId={}: {}", userId, e.getMessage());
+        } finally {
+            broadcastEviction(userId);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void broadcastEviction(Long userId) {
+        evictLocal(userId);
+        try {
+            topic.publish(String.valueOf(userId));
+        } catch (RuntimeException e) {
+            log.warn("已购商品缓存失效消息发送失败，其他实例将在本地 TTL 后过期: {}", e.getMessage());
+        }
+    }
+
+    // 逐个移除缓冲的ID（移除期间新到的ID留到下一轮）
+    private static List<Long> drain(Set<Long> pending) {
+        List<Long> drained = new ArrayList<>();
+        for (Long id : new ArrayList<>(pending)) {
+            if (pending.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    private PurchasedProductSet getLocal(Long userId) {
+        synchronized (entries) {
+            CachedSet cached = entries.get(userId);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt() <= clock.getAsLong()) {
+                entries.remove(userId);
+                return null;
+            }
+            return cached.set();
+        }
+    }
+
+    private void putLocal(Long userId, PurchasedProductSet set) {
+        synchronized (entries) {
+            entries.put(userId, new CachedSet(set, clock.getAsLong() + localTtlMs));
+        }
+    }
+
+    private void evictLocal(Long userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(ByteArrayCodec.INSTANCE);
+    }
+
+    private List<Object> keys(Long userId) {
+        return Arrays.asList(key(userId), key(userId) + ":dirty");
+    }
+
+    private String key(Long userId) {
+        return KEY_PREFIX + "{" + userId + "}";
+    }
+
+    private byte[] bytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record CachedSet(PurchasedProductSet set, long expiresAt) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.nusiss.orderservice.service.purchase;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ PurchasedProductSet - 用户已购商品ID集合（不可变）
+ 内存中为去重后升序排列的 long[]，成员判断为二分查找，不产生装箱对象
+ 序列化格式：元素个数（varint）+ 相邻差值（varint），商品ID连续分配时每个元素通常只占 1~2 字节
+ */
+public final class PurchasedProductSet {
+
+    private static final PurchasedProductSet EMPTY = new PurchasedProductSet(new long[0]);
+
+    private final long[] productIds;
+
+    private PurchasedProductSet(long[] productIds) {
+        this.productIds = productIds;
+    }
+
+    public static PurchasedProductSet empty() {
+        return EMPTY;
+    }
+
+    // 由任意商品ID集合构建，忽略 null 与重复值
+    public static PurchasedProductSet of(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return EMPTY;
+        }
+        long[] values = productIds.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        return values.length == 0 ? EMPTY : new PurchasedProductSet(values);
+    }
+
+    public boolean contains(long productId) {
+        return Arrays.binarySearch(productIds, productId) >= 0;
+    }
+
+    /*
+     合并新购买的商品ID，返回新集合；没有新增元素时返回自身
+     */
+    public PurchasedProductSet with(Collection<Long> added) {
+        PurchasedProductSet other = of(added);
+        if (other.productIds.length == 0) {
+            return this;
+        }
+        long[] merged = new long[productIds.length + other.productIds.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < productIds.length || j < other.productIds.length) {
+            long next;
+            if (j >= other.productIds.length || (i < productIds.length && productIds[i] <= other.productIds[j])) {
+                next = productIds[i++];
+            } else {
+                next = other.productIds[j++];
+            }
+            if (n == 0 || merged[n - 1] != next) {
+                merged[n++] = next;
+            }
+        }
+        return n == productIds.length ? this : new PurchasedProductSet(Arrays.copyOf(merged, n));
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public List<Long> toList() {
+        return Arrays.stream(productIds).boxed().toList();
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(productIds.length * 2 + 5);
+        writeVarLong(out, productIds.length);
+        long previous = 0;
+        for (long productId : productIds) {
+            writeVarLong(out, productId - previous);
+            previous = productId;
+        }
+        return out.toByteArray();
+    }
+
+    /*
+     解析 encode() 生成的字节数组
+     @throws IllegalArgumentException 数据被截断或格式不正确
+     */
+    public static PurchasedProductSet decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return EMPTY;
+        }
+        int[] position = {0};
+        long count = readVarLong(data, position);
+        if (count < 0 || count > data.length) {
+            throw new IllegalArgumentException("已购商品集合长度不正确: " + count);
+        }
+        long[] values = new long[(int) count];
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            previous += readVarLong(data, position);
+            values[i] = previous;
+        }
+        return values.length == 0 ? EMPTY : new PurchasedProductSet(values);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] position) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("已购商品集合数据被截断");
+            }
+            byte b = data[position[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("已购商品集合 varint 过长");
+    }
+}
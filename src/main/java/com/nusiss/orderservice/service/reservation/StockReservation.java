@@ -0,0 +1,24 @@
+package com.nusiss.orderservice.service.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/*
+ 一次下单在 Redis 中预留的库存
+ reservationId 为空表示未预留（预留功能关闭或 Redis 不可用），确认与释放均为空操作
+ */
+@Getter
+@AllArgsConstructor
+public class StockReservation {
+
+    private final String reservationId;
+
+    // 商品ID -> 预留数量
+    private final Map<Long, Integer> lines;
+
+    public boolean isTracked() {
+        return reservationId != null;
+    }
+}
@@ -0,0 +1,287 @@
+package com.nusiss.orderservice.service.reservation;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RScript;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ StockReservationService - 基于 Redis 的库存预留（秒杀场景）
+ 每个商品维护两个键：可预留数量计数器、以过期时间为分值的预留 ZSET
+ 下单前通过一个 Lua 脚本原子地校验并预留所有商品（全部成功或全部失败），库存不足的请求在访问 MySQL、支付之前被拒绝
+ 预留在扣减库存成功后确认（移出 ZSET），下单失败时释放（回加计数器），超时未确认的预留在下次预留或对账时自动释放
+ 计数器带有 TTL，过期或缺失时从 inventory-service 重新加载；定时对账按 inventory-service 的库存重算计数器
+ 所有键使用同一个 hash tag，保证 Redis Cluster 下多商品脚本落在同一个 slot
+ Redis 不可用时不做预留，由原有库存校验兜底
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String KEY_PREFIX = "order-service:{stock}:";
+
+    // 预留：KEYS 为每个商品的 [计数器, 预留ZSET]；ARGV = [当前时间, 过期时间, 预留ID, 数量...]
+    // 返回 0 成功；i > 0 第 i 个商品库存不足；-i 第 i 个商品计数器未加载
+    private static final String RESERVE_SCRIPT =
+            "local now = tonumber(ARGV[1]) " +
+            "local n = #KEYS / 2 " +
+            "for i = 1, n do " +
+            "  local counter = KEYS[2 * i - 1] " +
+            "  local reservations = KEYS[2 * i] " +
+            "  if redis.call('EXISTS', counter) == 0 then return -i end " +
+            "  local expired = redis.call('ZRANGEBYSCORE', reservations, '-inf', now) " +
+            "  for _, member in ipairs(expired) do " +
+            "    redis.call('INCRBY', counter, tonumber(string.match(member, ':(%d+)$'))) " +
+            "  end " +
+            "  if #expired > 0 then redis.call('ZREMRANGEBYSCORE', reservations, '-inf', now) end " +
+            "  if tonumber(redis.call('GET', counter)) < tonumber(ARGV[3 + i]) then return i end " +
+            "end " +
+            "for i = 1, n do " +
+            "  redis.call('DECRBY', KEYS[2 * i - 1], ARGV[3 + i]) " +
+            "  redis.call('ZADD', KEYS[2 * i], ARGV[2], ARGV[3] .. ':' .. ARGV[3 + i]) " +
+            "end " +
+            "return 0";
+
+    // 释放：ARGV = [预留ID, 数量...]，只有仍在 ZSET 中的预留才回加计数器（重复释放、确认后释放均为空操作）
+    private static final String RELEASE_SCRIPT =
+            "for i = 1, #KEYS / 2 do " +
+            "  if redis.call('ZREM', KEYS[2 * i], ARGV[1] .. ':' .. ARGV[1 + i]) == 1 " +
+            "      and redis.call('EXISTS', KEYS[2 * i - 1]) == 1 then " +
+            "    redis.call('INCRBY', KEYS[2 * i - 1], ARGV[1 + i]) " +
+            "  end " +
+            "end " +
+            "return 0";
+
+    // 确认：库存已在 inventory-service 扣减，只移除预留记录
+    private static final String CONFIRM_SCRIPT =
+            "for i = 1, #KEYS / 2 do " +
+            "  redis.call('ZREM', KEYS[2 * i], ARGV[1] .. ':' .. ARGV[1 + i]) " +
+            "end " +
+            "return 0";
+
+    // 加载 / 对账：KEYS = [计数器, 预留ZSET]；ARGV = [当前时间, 实际库存, TTL 秒]
+    // 清理过期预留后，计数器 = 实际库存 - 仍有效的预留数量
+    private static final String LOAD_SCRIPT =
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[1]) " +
+            "local reserved = 0 " +
+            "for _, member in ipairs(redis.call('ZRANGE', KEYS[2], 0, -1)) do " +
+            "  reserved = reserved + tonumber(string.match(member, ':(%d+)$')) " +
+            "end " +
+            "redis.call('SET', KEYS[1], tonumber(ARGV[2]) - reserved, 'EX', ARGV[3]) " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+
+    private final CoalescingReadClient readClient;
+
+    private final boolean enabled;
+
+    // 预留有效期，应覆盖下单到扣减库存（含 outbox 重试）的耗时
+    private final long reservationTtlMs;
+
+    // 计数器有效期，过期后重新从 inventory-service 加载
+    private final long counterTtlSeconds;
+
+    private final Counter reservedCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Counter degradedCounter;
+
+    @Autowired
+    public StockReservationService(RedissonClient redissonClient,
+                                   CoalescingReadClient readClient,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${order.reservation.enabled:true}") boolean enabled,
+                                   @Value("${order.reservation.ttl-ms:600000}") long reservationTtlMs,
+                                   @Value("${order.reservation.counter-ttl-seconds:3600}") long counterTtlSeconds) {
+        this.redissonClient = redissonClient;
+        this.readClient = readClient;
+        this.enabled = enabled;
+        this.reservationTtlMs = reservationTtlMs;
+        this.counterTtlSeconds = counterTtlSeconds;
+        this.reservedCounter = meterRegistry.counter("order.stock.reservation", "result", "reserved");
+        this.rejectedCounter = meterRegistry.counter("order.stock.reservation", "result", "rejected");
+        this.degradedCounter = meterRegistry.counter("order.stock.reservation", "result", "degraded");
+    }
+
+    /*
+     原子预留订单中所有商品的库存
+     @param items 商品项（同一商品多行时合并）
+     @return 预留结果，下单结束后需要 confirm 或 release
+     @throws RuntimeException 任一商品可预留数量不足
+     */
+    public StockReservation reserve(List<CartItem> items) {
+        Map<Long, Integer> lines = mergeLines(items);
+        if (!enabled || lines.isEmpty()) {
+            return new StockReservation(null, lines);
+        }
+        String reservationId = UUID.randomUUID().toString();
+        List<Long> productIds = new ArrayList<>(lines.keySet());
+
+        // 计数器缺失时加载后重试，每个商品最多加载一次
+        for (int attempt = 0; attempt <= productIds.size(); attempt++) {
+            long result;
+            try {
+                long now = System.currentTimeMillis();
+                List<Object> args = new ArrayList<>();
+                args.add(String.valueOf(now));
+                args.add(String.valueOf(now + reservationTtlMs));
+                args.add(reservationId);
+                productIds.forEach(productId -> args.add(String.valueOf(lines.get(productId))));
+                result = eval(RESERVE_SCRIPT, keysFor(productIds), args);
+            } catch (RuntimeException e) {
+                return degrade("预留", lines, e);
+            }
+
+            if (result == 0) {
+                reservedCounter.increment();
+                return new StockReservation(reservationId, lines);
+            }
+            if (result > 0) {
+                rejectedCounter.increment();
+                throw new RuntimeException("库存不足，无法下单");
+            }
+            Long missing = productIds.get((int) (-result - 1));
+            try {
+                load(missing);
+            } catch (RuntimeException e) {
+                return degrade("加载库存", lines, e);
+            }
+        }
+        return degrade("预留", lines, new IllegalStateException("库存计数器加载后仍不存在"));
+    }
+
+    /*
+     确认预留（库存已在 inventory-service 扣减成功）
+     */
+    public void confirm(StockReservation reservation) {
+        apply(CONFIRM_SCRIPT, reservation, "确认");
+    }
+
+    /*
+     释放预留（下单失败），已确认或已过期释放的预留不会重复回加
+     */
+    public void release(StockReservation reservation) {
+        apply(RELEASE_SCRIPT, reservation, "释放");
+    }
+
+    /*
+     根据 outbox 事件中保存的预留ID与商品项还原预留
+     */
+    public StockReservation restore(String reservationId, List<CartItem> items) {
+        return new StockReservation(reservationId, mergeLines(items));
+    }
+
+    /*
+     定时对账：按 inventory-service 的实际库存重算已加载商品的计数器
+     计数器已过期的商品不再跟踪，下次预留时重新加载
+     */
+    @Scheduled(fixedDelayString = "${order.reservation.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RSet<String> skus = trackedSkus();
+            for (String sku : skus.readAll()) {
+                Long productId = Long.valueOf(sku);
+                if (!redissonClient.getBucket(counterKey(productId), StringCodec.INSTANCE).isExists()) {
+                    skus.remove(sku);
+                    continue;
+                }
+                try {
+                    load(productId);
+                } catch (RuntimeException e) {
+                    log.warn("库存预留对账失败，商品ID: {}，原因: {}", productId, e.getMessage());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("库存预留对账失败: {}", e.getMessage());
+        }
+    }
+
+    // 从 inventory-service 读取实际库存并重算计数器
+    private void load(Long productId) {
+        ApiResponse<Integer> stockRes = readClient.getInventoryQuantity(productId);
+        if (!stockRes.isSuccess() || stockRes.getData() == null) {
+            throw new RuntimeException("无法获取库存信息，商品ID: " + productId);
+        }
+        eval(LOAD_SCRIPT, keysFor(List.of(productId)), List.of(
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(stockRes.getData()),
+                String.valueOf(counterTtlSeconds)));
+        trackedSkus().add(String.valueOf(productId));
+    }
+
+    private void apply(String script, StockReservation reservation, String action) {
+        if (reservation == null || !reservation.isTracked()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>(reservation.getLines().keySet());
+        List<Object> args = new ArrayList<>();
+        args.add(reservation.getReservationId());
+        productIds.forEach(productId -> args.add(String.valueOf(reservation.getLines().get(productId))));
+        try {
+            eval(script, keysFor(productIds), args);
+        } catch (RuntimeException e) {
+            // 未确认 / 未释放的预留在过期后自动释放，计数器由对账修正
+            log.warn("库存预留{}失败，预留ID: {}，原因: {}", action, reservation.getReservationId(), e.getMessage());
+        }
+    }
+
+    private long eval(String script, List<Object> keys, List<Object> args) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, script,
+                RScript.ReturnType.INTEGER, keys, args.toArray());
+        return result == null ? 0 : result;
+    }
+
+    private StockReservation degrade(String action, Map<Long, Integer> lines, RuntimeException e) {
+        degradedCounter.increment();
+        log.warn("库存{}失败，跳过 Redis 预留，原因: {}", action, e.getMessage());
+        return new StockReservation(null, lines);
+    }
+
+    private List<Object> keysFor(List<Long> productIds) {
+        List<Object> keys = new ArrayList<>(productIds.size() * 2);
+        for (Long productId : productIds) {
+            keys.add(counterKey(productId));
+            keys.add(KEY_PREFIX + "reservations:" + productId);
+        }
+        return keys;
+    }
+
+    private String counterKey(Long productId) {
+        return KEY_PREFIX + "available:" + productId;
+    }
+
+    private RSet<String> trackedSkus() {
+        return redissonClient.getSet(KEY_PREFIX + "skus", StringCodec.INSTANCE);
+    }
+
+    private static Map<Long, Integer> mergeLines(List<CartItem> items) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (CartItem item : items) {
+            lines.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,426 @@
+package com.nusiss.orderservice.service.rollup;
+
+import com.nusiss.orderservice.config.CustomException;
+import com.nusiss.orderservice.dao.OrderRollupRepository;
+import com.nusiss.orderservice.dao.PaymentRollupRepository;
+import com.nusiss.orderservice.dao.RollupFenceRepository;
+import com.nusiss.orderservice.dto.RollupAggregateRow;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderPayment;
+import com.nusiss.orderservice.entity.OrderRollup;
+import com.nusiss.orderservice.entity.PaymentRollup;
+import com.nusiss.orderservice.entity.RollupFence;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import com.nusiss.orderservice.service.event.OrderPaymentChangedEvent;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ OrderRollupService - 订单 / 支付汇总表（小时、天）的增量维护与查询
+ 订单、支付记录提交后（见 OrderChangeEventBridge）按时间桶和维度计算增量：新建 +1，删除 -1，
+ 更新时从旧维度减去、向新维度加上；增量先在内存中缓冲，再由定时任务合并后批量写入（INSERT ... ON DUPLICATE KEY UPDATE），
+ 避免同一时间桶的热点行在每次下单时都被加锁
+ backfill 重算某一天时先在 rollup_fences 中记录栅栏时间，再以普通 SELECT（一致性非锁定读，不锁明细表、不阻塞下单）
+ 读取明细并在内存中汇总后写入；各实例写入增量时在同一事务中加共享锁读取栅栏，丢弃产生时间早于栅栏的增量
+ （已包含在重算结果中），避免其他实例缓冲中的增量被重复累加（依赖实例间时钟同步）
+ 进程退出前未写入的增量可能丢失，每小时重算当天、每日重算最近几天的汇总；backfill 可重算任意日期范围
+ 表结构见 db/rollups.sql
+ */
+@Service
+public class OrderRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderRollupService.class);
+
+    public static final String HOUR = "HOUR";
+
+    public static final String DAY = "DAY";
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private static final String LOCK_KEY = "order-service:rollup:rebuild";
+
+    record OrderBucket(String granularity, LocalDateTime bucketStart, String orderStatus, String paymentStatus) {
+    }
+
+    record PaymentBucket(String granularity, LocalDateTime bucketStart, String paymentMethod, String paymentStatus) {
+    }
+
+    record Delta(long count, BigDecimal amount) {
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amount.add(other.amount));
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+
+    // 缓冲中的增量，capturedAt 为产生时间（事务提交之后）
+    record Captured<K>(K bucket, Delta delta, LocalDateTime capturedAt) {
+    }
+
+    private static final Comparator<OrderBucket> ORDER_BUCKET_ORDER = Comparator
+            .comparing(OrderBucket::granularity).thenComparing(OrderBucket::bucketStart)
+            .thenComparing(OrderBucket::orderStatus).thenComparing(OrderBucket::paymentStatus);
+
+    private static final Comparator<PaymentBucket> PAYMENT_BUCKET_ORDER = Comparator
+            .comparing(PaymentBucket::granularity).thenComparing(PaymentBucket::bucketStart)
+            .thenComparing(PaymentBucket::paymentMethod).thenComparing(PaymentBucket::paymentStatus);
+
+    private final Queue<Captured<OrderBucket>> pendingOrders = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Captured<PaymentBucket>> pendingPayments = new ConcurrentLinkedQueue<>();
+
+    private final OrderRollupRepository orderRollupRepository;
+
+    private final PaymentRollupRepository paymentRollupRepository;
+
+    private final RollupFenceRepository rollupFenceRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RedissonClient redissonClient;
+
+    private final boolean enabled;
+
+    // 每日对账重算的天数（不含当天）
+    private final int reconcileDays;
+
+    @Autowired
+    public OrderRollupService(OrderRollupRepository orderRollupRepository,
+                              PaymentRollupRepository paymentRollupRepository,
+                              RollupFenceRepository rollupFenceRepository,
+                              TransactionTemplate transactionTemplate,
+                              RedissonClient redissonClient,
+                              @Value("${order.rollup.enabled:true}") boolean enabled,
+                              @Value("${order.rollup.reconcile-days:2}") int reconcileDays) {
+        this.orderRollupRepository = orderRollupRepository;
+        this.paymentRollupRepository = paymentRollupRepository;
+        this.rollupFenceRepository = rollupFenceRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.redissonClient = redissonClient;
+        this.enabled = enabled;
+        this.reconcileDays = reconcileDays;
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!event.isPreviousKnown()) {
+            log.warn("Previous state of order {} unknown, rollups corrected at next reconcile", event.getOrderId());
+            return;
+        }
+        Order order = event.getOrder();
+        switch (event.getType()) {
+            case CREATED -> addOrder(order, 1);
+            case DELETED -> addOrder(order, -1);
+            case UPDATED -> {
+                Order previous = event.getPrevious();
+                if (sameOrderBucket(previous, order)) {
+                    return;
+                }
+                addOrder(previous, -1);
+                addOrder(order, 1);
+            }
+        }
+    }
+
+    @EventListener
+    public void onPaymentChanged(OrderPaymentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!event.isPreviousKnown()) {
+            log.warn("Previous state of payment {} unknown, rollups corrected at next reconcile",
+                    event.getPayment().getPaymentId());
+            return;
+        }
+        OrderPayment payment = event.getPayment();
+        switch (event.getType()) {
+            case CREATED -> addPayment(payment, 1);
+            case DELETED -> addPayment(payment, -1);
+            case UPDATED -> {
+                OrderPayment previous = event.getPrevious();
+                if (samePaymentBucket(previous, payment)) {
+                    return;
+                }
+                addPayment(previous, -1);
+                addPayment(payment, 1);
+            }
+        }
+    }
+
+    /*
+     将缓冲的增量写入汇总表：先以共享锁读取相关日期的栅栏，丢弃已包含在重算结果中的增量，
+     再按时间桶合并、按主键顺序写入，避免多个实例之间死锁；写入失败的增量放回缓冲区
+     */
+    @Scheduled(fixedDelayString = "${order.rollup.flush-interval-ms:1000}")
+    public void flush() {
+        List<Captured<OrderBucket>> orders = drain(pendingOrders);
+        List<Captured<PaymentBucket>> payments = drain(pendingPayments);
+        if (orders.isEmpty() && payments.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<LocalDate> days = new HashSet<>();
+                orders.forEach(captured -> days.add(captured.bucket().bucketStart().toLocalDate()));
+                payments.forEach(captured -> days.add(captured.bucket().bucketStart().toLocalDate()));
+                Map<LocalDate, LocalDateTime> fences = rollupFenceRepository.lockForFlush(days).stream()
+                        .collect(Collectors.toMap(RollupFence::getBucketDate, RollupFence::getRebuiltAt));
+
+                merge(orders, OrderBucket::bucketStart, fences, ORDER_BUCKET_ORDER).forEach((key, delta) ->
+                        orderRollupRepository.upsertDelta(key.granularity(), key.bucketStart(),
+                                key.orderStatus(), key.paymentStatus(), delta.count(), delta.amount()));
+                merge(payments, PaymentBucket::bucketStart, fences, PAYMENT_BUCKET_ORDER).forEach((key, delta) ->
+                        paymentRollupRepository.upsertDelta(key.granularity(), key.bucketStart(),
+                                key.paymentMethod(), key.paymentStatus(), delta.count(), delta.amount()));
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} order and {} payment rollup deltas, will retry",
+                    orders.size(), payments.size(), e);
+            pendingOrders.addAll(orders);
+            pendingPayments.addAll(payments);
+        }
+    }
+
+    /*
+     每日对账：从明细表重算最近几天（含当天）的汇总
+     */
+    @Scheduled(cron = "${order.rollup.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        try {
+            backfill(today.minusDays(reconcileDays), today);
+        } catch (RuntimeException e) {
+            log.warn("Rollup reconcile failed", e);
+        }
+    }
+
+    /*
+     当天对账：每小时重算当天的汇总，实例宕机丢失的当天增量在一小时内得到修正
+     */
+    @Scheduled(cron = "${order.rollup.reconcile-today-cron:0 5 * * * *}")
+    public void reconcileToday() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        try {
+            backfill(today, today);
+        } catch (RuntimeException e) {
+            log.warn("Rollup reconcile of {} failed", today, e);
+        }
+    }
+
+    /*
+     从 orders、order_payments 明细表重算日期范围内的小时与天汇总（按天逐个事务执行）
+     每天的事务先以排他锁写入栅栏（取读取明细之前的时间，等待正在写入该天增量的实例提交），
+     之后该天的增量写入等待重算事务提交，早于栅栏的增量丢弃、之后的增量累加到重算结果上
+     明细以普通 SELECT 读取，不对 orders、order_payments 加锁；栅栏与快照建立之间（毫秒级）提交的变更可能被重复累加，
+     由下一次对账修正
+     @param from 开始日期（包含）
+     @param to   结束日期（包含）
+     @return 重算的天数
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new CustomException("日期范围无效");
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            throw new CustomException("汇总重算正在进行中，请稍后重试");
+        }
+        try {
+            int days = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                LocalDate bucketDate = day;
+                LocalDateTime start = day.atStartOfDay();
+                LocalDateTime end = start.plusDays(1);
+                transactionTemplate.executeWithoutResult(status -> {
+                    rollupFenceRepository.fence(bucketDate, LocalDateTime.now());
+                    orderRollupRepository.deleteRange(start, end);
+                    paymentRollupRepository.deleteRange(start, end);
+                    rebuildOrders(start, end);
+                    rebuildPayments(start, end);
+                });
+                days++;
+            }
+            log.info("Rebuilt order rollups from {} to {}", from, to);
+            return days;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     查询订单汇总
+     @param granularity HOUR 或 DAY
+     @param from        开始日期（包含）
+     @param to          结束日期（包含）
+     @param status      订单状态（可选）
+     */
+    @Transactional(readOnly = true)
+    public List<OrderRollup> getOrderRollups(String granularity, LocalDate from, LocalDate to, String status) {
+        return orderRollupRepository.findRange(requireGranularity(granularity), from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay(), status);
+    }
+
+    /*
+     查询支付汇总
+     @param granularity HOUR 或 DAY
+     @param from        开始日期（包含）
+     @param to          结束日期（包含）
+     @param method      支付方式（可选）
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentRollup> getPaymentRollups(String granularity, LocalDate from, LocalDate to, String method) {
+        return paymentRollupRepository.findRange(requireGranularity(granularity), from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay(), method);
+    }
+
+    // 将一天的小时聚合结果写入小时与天汇总（按主键顺序写入）
+    private void rebuildOrders(LocalDateTime start, LocalDateTime end) {
+        Map<OrderBucket, Delta> rows = new TreeMap<>(ORDER_BUCKET_ORDER);
+        for (RollupAggregateRow row : orderRollupRepository.aggregateHourly(start, end)) {
+            Delta delta = new Delta(row.getRowCount(), row.getAmount());
+            String orderStatus = dimension(row.getDimension());
+            String paymentStatus = dimension(row.getPaymentStatus());
+            rows.merge(new OrderBucket(HOUR, start.plusHours(row.getHourOfDay()), orderStatus, paymentStatus),
+                    delta, Delta::plus);
+            rows.merge(new OrderBucket(DAY, start, orderStatus, paymentStatus), delta, Delta::plus);
+        }
+        rows.forEach((key, delta) -> orderRollupRepository.upsertDelta(key.granularity(), key.bucketStart(),
+                key.orderStatus(), key.paymentStatus(), delta.count(), delta.amount()));
+    }
+
+    private void rebuildPayments(LocalDateTime start, LocalDateTime end) {
+        Map<PaymentBucket, Delta> rows = new TreeMap<>(PAYMENT_BUCKET_ORDER);
+        for (RollupAggregateRow row : paymentRollupRepository.aggregateHourly(start, end)) {
+            Delta delta = new Delta(row.getRowCount(), row.getAmount());
+            String paymentMethod = dimension(row.getDimension());
+            String paymentStatus = dimension(row.getPaymentStatus());
+            rows.merge(new PaymentBucket(HOUR, start.plusHours(row.getHourOfDay()), paymentMethod, paymentStatus),
+                    delta, Delta::plus);
+            rows.merge(new PaymentBucket(DAY, start, paymentMethod, paymentStatus), delta, Delta::plus);
+        }
+        rows.forEach((key, delta) -> paymentRollupRepository.upsertDelta(key.granularity(), key.bucketStart(),
+                key.paymentMethod(), key.paymentStatus(), delta.count(), delta.amount()));
+    }
+
+    private void addOrder(Order order, int sign) {
+        if (order == null || order.getOrderDate() == null) {
+            return;
+        }
+        BigDecimal amount = order.getTotalAmount() == null ? BigDecimal.ZERO : order.getTotalAmount();
+        Delta delta = new Delta(sign, sign > 0 ? amount : amount.negate());
+        LocalDateTime capturedAt = LocalDateTime.now();
+        for (String granularity : List.of(HOUR, DAY)) {
+            OrderBucket bucket = new OrderBucket(granularity, truncate(order.getOrderDate(), granularity),
+                    dimension(order.getOrderStatus()), dimension(order.getPaymentStatus()));
+            pendingOrders.add(new Captured<>(bucket, delta, capturedAt));
+        }
+    }
+
+    private void addPayment(OrderPayment payment, int sign) {
+        if (payment == null || payment.getPaymentDate() == null) {
+            return;
+        }
+        // 实付金额按 DECIMAL 累加，避免浮点误差在汇总行上累积
+        BigDecimal amount = payment.getAmountPaid() == null ? BigDecimal.ZERO
+                : BigDecimal.valueOf(payment.getAmountPaid());
+        Delta delta = new Delta(sign, sign > 0 ? amount : amount.negate());
+        LocalDateTime capturedAt = LocalDateTime.now();
+        for (String granularity : List.of(HOUR, DAY)) {
+            PaymentBucket bucket = new PaymentBucket(granularity, truncate(payment.getPaymentDate(), granularity),
+                    dimension(payment.getPaymentMethod()), dimension(payment.getPaymentStatus()));
+            pendingPayments.add(new Captured<>(bucket, delta, capturedAt));
+        }
+    }
+
+    private static boolean sameOrderBucket(Order a, Order b) {
+        return Objects.equals(a.getOrderDate(), b.getOrderDate())
+                && Objects.equals(a.getOrderStatus(), b.getOrderStatus())
+                && Objects.equals(a.getPaymentStatus(), b.getPaymentStatus())
+                && (a.getTotalAmount() == null ? b.getTotalAmount() == null
+                : b.getTotalAmount() != null && a.getTotalAmount().compareTo(b.getTotalAmount()) == 0);
+    }
+
+    private static boolean samePaymentBucket(OrderPayment a, OrderPayment b) {
+        return Objects.equals(a.getPaymentDate(), b.getPaymentDate())
+                && Objects.equals(a.getPaymentMethod(), b.getPaymentMethod())
+                && Objects.equals(a.getPaymentStatus(), b.getPaymentStatus())
+                && Objects.equals(a.getAmountPaid(), b.getAmountPaid());
+    }
+
+    // 逐个移除缓冲区中的增量（移除期间新到的增量留到下一轮）
+    private static <K> List<Captured<K>> drain(Queue<Captured<K>> pending) {
+        List<Captured<K>> drained = new ArrayList<>();
+        Captured<K> captured;
+        while ((captured = pending.poll()) != null) {
+            drained.add(captured);
+        }
+        return drained;
+    }
+
+    // 丢弃早于所在日期重算时间的增量，其余按时间桶合并（按主键排序），相互抵消为零的增量不写入
+    private static <K> Map<K, Delta> merge(List<Captured<K>> captured, Function<K, LocalDateTime> bucketStart,
+                                           Map<LocalDate, LocalDateTime> fences, Comparator<K> order) {
+        Map<K, Delta> merged = new TreeMap<>(order);
+        for (Captured<K> entry : captured) {
+            LocalDateTime rebuiltAt = fences.get(bucketStart.apply(entry.bucket()).toLocalDate());
+            if (rebuiltAt == null || !entry.capturedAt().isBefore(rebuiltAt)) {
+                merged.merge(entry.bucket(), entry.delta(), Delta::plus);
+            }
+        }
+        merged.values().removeIf(Delta::isZero);
+        return merged;
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, String granularity) {
+        return DAY.equals(granularity) ? time.truncatedTo(ChronoUnit.DAYS) : time.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static String dimension(String value) {
+        return value == null || value.isEmpty() ? UNKNOWN : value;
+    }
+
+    private static String requireGranularity(String granularity) {
+        String normalized = granularity == null ? DAY : granularity.toUpperCase();
+        if (!HOUR.equals(normalized) && !DAY.equals(normalized)) {
+            throw new CustomException("不支持的汇总粒度: " + granularity + "，可选值: HOUR、DAY");
+        }
+        return normalized;
+    }
+}
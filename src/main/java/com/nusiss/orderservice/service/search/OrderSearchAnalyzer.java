@@ -0,0 +1,37 @@
+package com.nusiss.orderservice.service.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+
+/*
+ OrderSearchAnalyzer - 商品名称、收货地址的分词器：整段文本按字符切成二元组（bigram）并转小写
+ 中文没有空格分词，二元组使索引与任意片段的查询一致；
+ NGramTokenizer 为每个二元组递增位置，按相同分词结果构造短语查询即为子串匹配
+ 同一字段的多个值（一个订单的多个商品名称）之间留出位置间隔，短语不会跨越两个商品名称
+ */
+public class OrderSearchAnalyzer extends Analyzer {
+
+    public static final int GRAM_SIZE = 2;
+
+    private static final int POSITION_GAP = 100;
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new NGramTokenizer(GRAM_SIZE, GRAM_SIZE);
+        TokenStream stream = new LowerCaseFilter(tokenizer);
+        return new TokenStreamComponents(tokenizer, stream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new LowerCaseFilter(in);
+    }
+
+    @Override
+    public int getPositionIncrementGap(String fieldName) {
+        return POSITION_GAP;
+    }
+}
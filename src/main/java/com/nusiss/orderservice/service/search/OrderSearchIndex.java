@@ -0,0 +1,415 @@
+package com.nusiss.orderservice.service.search;
+
+import com.nusiss.orderservice.config.CustomException;
+import com.nusiss.orderservice.dto.OrderSearchHit;
+import com.nusiss.orderservice.dto.OrderSearchPage;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ OrderSearchIndex - 订单搜索索引（Lucene，存放在本地磁盘 order.search.index-dir）
+ 每个订单一个文档：收货地址、各订单项的商品名称按二元组分词（见 OrderSearchAnalyzer），
+ 并保存列表展示所需的订单字段，搜索结果直接从索引读取，不查询数据库
+ 写入先进入 IndexWriter 缓冲，commit() 落盘后进程重启不会丢失，refresh() 后对搜索可见
+ 回滚、关闭时替换 / 关闭 IndexWriter 与 SearcherManager，与搜索之间用读写锁互斥，进行中的搜索不会读到已关闭的索引
+ 索引内容的维护（增量更新、重建、对账）见 OrderSearchIndexer；order.search.enabled=false 时不创建，不打开索引目录
+ */
+@Component
+@ConditionalOnProperty(name = "order.search.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderSearchIndex implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSearchIndex.class);
+
+    public static final String FIELD_ALL = "all";
+
+    public static final String FIELD_PRODUCT = "product";
+
+    public static final String FIELD_ADDRESS = "address";
+
+    private static final String ID = "orderId";
+
+    private static final String USER_ID = "userId";
+
+    private static final String ORDER_STATUS = "orderStatus";
+
+    private static final String PAYMENT_STATUS = "paymentStatus";
+
+    private static final String TOTAL_AMOUNT = "totalAmount";
+
+    private static final String ORDER_DATE = "orderDate";
+
+    private static final String ORDER_DATE_SORT = "orderDateSort";
+
+    private static final String ID_SORT = "orderIdSort";
+
+    // 订单ID的数值索引，对账时按ID范围读取文档
+    private static final String ID_POINT = "orderIdPoint";
+
+    // 按下单时间倒序，时间相同按订单ID倒序
+    private static final Sort NEWEST_FIRST = new Sort(
+            new SortField(ORDER_DATE_SORT, SortField.Type.LONG, true),
+            new SortField(ID_SORT, SortField.Type.LONG, true));
+
+    private final Directory directory;
+
+    private final Analyzer analyzer = new OrderSearchAnalyzer();
+
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+
+    private final int maxPageSize;
+
+    // 可翻页的最大深度（page * size），深分页需要收集全部前序结果
+    private final int maxResultWindow;
+
+    // 搜索、刷新持有读锁；回滚、关闭持有写锁
+    private final ReentrantReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+
+    private volatile IndexWriter writer;
+
+    private volatile SearcherManager searcherManager;
+
+    @Autowired
+    public OrderSearchIndex(@Value("${order.search.index-dir:./data/order-search-index}") String indexDir,
+                            @Value("${order.query.max-page-size:500}") int maxPageSize,
+                            @Value("${order.search.max-result-window:10000}") int maxResultWindow) throws IOException {
+        this(FSDirectory.open(Files.createDirectories(Path.of(indexDir))), maxPageSize, maxResultWindow);
+        log.info("Order search index opened at {} with {} documents", Path.of(indexDir).toAbsolutePath(),
+                numDocs());
+    }
+
+    OrderSearchIndex(Directory directory, int maxPageSize, int maxResultWindow) throws IOException {
+        this.directory = directory;
+        this.maxPageSize = maxPageSize;
+        this.maxResultWindow = maxResultWindow;
+        open();
+    }
+
+    /*
+     按商品名称或收货地址片段搜索订单
+     @param text  搜索关键字（至少 2 个字符，按子串匹配，不区分大小写）
+     @param field all（商品名称或收货地址）、product、address
+     @param page  页码，从 1 开始
+     @param size  每页数量
+     */
+    public OrderSearchPage search(String text, String field, int page, int size) {
+        String keyword = text == null ? "" : text.trim();
+        if (keyword.codePointCount(0, keyword.length()) < OrderSearchAnalyzer.GRAM_SIZE) {
+            throw new CustomException("搜索关键字至少需要 " + OrderSearchAnalyzer.GRAM_SIZE + " 个字符");
+        }
+        int pageNumber = Math.max(page, 1);
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+        if ((long) pageNumber * pageSize > maxResultWindow) {
+            throw new CustomException("搜索结果最多翻到第 " + maxResultWindow + " 条，请缩小搜索范围");
+        }
+        Query query = buildQuery(keyword, field);
+        Lock lock = lifecycleLock.readLock();
+        lock.lock();
+        try {
+            SearcherManager manager = searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                TopFieldDocs top = searcher.search(query, pageNumber * pageSize, NEWEST_FIRST);
+                StoredFields storedFields = searcher.storedFields();
+                List<OrderSearchHit> hits = new ArrayList<>();
+                ScoreDoc[] scoreDocs = top.scoreDocs;
+                for (int i = (pageNumber - 1) * pageSize; i < scoreDocs.length; i++) {
+                    hits.add(toHit(storedFields.document(scoreDocs[i].doc)));
+                }
+                return new OrderSearchPage(hits, pageNumber, pageSize, top.totalHits.value,
+                        top.totalHits.relation == TotalHits.Relation.EQUAL_TO);
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("订单搜索失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     读取订单ID在 [fromId, toId] 范围内的全部索引文档（对账使用）
+     @return 订单ID -> 文档中保存的订单字段
+     */
+    public Map<Long, OrderSearchHit> findByIdRange(long fromId, long toId) {
+        Query query = LongPoint.newRangeQuery(ID_POINT, fromId, toId);
+        Lock lock = lifecycleLock.readLock();
+        lock.lock();
+        try {
+            SearcherManager manager = searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                Map<Long, OrderSearchHit> hits = new LinkedHashMap<>();
+                int count = searcher.count(query);
+                if (count == 0) {
+                    return hits;
+                }
+                TopDocs top = searcher.search(query, count);
+                StoredFields storedFields = searcher.storedFields();
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    OrderSearchHit hit = toHit(storedFields.document(scoreDoc.doc));
+                    hits.put(hit.getOrderId(), hit);
+                }
+                return hits;
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取订单索引失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     订单写入索引后搜索结果中的字段，用于与 findByIdRange 的结果比较
+     */
+    public static OrderSearchHit toHit(Order order, List<OrderItem> items) {
+        return toHit(toDocument(order, items));
+    }
+
+    /*
+     写入或替换订单的索引文档
+     @param order 订单
+     @param items 订单的全部订单项
+     */
+    public void upsert(Order order, List<OrderItem> items) {
+        try {
+            writer.updateDocument(idTerm(order.getOrderId()), toDocument(order, items));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入订单索引失败 orderId=" + order.getOrderId(), e);
+        }
+    }
+
+    // 重建时在清空后的索引中追加文档，不需要按ID删除旧文档
+    public void add(Order order, List<OrderItem> items) {
+        try {
+            writer.addDocument(toDocument(order, items));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入订单索引失败 orderId=" + order.getOrderId(), e);
+        }
+    }
+
+    public void delete(Long orderId) {
+        try {
+            writer.deleteDocuments(idTerm(orderId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除订单索引失败 orderId=" + orderId, e);
+        }
+    }
+
+    // 清空索引（重建前调用，提交前对搜索和磁盘上的索引都不可见）
+    public void deleteAll() {
+        try {
+            writer.deleteAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("清空订单索引失败", e);
+        }
+    }
+
+    // 将缓冲的写入落盘
+    public void commit() {
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("提交订单索引失败", e);
+        }
+    }
+
+    // 使已写入的变更对搜索可见
+    public void refresh() {
+        Lock lock = lifecycleLock.readLock();
+        lock.lock();
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("刷新订单索引失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     丢弃上次提交之后的全部写入（重建失败时使用），恢复到磁盘上已提交的索引
+     等待进行中的搜索结束后，先换上新打开的 IndexWriter / SearcherManager 再关闭旧的；
+     重新打开失败时旧的 SearcherManager 仍可搜索（内容为回滚前已刷新的索引）
+     */
+    public void rollback() {
+        Lock lock = lifecycleLock.writeLock();
+        lock.lock();
+        try {
+            // 回滚同时关闭旧的 IndexWriter，释放索引目录的写锁后才能打开新的
+            writer.rollback();
+            SearcherManager previous = searcherManager;
+            open();
+            previous.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("回滚订单索引失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 当前搜索可见的文档数
+    public int numDocs() {
+        Lock lock = lifecycleLock.readLock();
+        lock.lock();
+        try {
+            SearcherManager manager = searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                return searcher.getIndexReader().numDocs();
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取订单索引失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        Lock lock = lifecycleLock.writeLock();
+        lock.lock();
+        try {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        IndexWriter openedWriter = new IndexWriter(directory, config);
+        SearcherManager openedManager;
+        try {
+            openedManager = new SearcherManager(openedWriter, null);
+        } catch (IOException | RuntimeException e) {
+            openedWriter.close();
+            throw e;
+        }
+        writer = openedWriter;
+        searcherManager = openedManager;
+    }
+
+    private Query buildQuery(String keyword, String field) {
+        String target = field == null ? FIELD_ALL : field;
+        List<String> fields = switch (target) {
+            case FIELD_ALL -> List.of(FIELD_PRODUCT, FIELD_ADDRESS);
+            case FIELD_PRODUCT, FIELD_ADDRESS -> List.of(target);
+            default -> throw new CustomException("不支持的搜索字段: " + target);
+        };
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String name : fields) {
+            // 关键字的二元组按位置组成短语查询，即在字段中查找连续子串
+            Query phrase = queryBuilder.createPhraseQuery(name, keyword);
+            if (phrase != null) {
+                builder.add(phrase, BooleanClause.Occur.SHOULD);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Document toDocument(Order order, List<OrderItem> items) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(order.getOrderId()), Field.Store.YES));
+        document.add(new LongPoint(ID_POINT, order.getOrderId()));
+        document.add(new NumericDocValuesField(ID_SORT, order.getOrderId()));
+        document.add(new NumericDocValuesField(ORDER_DATE_SORT, order.getOrderDate() == null
+                ? Long.MIN_VALUE : order.getOrderDate().toEpochSecond(ZoneOffset.UTC)));
+        storeIfPresent(document, USER_ID, order.getUserId());
+        storeIfPresent(document, ORDER_STATUS, order.getOrderStatus());
+        storeIfPresent(document, PAYMENT_STATUS, order.getPaymentStatus());
+        storeIfPresent(document, TOTAL_AMOUNT, order.getTotalAmount() == null
+                ? null : order.getTotalAmount().toPlainString());
+        storeIfPresent(document, ORDER_DATE, order.getOrderDate());
+        if (order.getShippingAddress() != null) {
+            document.add(new TextField(FIELD_ADDRESS, order.getShippingAddress(), Field.Store.YES));
+        }
+        for (OrderItem item : items) {
+            if (item.getProductName() != null) {
+                document.add(new TextField(FIELD_PRODUCT, item.getProductName(), Field.Store.YES));
+            }
+        }
+        return document;
+    }
+
+    private static void storeIfPresent(Document document, String name, Object value) {
+        if (value != null) {
+            document.add(new StoredField(name, value.toString()));
+        }
+    }
+
+    private static OrderSearchHit toHit(Document document) {
+        String userId = document.get(USER_ID);
+        String totalAmount = document.get(TOTAL_AMOUNT);
+        String orderDate = document.get(ORDER_DATE);
+        return new OrderSearchHit(
+                Long.valueOf(document.get(ID)),
+                userId == null ? null : Long.valueOf(userId),
+                document.get(ORDER_STATUS),
+                document.get(PAYMENT_STATUS),
+                totalAmount == null ? null : new BigDecimal(totalAmount),
+                document.get(FIELD_ADDRESS),
+                orderDate == null ? null : LocalDateTime.parse(orderDate),
+                Arrays.stream(document.getValues(FIELD_PRODUCT)).filter(Objects::nonNull).toList());
+    }
+
+    private static Term idTerm(Long orderId) {
+        return new Term(ID, String.valueOf(orderId));
+    }
+}
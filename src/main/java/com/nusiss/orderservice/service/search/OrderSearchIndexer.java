@@ -0,0 +1,374 @@
+package com.nusiss.orderservice.service.search;
+
+import com.nusiss.orderservice.config.CustomException;
+import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dto.OrderSearchHit;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import com.nusiss.orderservice.service.event.OrderItemChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/*
+ OrderSearchIndexer - 维护订单搜索索引（OrderSearchIndex）
+ 订单、订单项提交后（见 OrderChangeEventBridge）只记录变更的订单ID，由定时任务批量从数据库读取订单及其订单项后写入索引，
+ 数据库中已不存在的订单从索引删除；每批写入后提交落盘并刷新搜索
+ 索引在每个实例的本地磁盘上各有一份，本实例写入产生的变更订单ID通过 Redis Topic 广播给其他实例；
+ 从 Topic 收到的订单ID单独缓冲，只写入本地索引、不再转发，避免在实例之间循环广播
+ 进程退出前未写入的变更、Topic 消息丢失都可能使索引落后：定时对账（order.search.reconcile-cron）逐批比较数据库与索引并修正差异，
+ 也可调用 rebuild 从数据库全量重建；启动时索引为空则自动重建（order.search.rebuild-on-empty）
+ */
+@Service
+@ConditionalOnProperty(name = "order.search.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderSearchIndexer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSearchIndexer.class);
+
+    private static final String CHANGE_TOPIC = "order-service:search-index-changes";
+
+    // 本实例标识，忽略 Topic 中自己发出的消息
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 本实例写入产生的变更，写入索引前广播
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    // 其他实例广播的变更，以及已广播但写入失败的变更，只写入本地索引
+    private final Set<Long> remotePending = ConcurrentHashMap.newKeySet();
+
+    // 增量写入、重建、对账互斥；重建期间增量写入跳过，变更留在缓冲区，重建完成后再写入
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-search-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final OrderSearchIndex index;
+
+    private final OrderRepository orderRepository;
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final RTopic topic;
+
+    private final int batchSize;
+
+    private final boolean rebuildOnEmpty;
+
+    private volatile boolean rebuilding;
+
+    @Autowired
+    public OrderSearchIndexer(OrderSearchIndex index,
+                              OrderRepository orderRepository,
+                              OrderItemRepository orderItemRepository,
+                              RedissonClient redissonClient,
+                              @Value("${order.search.batch-size:500}") int batchSize,
+                              @Value("${order.search.rebuild-on-empty:true}") boolean rebuildOnEmpty) {
+        this.index = index;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.topic = redissonClient.getTopic(CHANGE_TOPIC, StringCodec.INSTANCE);
+        this.batchSize = batchSize;
+        this.rebuildOnEmpty = rebuildOnEmpty;
+    }
+
+    // 订阅其他实例广播的变更订单ID，消息格式：实例标识|订单ID,订单ID,...
+    @PostConstruct
+    public void subscribe() {
+        try {
+            topic.addListener(String.class, (channel, message) -> {
+                int separator = message.indexOf('|');
+                if (separator < 0 || message.startsWith(instanceId + "|")) {
+                    return;
+                }
+                Arrays.stream(message.substring(separator + 1).split(","))
+                        .filter(id -> !id.isEmpty())
+                        .map(Long::valueOf)
+                        .forEach(remotePending::add);
+            });
+        } catch (RuntimeException e) {
+            log.warn("订单索引变更消息订阅失败，本实例只索引自己写入的订单: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (rebuildOnEmpty && index.numDocs() == 0) {
+            log.info("Order search index is empty, rebuilding from database");
+            startRebuild();
+        }
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getOrderId() != null) {
+            pending.add(event.getOrderId());
+        }
+    }
+
+    @EventListener
+    public void onOrderItemChanged(OrderItemChangedEvent event) {
+        if (event.getOrderId() != null) {
+            pending.add(event.getOrderId());
+        }
+    }
+
+    /*
+     将缓冲的变更写入索引：本实例的变更先广播给其他实例，再从数据库读取最新的订单与订单项；
+     写入失败的订单ID放回只写本地的缓冲区，重试时不再重复广播
+     */
+    @Scheduled(fixedDelayString = "${order.search.flush-interval-ms:1000}")
+    public void flush() {
+        if ((pending.isEmpty() && remotePending.isEmpty()) || !writeLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Long> local = drain(pending);
+            Set<Long> changed = new LinkedHashSet<>(local);
+            changed.addAll(drain(remotePending));
+            if (changed.isEmpty()) {
+                return;
+            }
+            if (!local.isEmpty()) {
+                broadcast(local);
+            }
+            List<Long> orderIds = new ArrayList<>(changed);
+            try {
+                for (int from = 0; from < orderIds.size(); from += batchSize) {
+                    reindex(orderIds.subList(from, Math.min(from + batchSize, orderIds.size())));
+                }
+                index.commit();
+                index.refresh();
+            } catch (RuntimeException e) {
+                log.warn("Failed to index {} changed orders, will retry", orderIds.size(), e);
+                remotePending.addAll(orderIds);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     在后台从数据库全量重建索引；重建完成前搜索仍使用旧索引
+     @throws CustomException 重建正在进行中
+     */
+    public void startRebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                throw new CustomException("订单索引重建正在进行中，请稍后重试");
+            }
+            rebuilding = true;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Order search index rebuild failed", e);
+            } finally {
+                rebuilding = false;
+            }
+        });
+    }
+
+    /*
+     按订单ID顺序分批读取全部订单及其订单项，写入清空后的索引，全部写入后一次提交
+     重建期间提交的变更留在缓冲区，重建完成后由增量写入补齐；失败时回滚到重建前的索引
+     @return 写入索引的订单数
+     */
+    public long rebuild() {
+        writeLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            long count = 0;
+            try {
+                index.deleteAll();
+                long lastOrderId = Long.MIN_VALUE;
+                while (true) {
+                    List<Order> orders = orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(lastOrderId,
+                            PageRequest.of(0, batchSize));
+                    if (orders.isEmpty()) {
+                        break;
+                    }
+                    Map<Long, List<OrderItem>> items = groupByOrder(orderItemRepository.findUncachedByOrderIdIn(
+                            orders.stream().map(Order::getOrderId).toList()));
+                    for (Order order : orders) {
+                        index.add(order, items.getOrDefault(order.getOrderId(), List.of()));
+                    }
+                    count += orders.size();
+                    lastOrderId = orders.get(orders.size() - 1).getOrderId();
+                }
+                index.commit();
+                index.refresh();
+            } catch (RuntimeException e) {
+                index.rollback();
+                throw e;
+            }
+            log.info("Rebuilt order search index with {} orders in {} ms", count,
+                    System.currentTimeMillis() - started);
+            return count;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     对账：按订单ID顺序分批读取订单及其订单项，与索引中同一ID范围的文档比较，
+     缺失或内容不同的订单重新写入，数据库中已不存在的订单从索引删除；有修正的批次提交并刷新
+     每批在写锁内读取并写入，与增量写入互斥，不阻塞搜索；重建进行中则跳过本次对账
+     @return 修正的文档数
+     */
+    @Scheduled(cron = "${order.search.reconcile-cron:0 0 4 * * *}")
+    public long reconcile() {
+        if (rebuilding) {
+            log.info("Order search index rebuild in progress, skip reconciliation");
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        long repaired = 0;
+        long lastOrderId = Long.MIN_VALUE;
+        boolean more = true;
+        try {
+            while (more) {
+                writeLock.lock();
+                try {
+                    List<Order> orders = orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(lastOrderId,
+                            PageRequest.of(0, batchSize));
+                    more = orders.size() == batchSize;
+                    // 最后一批的范围延伸到最大ID，覆盖数据库中已删除的最新订单
+                    long toId = more ? orders.get(orders.size() - 1).getOrderId() : Long.MAX_VALUE;
+                    repaired += reconcileBatch(orders, index.findByIdRange(lastOrderId + 1, toId));
+                    lastOrderId = toId;
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Order search index reconciliation stopped after order {}", lastOrderId, e);
+            return repaired;
+        }
+        log.info("Reconciled order search index, repaired {} documents in {} ms", repaired,
+                System.currentTimeMillis() - started);
+        return repaired;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    // 等待写入索引的变更订单数
+    public int getPendingCount() {
+        return pending.size() + remotePending.size();
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+        // 退出前写入已缓冲的变更
+        flush();
+    }
+
+    private void reindex(List<Long> orderIds) {
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        orderRepository.findAllById(orderIds).forEach(order -> orders.put(order.getOrderId(), order));
+        Map<Long, List<OrderItem>> items = orders.isEmpty()
+                ? Map.of() : groupByOrder(orderItemRepository.findByOrderIdIn(orders.keySet()));
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                index.delete(orderId);
+            } else {
+                index.upsert(order, items.getOrDefault(orderId, List.of()));
+            }
+        }
+    }
+
+    private int reconcileBatch(List<Order> orders, Map<Long, OrderSearchHit> indexed) {
+        Map<Long, List<OrderItem>> items = orders.isEmpty() ? Map.of() : groupByOrder(
+                orderItemRepository.findUncachedByOrderIdIn(orders.stream().map(Order::getOrderId).toList()));
+        // 与数据库中的订单逐一比对后剩下的即为数据库中已不存在的订单
+        Map<Long, OrderSearchHit> orphans = new HashMap<>(indexed);
+        int repaired = 0;
+        for (Order order : orders) {
+            List<OrderItem> orderItems = items.getOrDefault(order.getOrderId(), List.of());
+            if (!sameDocument(OrderSearchIndex.toHit(order, orderItems), orphans.remove(order.getOrderId()))) {
+                index.upsert(order, orderItems);
+                repaired++;
+            }
+        }
+        for (Long orderId : orphans.keySet()) {
+            index.delete(orderId);
+            repaired++;
+        }
+        if (repaired > 0) {
+            index.commit();
+            index.refresh();
+        }
+        return repaired;
+    }
+
+    // 商品名称的顺序取决于订单项的查询顺序，比较时忽略
+    private static boolean sameDocument(OrderSearchHit expected, OrderSearchHit indexed) {
+        return indexed != null && sortedProducts(expected).equals(sortedProducts(indexed));
+    }
+
+    private static OrderSearchHit sortedProducts(OrderSearchHit hit) {
+        return new OrderSearchHit(hit.getOrderId(), hit.getUserId(), hit.getOrderStatus(), hit.getPaymentStatus(),
+                hit.getTotalAmount(), hit.getShippingAddress(), hit.getOrderDate(),
+                hit.getProductNames().stream().sorted().toList());
+    }
+
+    private void broadcast(Collection<Long> orderIds) {
+        try {
+            topic.publish(instanceId + "|" + orderIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (RuntimeException e) {
+            log.warn("订单索引变更消息发送失败，其他实例的索引需重建后才能包含这些变更: {}", e.getMessage());
+        }
+    }
+
+    // 逐个移除缓冲区中的订单ID（移除期间新到的变更留到下一轮）
+    private static List<Long> drain(Set<Long> pending) {
+        List<Long> drained = new ArrayList<>();
+        for (Long orderId : new ArrayList<>(pending)) {
+            if (pending.remove(orderId)) {
+                drained.add(orderId);
+            }
+        }
+        return drained;
+    }
+
+    private static Map<Long, List<OrderItem>> groupByOrder(List<OrderItem> items) {
+        return items.stream().collect(Collectors.groupingBy(OrderItem::getOrderId));
+    }
+}
@@ -0,0 +1,44 @@
+package com.nusiss.orderservice.service.singleflight;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.Product;
+import com.nusiss.commonservice.feign.InventoryFeignClient;
+import com.nusiss.commonservice.feign.ProductFeignClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+ CoalescingReadClient - 对 common-service Feign 只读接口的 single-flight 包装
+ 热门商品被大量并发下单时，相同商品的 getProductById / getInventoryQuantity 同一时刻只发起一次远程调用
+ 与 TTL 缓存相互独立：只合并同时进行的调用，不返回任何历史结果
+ */
+@Component
+public class CoalescingReadClient {
+
+    private final ProductFeignClient productFeignClient;
+
+    private final InventoryFeignClient inventoryFeignClient;
+
+    private final SingleFlightGroup<Long, ApiResponse<Product>> productGroup;
+
+    private final SingleFlightGroup<Long, ApiResponse<Integer>> inventoryGroup;
+
+    @Autowired
+    public CoalescingReadClient(ProductFeignClient productFeignClient,
+                                InventoryFeignClient inventoryFeignClient,
+                                MeterRegistry meterRegistry) {
+        this.productFeignClient = productFeignClient;
+        this.inventoryFeignClient = inventoryFeignClient;
+        this.productGroup = new SingleFlightGroup<>("product", meterRegistry);
+        this.inventoryGroup = new SingleFlightGroup<>("inventory", meterRegistry);
+    }
+
+    public ApiResponse<Product> getProductById(Long productId) {
+        return productGroup.execute(productId, () -> productFeignClient.getProductById(productId));
+    }
+
+    public ApiResponse<Integer> getInventoryQuantity(Long productId) {
+        return inventoryGroup.execute(productId, () -> inventoryFeignClient.getInventoryQuantity(productId));
+    }
+}
@@ -0,0 +1,87 @@
+package com.nusiss.orderservice.service.singleflight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ SingleFlightGroup - 合并同一时刻对相同 key 的重复调用
+ 第一个调用方（leader）执行加载，其余并发调用方共享同一个 future 的结果（包括异常）
+ 调用结束后立即移除，不缓存任何结果，因此对不允许返回过期数据的场景也是安全的
+ 指标：order.singleflight.calls{name, role=leader|shared}，以及合并率 order.singleflight.collapse.ratio{name}
+ */
+public class SingleFlightGroup<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaderCounter;
+
+    private final Counter sharedCounter;
+
+    public SingleFlightGroup(String name, MeterRegistry meterRegistry) {
+        this.leaderCounter = meterRegistry.counter("order.singleflight.calls", "name", name, "role", "leader");
+        this.sharedCounter = meterRegistry.counter("order.singleflight.calls", "name", name, "role", "shared");
+        Gauge.builder("order.singleflight.collapse.ratio", this, SingleFlightGroup::collapseRatio)
+                .tag("name", name)
+                .description("被合并的调用占全部调用的比例")
+                .register(meterRegistry);
+    }
+
+    /*
+     执行加载，相同 key 的并发调用只会触发一次 loader
+     @param key    调用参数
+     @param loader 实际的远程调用
+     @return 加载结果
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            sharedCounter.increment();
+            return await(existing);
+        }
+
+        leaderCounter.increment();
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    // 当前正在进行中的调用数量
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // 与 leader 抛出相同的异常，调用方无需区分是否被合并
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private double collapseRatio() {
+        double shared = sharedCounter.count();
+        double total = shared + leaderCounter.count();
+        return total == 0 ? 0 : shared / total;
+    }
+}
@@ -0,0 +1,30 @@
+package com.nusiss.orderservice.service.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/*
+ UserOrderStats - 用户订单统计：订单总数、各状态订单数、最近一笔订单的状态
+ */
+@Getter
+@AllArgsConstructor
+public class UserOrderStats {
+
+    private final long total;
+
+    private final Map<String, Long> statusCounts;
+
+    // 最近一笔订单（按创建时间），没有订单时为 null
+    private final Long latestOrderId;
+
+    private final String latestStatus;
+
+    // 最近一笔订单的创建时间（毫秒），用于增量更新时判断新订单是否更新
+    private final long latestAt;
+
+    public long countOf(String status) {
+        return statusCounts.getOrDefault(status, 0L);
+    }
+}
@@ -0,0 +1,265 @@
+package com.nusiss.orderservice.service.stats;
+
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/*
+ UserOrderStatsService - 按用户预计算的订单统计（供 ChatBox 接口使用）
+ 每个用户一个 Redis hash：total、s:<状态> 计数、最近订单的 ID / 状态 / 创建时间
+ 读取时 hash 不存在则从数据库按用户聚合一次并写入 Redis；之后由订单提交事件增量维护，读取为 O(1)
+ 增量更新只作用于已存在的 hash；hash 不存在时写入短期 dirty 标记，
+ 阻止并发的重建把提交前读到的旧数据写入 Redis
+ Redis 不可用时直接查询数据库
+ */
+@Service
+public class UserOrderStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserOrderStatsService.class);
+
+    private static final String KEY_PREFIX = "order-service:user-stats:";
+
+    private static final String STATUS_PREFIX = "s:";
+
+    // 增量更新：KEYS = [统计hash, dirty标记]；ARGV = [类型 C/U/D, 订单ID, 原状态, 新状态, 创建时间毫秒, TTL 秒, dirty TTL 毫秒]
+    private static final String APPLY_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then " +
+            "  redis.call('SET', KEYS[2], '1', 'PX', ARGV[7]) return 0 " +
+            "end " +
+            "if ARGV[1] == 'C' then " +
+            "  redis.call('HINCRBY', KEYS[1], 'total', 1) " +
+            "  redis.call('HINCRBY', KEYS[1], 's:' .. ARGV[4], 1) " +
+            "  local at = tonumber(redis.call('HGET', KEYS[1], 'latestAt') or '-1') " +
+            "  local id = tonumber(redis.call('HGET', KEYS[1], 'latestId') or '-1') " +
+            "  local ts = tonumber(ARGV[5]) " +
+            "  if ts > at or (ts == at and tonumber(ARGV[2]) > id) then " +
+            "    redis.call('HSET', KEYS[1], 'latestId', ARGV[2], 'latestStatus', ARGV[4], 'latestAt', ARGV[5]) " +
+            "  end " +
+            "elseif ARGV[1] == 'U' then " +
+            "  if ARGV[3] ~= ARGV[4] then " +
+            "    redis.call('HINCRBY', KEYS[1], 's:' .. ARGV[3], -1) " +
+            "    redis.call('HINCRBY', KEYS[1], 's:' .. ARGV[4], 1) " +
+            "    if redis.call('HGET', KEYS[1], 'latestId') == ARGV[2] then " +
+            "      redis.call('HSET', KEYS[1], 'latestStatus', ARGV[4]) " +
+            "    end " +
+            "  end " +
+            "else " +
+            "  if redis.call('HGET', KEYS[1], 'latestId') == ARGV[2] then redis.call('DEL', KEYS[1]) return 1 end " +
+            "  redis.call('HINCRBY', KEYS[1], 'total', -1) " +
+            "  redis.call('HINCRBY', KEYS[1], 's:' .. ARGV[3], -1) " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[6]) " +
+            "return 1";
+
+    // 写入重建结果：KEYS = [统计hash, dirty标记]；ARGV = [TTL 秒, field, value, ...]
+    // 已存在（已被增量维护）或存在 dirty 标记时不写入
+    private static final String LOAD_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 1 or redis.call('EXISTS', KEYS[2]) == 1 then return 0 end " +
+            "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1";
+
+    // 失效：KEYS = [统计hash, dirty标记]；ARGV = [dirty TTL 毫秒]
+    private static final String INVALIDATE_SCRIPT =
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('SET', KEYS[2], '1', 'PX', ARGV[1]) " +
+            "return 1";
+
+    private final RedissonClient redissonClient;
+
+    private final OrderRepository orderRepository;
+
+    private final boolean enabled;
+
+    private final long ttlSeconds;
+
+    private final long dirtyTtlMs;
+
+    @Autowired
+    public UserOrderStatsService(RedissonClient redissonClient,
+                                 OrderRepository orderRepository,
+                                 @Value("${order.stats.enabled:true}") boolean enabled,
+                                 @Value("${order.stats.ttl-seconds:86400}") long ttlSeconds,
+                                 @Value("${order.stats.dirty-ttl-ms:5000}") long dirtyTtlMs) {
+        this.redissonClient = redissonClient;
+        this.orderRepository = orderRepository;
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.dirtyTtlMs = dirtyTtlMs;
+    }
+
+    /*
+     获取用户订单统计，优先读取 Redis，缺失时从数据库重建
+     */
+    public UserOrderStats getStats(Long userId) {
+        if (!enabled) {
+            return loadFromDatabase(userId);
+        }
+        try {
+            Map<String, String> cached = redissonClient.<String, String>getMap(key(userId), StringCodec.INSTANCE)
+                    .readAllMap();
+            if (!cached.isEmpty()) {
+                return fromHash(cached);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to read order stats of user {} from Redis, falling back to database", userId, e);
+            return loadFromDatabase(userId);
+        }
+        UserOrderStats stats = loadFromDatabase(userId);
+        cache(userId, stats);
+        return stats;
+    }
+
+    /*
+     丢弃缓存的统计并从数据库重建
+     */
+    public UserOrderStats rebuild(Long userId) {
+        if (enabled) {
+            try {
+                redissonClient.getKeys().delete(key(userId), dirtyKey(userId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to clear order stats of user {}", userId, e);
+            }
+        }
+        return getStats(userId);
+    }
+
+    /*
+     订单提交后增量更新统计，失败时删除该用户的统计，下次读取时重建
+     */
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!enabled || event.getUserId() == null) {
+            return;
+        }
+        Long userId = event.getUserId();
+        try {
+            if (!event.isPreviousKnown()
+                    || (event.getPreviousUserId() != null && !event.getPreviousUserId().equals(userId))) {
+                // 无法确定增量（或订单换了用户）时让相关用户的统计失效
+                invalidate(userId);
+                if (event.getPreviousUserId() != null) {
+                    invalidate(event.getPreviousUserId());
+                }
+                return;
+            }
+            String type = switch (event.getType()) {
+                case CREATED -> "C";
+                case UPDATED -> "U";
+                case DELETED -> "D";
+            };
+            Order order = event.getOrder();
+            eval(APPLY_SCRIPT, userId, List.of(type, String.valueOf(order.getOrderId()),
+                    Objects.toString(event.getPreviousStatus(), ""), Objects.toString(order.getOrderStatus(), ""),
+                    String.valueOf(toEpochMilli(order.getCreateDatetime())), String.valueOf(ttlSeconds),
+                    String.valueOf(dirtyTtlMs)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to update order stats of user {}, invalidating", userId, e);
+            invalidate(userId);
+        }
+    }
+
+    private void invalidate(Long userId) {
+        try {
+            eval(INVALIDATE_SCRIPT, userId, List.of(String.valueOf(dirtyTtlMs)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to invalidate order stats of user {}", userId, e);
+        }
+    }
+
+    private UserOrderStats loadFromDatabase(Long userId) {
+        Map<String, Long> counts = new HashMap<>();
+        long total = 0;
+        for (Object[] row : orderRepository.countByStatusForUser(userId)) {
+            long count = ((Number) row[1]).longValue();
+            total += count;
+            if (row[0] != null) {
+                counts.put((String) row[0], count);
+            }
+        }
+        Optional<Order> latest = total == 0 ? Optional.empty()
+                : orderRepository.findFirstByUserIdOrderByCreateDatetimeDescOrderIdDesc(userId);
+        return new UserOrderStats(total, counts,
+                latest.map(Order::getOrderId).orElse(null),
+                latest.map(Order::getOrderStatus).orElse(null),
+                latest.map(order -> toEpochMilli(order.getCreateDatetime())).orElse(0L));
+    }
+
+    private void cache(Long userId, UserOrderStats stats) {
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(ttlSeconds));
+        args.add("total");
+        args.add(String.valueOf(stats.getTotal()));
+        stats.getStatusCounts().forEach((status, count) -> {
+            args.add(STATUS_PREFIX + status);
+            args.add(String.valueOf(count));
+        });
+        if (stats.getLatestOrderId() != null) {
+            args.add("latestId");
+            args.add(String.valueOf(stats.getLatestOrderId()));
+            args.add("latestStatus");
+            args.add(Objects.toString(stats.getLatestStatus(), ""));
+            args.add("latestAt");
+            args.add(String.valueOf(stats.getLatestAt()));
+        }
+        try {
+            eval(LOAD_SCRIPT, userId, args);
+        } catch (RuntimeException e) {
+            log.warn("Failed to cache order stats of user {}", userId, e);
+        }
+    }
+
+    private void eval(String script, Long userId, List<Object> args) {
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, script,
+                RScript.ReturnType.INTEGER, List.of(key(userId), dirtyKey(userId)), args.toArray());
+    }
+
+    private static UserOrderStats fromHash(Map<String, String> hash) {
+        Map<String, Long> counts = new HashMap<>();
+        hash.forEach((field, value) -> {
+            if (field.startsWith(STATUS_PREFIX) && field.length() > STATUS_PREFIX.length()) {
+                long count = Long.parseLong(value);
+                if (count > 0) {
+                    counts.put(field.substring(STATUS_PREFIX.length()), count);
+                }
+            }
+        });
+        String latestId = hash.get("latestId");
+        String latestStatus = hash.get("latestStatus");
+        return new UserOrderStats(Long.parseLong(hash.getOrDefault("total", "0")), counts,
+                latestId == null ? null : Long.valueOf(latestId),
+                latestStatus == null || latestStatus.isEmpty() ? null : latestStatus,
+                Long.parseLong(hash.getOrDefault("latestAt", "0")));
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime == null ? 0L : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // 同一用户的键使用相同的 hash tag，保证脚本在 Redis Cluster 下落在同一个 slot
+    private static String key(Long userId) {
+        return KEY_PREFIX + "{" + userId + "}";
+    }
+
+    private static String dirtyKey(Long userId) {
+        return KEY_PREFIX + "{" + userId + "}:dirty";
+    }
+}
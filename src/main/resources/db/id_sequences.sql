@@ -0,0 +1,18 @@
+-- 主键序列表（MySQL 没有原生序列，Hibernate 使用单行表模拟序列，见 IdSequenceInitializer）
+-- 每张表只有一行，next_val 为下一次分配的起点；Hibernate 每次取号将其增加 allocationSize（50）
+-- 部署新版本前执行；已有数据时由 IdSequenceInitializer 在启动时推进到现有最大主键之后
+
+CREATE TABLE IF NOT EXISTS orders_seq (next_val BIGINT NOT NULL) ENGINE = InnoDB;
+INSERT INTO orders_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM orders_seq);
+
+CREATE TABLE IF NOT EXISTS order_items_seq (next_val BIGINT NOT NULL) ENGINE = InnoDB;
+INSERT INTO order_items_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM order_items_seq);
+
+CREATE TABLE IF NOT EXISTS order_payments_seq (next_val BIGINT NOT NULL) ENGINE = InnoDB;
+INSERT INTO order_payments_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM order_payments_seq);
+
+CREATE TABLE IF NOT EXISTS order_shipments_seq (next_val BIGINT NOT NULL) ENGINE = InnoDB;
+INSERT INTO order_shipments_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM order_shipments_seq);
+
+CREATE TABLE IF NOT EXISTS order_outbox_seq (next_val BIGINT NOT NULL) ENGINE = InnoDB;
+INSERT INTO order_outbox_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM order_outbox_seq);
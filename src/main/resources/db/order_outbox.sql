@@ -0,0 +1,21 @@
+-- outbox 事件表（见 OrderOutboxEvent、OrderOutboxRelay），主键序列见 id_sequences.sql
+-- 部署新版本前执行；已有表时执行文件末尾的 ALTER 补充 lease_owner 列
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    event_id        BIGINT       NOT NULL,
+    order_id        BIGINT       NULL,
+    event_type      VARCHAR(64)  NULL,
+    payload         TEXT         NULL,
+    status          VARCHAR(20)  NULL,
+    attempts        INT          NULL,
+    next_attempt_at DATETIME(6)  NULL,
+    lease_owner     VARCHAR(64)  NULL,
+    last_error      VARCHAR(500) NULL,
+    create_datetime DATETIME(6)  NULL,
+    update_datetime DATETIME(6)  NULL,
+    PRIMARY KEY (event_id),
+    KEY idx_order_outbox_status_next (status, next_attempt_at),
+    KEY idx_order_outbox_order (order_id)
+) ENGINE = InnoDB;
+
+-- ALTER TABLE order_outbox ADD COLUMN lease_owner VARCHAR(64) NULL AFTER next_attempt_at;
@@ -0,0 +1,16 @@
+-- 支付记录筛选（OrderPaymentSpecifications）对 payment_status、payment_method 做等值比较，
+-- 依靠列的大小写不敏感排序规则（*_ci，MySQL 8 默认 utf8mb4_0900_ai_ci）忽略大小写并使用索引
+-- 表或库的默认排序规则被改为 *_bin / *_cs 时，筛选会变成大小写敏感
+
+-- 检查：应返回 0 行
+SELECT column_name, collation_name
+FROM information_schema.columns
+WHERE table_schema = DATABASE()
+  AND table_name = 'order_payments'
+  AND column_name IN ('payment_status', 'payment_method')
+  AND collation_name NOT LIKE '%\_ci';
+
+-- 有返回行时执行（会重建相关索引，低峰期执行）：
+-- ALTER TABLE order_payments
+--     MODIFY payment_status VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL,
+--     MODIFY payment_method VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL;
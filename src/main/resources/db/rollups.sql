@@ -0,0 +1,31 @@
+-- 订单 / 支付汇总表（见 OrderRollup、PaymentRollup、OrderRollupService）
+-- 部署新版本前执行；表已存在且 amount_paid 为 DOUBLE 时执行文件末尾的 ALTER，再对历史日期执行 backfill
+
+CREATE TABLE IF NOT EXISTS order_rollups (
+    granularity    VARCHAR(8)     NOT NULL,
+    bucket_start   DATETIME(6)    NOT NULL,
+    order_status   VARCHAR(32)    NOT NULL,
+    payment_status VARCHAR(32)    NOT NULL,
+    order_count    BIGINT         NOT NULL DEFAULT 0,
+    total_amount   DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, order_status, payment_status)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS payment_rollups (
+    granularity    VARCHAR(8)     NOT NULL,
+    bucket_start   DATETIME(6)    NOT NULL,
+    payment_method VARCHAR(32)    NOT NULL,
+    payment_status VARCHAR(32)    NOT NULL,
+    payment_count  BIGINT         NOT NULL DEFAULT 0,
+    amount_paid    DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, payment_method, payment_status)
+) ENGINE = InnoDB;
+
+-- 每天汇总最近一次重算的时间：早于该时间产生的增量已包含在重算结果中，写入时丢弃
+CREATE TABLE IF NOT EXISTS rollup_fences (
+    bucket_date DATE        NOT NULL,
+    rebuilt_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (bucket_date)
+) ENGINE = InnoDB;
+
+-- ALTER TABLE payment_rollups MODIFY amount_paid DECIMAL(19, 2) NOT NULL DEFAULT 0;
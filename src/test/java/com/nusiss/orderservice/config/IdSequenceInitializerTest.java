@@ -0,0 +1,53 @@
+package com.nusiss.orderservice.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：IdSequenceInitializer
+ */
+class IdSequenceInitializerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private IdSequenceInitializer initializer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testAdvancesEverySequence() {
+        when(jdbcTemplate.update(anyString())).thenReturn(1);
+
+        initializer.afterSingletonsInstantiated();
+
+        verify(jdbcTemplate, times(5)).update(anyString());
+    }
+
+    @Test
+    void testFailsStartupWhenSequenceTableMissing() {
+        when(jdbcTemplate.update(anyString())).thenThrow(new DataAccessResourceFailureException("no table"));
+
+        assertThrows(IllegalStateException.class, () -> initializer.afterSingletonsInstantiated());
+    }
+
+    @Test
+    void testFailsStartupWhenSequenceRowMissing() {
+        when(jdbcTemplate.update(anyString())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> initializer.afterSingletonsInstantiated());
+    }
+}
@@ -0,0 +1,44 @@
+package com.nusiss.orderservice.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：SecondLevelCacheEndpoint
+ */
+class SecondLevelCacheEndpointTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStatistics_reportsHitRatioPerRegion() {
+        Statistics statistics = mock(Statistics.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.isStatisticsEnabled()).thenReturn(true);
+        when(statistics.getSecondLevelCacheHitCount()).thenReturn(9L);
+        when(statistics.getSecondLevelCacheMissCount()).thenReturn(1L);
+        String region = "order-service.com.nusiss.orderservice.entity.Order";
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[]{region});
+        CacheRegionStatistics regionStatistics = mock(CacheRegionStatistics.class);
+        when(regionStatistics.getHitCount()).thenReturn(3L);
+        when(regionStatistics.getMissCount()).thenReturn(1L);
+        when(statistics.getCacheRegionStatistics(region)).thenReturn(regionStatistics);
+
+        Map<String, Object> result = new SecondLevelCacheEndpoint(entityManagerFactory).statistics();
+
+        assertEquals(0.9, (Double) ((Map<String, Object>) result.get("secondLevel")).get("hitRatio"), 1e-9);
+        assertEquals(0.0, (Double) ((Map<String, Object>) result.get("queryCache")).get("hitRatio"));
+        Map<String, Object> regions = (Map<String, Object>) result.get("regions");
+        assertEquals(0.75, (Double) ((Map<String, Object>) regions.get(region)).get("hitRatio"), 1e-9);
+    }
+}
@@ -0,0 +1,146 @@
+package com.nusiss.orderservice.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：ReadWriteRoutingDataSource / ReplicaSet
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String PREFIX = "com.nusiss.orderservice.service.";
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ResultSet lagResult;
+    private ReplicaSet replicaSet;
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        Statement statement = mock(Statement.class);
+        lagResult = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lagResult);
+        when(lagResult.next()).thenReturn(true);
+        when(lagResult.getLong("Seconds_Behind_Source")).thenReturn(0L);
+
+        replicaSet = new ReplicaSet(Map.of("replica-0", replica), 1L);
+        replicaSet.checkLag();
+        routing = new ReadWriteRoutingDataSource(primary, replicaSet, PREFIX);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void testServiceReadOnlyTransaction_usesReplica() throws SQLException {
+        beginTransaction(PREFIX + "impl.OrderServiceImpl.getAllOrders", true);
+
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void testRepositoryReadOnlyAndWriteTransactions_usePrimary() throws SQLException {
+        beginTransaction("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true);
+        assertSame(primaryConnection, routing.getConnection());
+
+        beginTransaction(PREFIX + "impl.OrderServiceImpl.updateOrder", false);
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void testOnPrimary_overridesReadOnlyRouting() throws SQLException {
+        beginTransaction(PREFIX + "impl.OrderServiceImpl.getOrderDetail", true);
+
+        Connection connection = ReadRouting.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(primaryConnection, connection);
+    }
+
+    @Test
+    void testLaggingReplica_fallsBackToPrimaryUntilCaughtUp() throws SQLException {
+        beginTransaction(PREFIX + "impl.OrderServiceImpl.getAllOrders", true);
+        when(lagResult.getLong("Seconds_Behind_Source")).thenReturn(5L);
+        replicaSet.checkLag();
+        assertSame(primaryConnection, routing.getConnection());
+
+        when(lagResult.getLong("Seconds_Behind_Source")).thenReturn(0L);
+        replicaSet.checkLag();
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void testReplicaConnectionFailure_marksDownAndUsesPrimary() throws SQLException {
+        beginTransaction(PREFIX + "impl.OrderServiceImpl.getAllOrders", true);
+        when(replica.getConnection()).thenThrow(new SQLException("refused"));
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertNull(replicaSet.pick());
+    }
+
+    @Test
+    void testLegacyReplica_fallsBackToShowSlaveStatus() throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet legacyResult = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenThrow(new SQLException("syntax error", "42000", 1064));
+        when(statement.executeQuery("SHOW SLAVE STATUS")).thenReturn(legacyResult);
+        when(legacyResult.next()).thenReturn(true);
+        when(legacyResult.getLong("Seconds_Behind_Master")).thenReturn(0L);
+        ReplicaSet legacy = new ReplicaSet(Map.of("replica-0", replica), 1L);
+
+        legacy.checkLag();
+        legacy.checkLag();
+
+        assertEquals("replica-0", legacy.pick());
+        verify(statement, times(1)).executeQuery("SHOW REPLICA STATUS");
+        verify(statement, times(2)).executeQuery("SHOW SLAVE STATUS");
+    }
+
+    @Test
+    void testLagQueryUnsupported_keepsReplicaDown() throws SQLException {
+        Statement statement = mock(Statement.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenThrow(new SQLException("access denied", "42000", 1227));
+        ReplicaSet unsupported = new ReplicaSet(Map.of("replica-0", replica), 1L);
+
+        unsupported.checkLag();
+
+        assertNull(unsupported.pick());
+    }
+
+    private void beginTransaction(String name, boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionName(name);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
@@ -1,38 +1,37 @@
 package com.nusiss.orderservice.controller;
 
-import com.nusiss.orderservice.dao.OrderRepository;
-import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.config.InternalEndpointGuard;
+import com.nusiss.orderservice.service.stats.UserOrderStats;
+import com.nusiss.orderservice.service.stats.UserOrderStatsService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.containsString;
 
 @WebMvcTest(OrderChatController.class)
+@TestPropertySource(properties = "order.internal.token=test-token")
 public class OrderChatControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
-    private OrderRepository orderRepository;
+    private UserOrderStatsService userOrderStatsService;
 
     @Test
     void testGetLatestOrderStatus_hasOrder() throws Exception {
-        Order order = new Order();
-        order.setOrderStatus("COMPLETED");
-        order.setCreateDatetime(LocalDateTime.now());
-
-        Mockito.when(orderRepository.findByUserIdOrderByCreateDatetimeDesc(1L))
-                .thenReturn(List.of(order));
+        Mockito.when(userOrderStatsService.getStats(1L))
+                .thenReturn(new UserOrderStats(1, Map.of("COMPLETED", 1L), 10L, "COMPLETED", 0L));
 
         mockMvc.perform(get("/api/chat/order/latest-status").param("userId", "1"))
                 .andExpect(status().isOk())
@@ -41,8 +40,8 @@ public class OrderChatControllerTest {
 
     @Test
     void testGetLatestOrderStatus_noOrder() throws Exception {
-        Mockito.when(orderRepository.findByUserIdOrderByCreateDatetimeDesc(2L))
-                .thenReturn(List.of());
+        Mockito.when(userOrderStatsService.getStats(2L))
+                .thenReturn(new UserOrderStats(0, Map.of(), null, null, 0L));
 
         mockMvc.perform(get("/api/chat/order/latest-status").param("userId", "2"))
                 .andExpect(status().isOk())
@@ -51,8 +50,8 @@ public class OrderChatControllerTest {
 
     @Test
     void testGetUnpaidOrderCount() throws Exception {
-        Mockito.when(orderRepository.countByUserIdAndOrderStatus(1L, "UNPAID"))
-                .thenReturn(3);
+        Mockito.when(userOrderStatsService.getStats(1L))
+                .thenReturn(new UserOrderStats(5, Map.of("UNPAID", 3L, "PAID", 2L), 10L, "UNPAID", 0L));
 
         mockMvc.perform(get("/api/chat/order/unpaid-count").param("userId", "1"))
                 .andExpect(status().isOk())
@@ -61,11 +60,30 @@ public class OrderChatControllerTest {
 
     @Test
     void testGetOrderStatistics() throws Exception {
-        Mockito.when(orderRepository.countByUserId(1L)).thenReturn(10);
-        Mockito.when(orderRepository.countByUserIdAndOrderStatus(1L, "COMPLETED")).thenReturn(6);
+        Mockito.when(userOrderStatsService.getStats(1L))
+                .thenReturn(new UserOrderStats(10, Map.of("COMPLETED", 6L, "PAID", 4L), 10L, "PAID", 0L));
 
         mockMvc.perform(get("/api/chat/order/statistics").param("userId", "1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.parts[0].text").value(containsString("您共下单 10 次，其中已完成 6 个订单")));
     }
+
+    @Test
+    void testRebuildOrderStatistics() throws Exception {
+        Mockito.when(userOrderStatsService.rebuild(1L))
+                .thenReturn(new UserOrderStats(4, Map.of("PAID", 4L), 10L, "PAID", 0L));
+
+        mockMvc.perform(post("/api/chat/order/statistics/rebuild").param("userId", "1")
+                        .header(InternalEndpointGuard.TOKEN_HEADER, "test-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parts[0].text").value(containsString("共 4 个订单")));
+    }
+
+    @Test
+    void testRebuildOrderStatistics_requiresInternalToken() throws Exception {
+        mockMvc.perform(post("/api/chat/order/statistics/rebuild").param("userId", "1"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(userOrderStatsService);
+    }
 }
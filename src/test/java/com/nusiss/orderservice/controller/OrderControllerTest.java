@@ -2,11 +2,14 @@ package com.nusiss.orderservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.nusiss.orderservice.config.IdempotencyConflictException;
 import com.nusiss.orderservice.dto.CreateOrderFromCartRequest;
 import com.nusiss.orderservice.dto.DirectOrderRequest;
+import com.nusiss.orderservice.dto.OrderDetailResponse;
 
 import com.nusiss.orderservice.entity.Order;
 import com.nusiss.orderservice.service.OrderService;
+import com.nusiss.orderservice.service.idempotency.IdempotentOrderExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -16,12 +19,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +47,9 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private IdempotentOrderExecutor idempotentOrderExecutor;
+
     private ObjectMapper objectMapper;
     private Order mockOrder;
 
@@ -49,6 +64,10 @@ class OrderControllerTest {
         mockOrder.setTotalAmount(BigDecimal.valueOf(100));
         mockOrder.setOrderStatus("CREATED");
         mockOrder.setCreateDatetime(LocalDateTime.now());
+
+        // 幂等执行器直接执行下单流程
+        Mockito.when(idempotentOrderExecutor.execute(any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Order>>getArgument(3).get());
     }
 
     @Test
@@ -70,6 +89,106 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.data.orderId", is(1)));
     }
 
+    @Test
+    void testCreateDirectOrder_passesIdempotencyKey() throws Exception {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        Mockito.when(orderService.createDirectOrder(any())).thenReturn(mockOrder);
+
+        mockMvc.perform(post("/orders/direct")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orderId", is(1)));
+
+        Mockito.verify(idempotentOrderExecutor).execute(Mockito.eq("direct"), Mockito.eq(100L),
+                Mockito.eq("retry-1"), any());
+    }
+
+    @Test
+    void testCreateDirectOrder_duplicateInFlightReturnsConflict() throws Exception {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+
+        Mockito.doThrow(new IdempotencyConflictException("相同的下单请求正在处理中，请稍后重试"))
+                .when(idempotentOrderExecutor).execute(any(), any(), any(), any());
+
+        mockMvc.perform(post("/orders/direct")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
+    @Test
+    void testAcceptDirectOrder() throws Exception {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        Mockito.when(orderService.acceptDirectOrder(any())).thenReturn(1L);
+
+        mockMvc.perform(post("/orders/direct/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data", is(1)));
+    }
+
+    @Test
+    void testAcceptOrderFromCart() throws Exception {
+        CreateOrderFromCartRequest request = new CreateOrderFromCartRequest();
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        Mockito.when(orderService.acceptOrderFromCart(any())).thenReturn(2L);
+
+        mockMvc.perform(post("/orders/fromCart/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data", is(2)));
+    }
+
+    @Test
+    void testGetOrderStatus_processing() throws Exception {
+        mockOrder.setPaymentStatus("UNPAID");
+        Mockito.when(orderService.getOrderById(1L)).thenReturn(Optional.of(mockOrder));
+
+        mockMvc.perform(get("/orders/1/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orderStatus", is("CREATED")))
+                .andExpect(jsonPath("$.data.processing", is(true)));
+    }
+
+    @Test
+    void testGetOrdersByIds() throws Exception {
+        Mockito.when(orderService.getOrdersByIds(List.of(1L, 2L))).thenReturn(Map.of(1L, mockOrder));
+
+        mockMvc.perform(get("/orders/batch").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['1'].orderId", is(1)))
+                .andExpect(jsonPath("$.data['2']").doesNotExist());
+    }
+
+    @Test
+    void testGetOrderStatus_notFound() throws Exception {
+        Mockito.when(orderService.getOrderById(9L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/orders/9/status"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreateOrderWithFaceRecognition() throws Exception {
         MockMultipartFile faceImage = new MockMultipartFile("faceImage", "face.jpg", "image/jpeg", new byte[]{1, 2, 3});
@@ -204,5 +323,96 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.message", containsString("订单不存在")));
     }
 
+    private void stubStreamAllOrders(Order... orders) {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Order> consumer = invocation.getArgument(0);
+            for (Order order : orders) {
+                consumer.accept(order);
+            }
+            return null;
+        }).when(orderService).streamAllOrders(any());
+    }
+
+    @Test
+    void testExportOrders_writesOneJsonLinePerOrder() throws Exception {
+        Order second = new Order();
+        second.setOrderId(2L);
+        stubStreamAllOrders(mockOrder, second);
 
+        MvcResult result = mockMvc.perform(get("/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("orderId").asLong());
+        Mockito.verify(orderService, Mockito.never()).getAllOrders();
+    }
+
+    @Test
+    void testExportOrders_gzipWhenAccepted() throws Exception {
+        stubStreamAllOrders(mockOrder);
+
+        MvcResult result = mockMvc.perform(get("/orders/export").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(1L, objectMapper.readTree(body.trim()).get("orderId").asLong());
+        }
+    }
+
+    @Test
+    void testExportOrders_gzipRefusedByQualityZero() throws Exception {
+        stubStreamAllOrders(mockOrder);
+
+        MvcResult result = mockMvc.perform(get("/orders/export").header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        assertEquals(1L, objectMapper.readTree(result.getResponse().getContentAsString().trim())
+                .get("orderId").asLong());
+    }
+
+    @Test
+    void testAcceptsGzip_parsesQualityValues() {
+        assertTrue(OrderController.acceptsGzip("gzip"));
+        assertTrue(OrderController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(OrderController.acceptsGzip("*"));
+        assertFalse(OrderController.acceptsGzip("gzip;q=0"));
+        assertFalse(OrderController.acceptsGzip("gzip; q=0.0, *;q=1"));
+        assertFalse(OrderController.acceptsGzip("deflate, br"));
+        assertFalse(OrderController.acceptsGzip(null));
+    }
+
+    @Test
+    void testGetOrderDetail() throws Exception {
+        OrderDetailResponse detail = OrderDetailResponse.of(mockOrder, List.of(), List.of(), null);
+        Mockito.when(orderService.getOrderDetail(1L)).thenReturn(Optional.of(detail));
+
+        mockMvc.perform(get("/orders/1/detail"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orderId").value(1))
+                .andExpect(jsonPath("$.data.items").isArray());
+    }
+
+    @Test
+    void testGetOrderDetail_notFound() throws Exception {
+        Mockito.when(orderService.getOrderDetail(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/orders/99/detail"))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -14,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -42,6 +43,17 @@ public class OrderItemControllerTest {
                 .andExpect(jsonPath("$.success").value(true));
     }
 
+    @Test
+    void testGetItemsByOrderIds() throws Exception {
+        when(orderItemService.getItemsByOrderIds(List.of(1L, 2L)))
+                .thenReturn(Map.of(1L, List.of(new OrderItem()), 2L, List.of()));
+
+        mockMvc.perform(get("/order-items/by-orders").param("orderIds", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['1'].length()").value(1))
+                .andExpect(jsonPath("$.data['2'].length()").value(0));
+    }
+
     @Test
     void testUpdateItem_Success() throws Exception {
         OrderItem item = new OrderItem();
@@ -150,4 +162,22 @@ public class OrderItemControllerTest {
                 .andExpect(jsonPath("$[1]").value(2))
                 .andExpect(jsonPath("$[2]").value(3));
     }
+
+    @Test
+    void testHasPurchased() throws Exception {
+        when(orderItemService.hasPurchased(1L, 5L)).thenReturn(true);
+
+        mockMvc.perform(get("/order-items/user/{userId}/purchased/{productId}", 1L, 5L))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+    }
+
+    @Test
+    void testFilterPurchased() throws Exception {
+        when(orderItemService.filterPurchased(1L, List.of(5L, 6L))).thenReturn(List.of(6L));
+
+        mockMvc.perform(get("/order-items/user/{userId}/purchased", 1L).param("productIds", "5,6"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(6));
+    }
 }
@@ -11,10 +11,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 
 import java.util.*;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -125,7 +128,7 @@ public class OrderPaymentControllerTest {
 
     @Test
     void testFilterPayments() throws Exception {
-        Mockito.when(orderPaymentService.filterPayments(anyString(), anyString(), any(), any()))
+        Mockito.when(orderPaymentService.filterPayments(anyString(), anyString(), any(), any(), anyInt(), anyInt()))
                 .thenReturn(List.of(new OrderPayment()));
 
         mockMvc.perform(get("/order-payments/filter")
@@ -137,6 +140,33 @@ public class OrderPaymentControllerTest {
                 .andExpect(jsonPath("$.success").value(true));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamFilteredPayments() throws Exception {
+        OrderPayment p1 = new OrderPayment();
+        p1.setPaymentId(1L);
+        OrderPayment p2 = new OrderPayment();
+        p2.setPaymentId(2L);
+        Mockito.doAnswer(invocation -> {
+            Consumer<OrderPayment> consumer = invocation.getArgument(4);
+            consumer.accept(p1);
+            consumer.accept(p2);
+            return null;
+        }).when(orderPaymentService).streamPayments(eq("PAID"), isNull(), any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/order-payments/filter/stream").param("status", "PAID"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"));
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(2L,
+                objectMapper.readValue(lines[1], OrderPayment.class).getPaymentId());
+    }
+
     @Test
     void testCalculateTotalPaid() throws Exception {
         Mockito.when(orderPaymentService.calculateTotalPaidByOrderId(1L)).thenReturn(188.88);
@@ -0,0 +1,65 @@
+package com.nusiss.orderservice.controller;
+
+import com.nusiss.orderservice.config.InternalEndpointGuard;
+import com.nusiss.orderservice.entity.OrderRollup;
+import com.nusiss.orderservice.service.rollup.OrderRollupService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(OrderRollupController.class)
+@TestPropertySource(properties = "order.internal.token=test-token")
+public class OrderRollupControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderRollupService orderRollupService;
+
+    @Test
+    void testGetOrderRollups() throws Exception {
+        OrderRollup rollup = new OrderRollup();
+        rollup.setGranularity("DAY");
+        rollup.setOrderStatus("PAID");
+        rollup.setOrderCount(3L);
+        rollup.setTotalAmount(new BigDecimal("99.90"));
+        Mockito.when(orderRollupService.getOrderRollups("DAY", LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 7), null))
+                .thenReturn(List.of(rollup));
+
+        mockMvc.perform(get("/order-rollups/orders").param("from", "2024-06-01").param("to", "2024-06-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].orderStatus").value("PAID"))
+                .andExpect(jsonPath("$.data[0].orderCount").value(3));
+    }
+
+    @Test
+    void testBackfill() throws Exception {
+        Mockito.when(orderRollupService.backfill(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 2))).thenReturn(2);
+
+        mockMvc.perform(post("/order-rollups/backfill").param("from", "2024-06-01").param("to", "2024-06-02")
+                        .header(InternalEndpointGuard.TOKEN_HEADER, "test-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value(2));
+    }
+
+    @Test
+    void testBackfill_requiresInternalToken() throws Exception {
+        mockMvc.perform(post("/order-rollups/backfill").param("from", "2024-06-01").param("to", "2024-06-02"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(orderRollupService);
+    }
+}
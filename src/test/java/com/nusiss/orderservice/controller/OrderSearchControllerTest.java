@@ -0,0 +1,66 @@
+package com.nusiss.orderservice.controller;
+
+import com.nusiss.orderservice.config.InternalEndpointGuard;
+import com.nusiss.orderservice.dto.OrderSearchHit;
+import com.nusiss.orderservice.dto.OrderSearchPage;
+import com.nusiss.orderservice.service.search.OrderSearchIndex;
+import com.nusiss.orderservice.service.search.OrderSearchIndexer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(OrderSearchController.class)
+@TestPropertySource(properties = "order.internal.token=test-token")
+public class OrderSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderSearchIndex orderSearchIndex;
+
+    @MockBean
+    private OrderSearchIndexer orderSearchIndexer;
+
+    @Test
+    void testSearch() throws Exception {
+        OrderSearchHit hit = new OrderSearchHit();
+        hit.setOrderId(42L);
+        hit.setProductNames(List.of("蓝牙耳机"));
+        Mockito.when(orderSearchIndex.search("耳机", "product", 2, 10))
+                .thenReturn(new OrderSearchPage(List.of(hit), 2, 10, 11, true));
+
+        mockMvc.perform(get("/orders/search").param("q", "耳机").param("field", "product")
+                        .param("page", "2").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].orderId").value(42))
+                .andExpect(jsonPath("$.data.total").value(11));
+    }
+
+    @Test
+    void testRebuild() throws Exception {
+        mockMvc.perform(post("/orders/search/rebuild")
+                        .header(InternalEndpointGuard.TOKEN_HEADER, "test-token"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(orderSearchIndexer).startRebuild();
+    }
+
+    @Test
+    void testRebuildRequiresInternalToken() throws Exception {
+        mockMvc.perform(post("/orders/search/rebuild"))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(orderSearchIndexer);
+    }
+}
@@ -0,0 +1,65 @@
+package com.nusiss.orderservice.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：InventoryNearCache
+ */
+class InventoryNearCacheTest {
+
+    private RTopic topic;
+    private AtomicLong now;
+    private InventoryNearCache cache;
+
+    @BeforeEach
+    void setUp() {
+        topic = mock(RTopic.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+        now = new AtomicLong(1_000L);
+        cache = new InventoryNearCache(redissonClient, true, 500L, 2, now::get);
+    }
+
+    @Test
+    void testGet_expiresAfterTtl() {
+        cache.put(1L, 10);
+        assertEquals(10, cache.get(1L));
+
+        now.addAndGet(500L);
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void testPut_evictsLeastRecentlyUsedBeyondMaxSize() {
+        cache.put(1L, 1);
+        cache.put(2L, 2);
+        cache.get(1L); // 1 成为最近使用
+        cache.put(3L, 3);
+
+        assertEquals(1, cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(3, cache.get(3L));
+    }
+
+    @Test
+    void testInvalidate_evictsLocallyAndPublishes() {
+        cache.put(1L, 10);
+        cache.put(2L, 20);
+
+        cache.invalidate(List.of(1L, 2L));
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        verify(topic).publish("1,2");
+    }
+}
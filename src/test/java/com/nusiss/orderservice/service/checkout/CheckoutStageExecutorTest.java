@@ -0,0 +1,89 @@
+package com.nusiss.orderservice.service.checkout;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单元测试：CheckoutStageExecutor
+ */
+class CheckoutStageExecutorTest {
+
+    private ExecutorService pool;
+    private CheckoutStageExecutor stageExecutor;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(2);
+        stageExecutor = new CheckoutStageExecutor(pool, 200L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testAwaitAll_allSucceed() {
+        CompletableFuture<String> first = stageExecutor.submit(() -> "product");
+        CompletableFuture<Integer> second = stageExecutor.submit(() -> 10);
+
+        stageExecutor.awaitAll(List.of(first, second));
+
+        assertEquals("product", first.join());
+        assertEquals(10, second.join());
+    }
+
+    @Test
+    void testAwaitAll_failureCancelsOthersAndKeepsMessage() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = stageExecutor.submit(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        });
+        CompletableFuture<Integer> failing = stageExecutor.submit(() -> {
+            throw new RuntimeException("无法获取库存信息");
+        });
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stageExecutor.awaitAll(List.of(slow, failing)));
+
+        // 业务异常信息原样透出，另一个调用被取消
+        assertEquals("无法获取库存信息", ex.getMessage());
+        assertTrue(slow.isCancelled());
+        release.countDown();
+    }
+
+    @Test
+    void testAwaitAll_timeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> hanging = stageExecutor.submit(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        });
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stageExecutor.awaitAll(List.of(hanging)));
+
+        assertTrue(ex.getMessage().contains("超时"));
+        assertTrue(hanging.isCancelled());
+        release.countDown();
+    }
+}
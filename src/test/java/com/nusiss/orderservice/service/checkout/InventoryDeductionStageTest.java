@@ -0,0 +1,93 @@
+package com.nusiss.orderservice.service.checkout;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.commonservice.feign.InventoryFeignClient;
+import com.nusiss.orderservice.feign.InventoryCompensationClient;
+import com.nusiss.orderservice.service.cache.InventoryNearCache;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：InventoryDeductionStage
+ */
+class InventoryDeductionStageTest {
+
+    private InventoryFeignClient inventoryFeignClient;
+    private InventoryCompensationClient compensationClient;
+    private InventoryNearCache inventoryNearCache;
+    private OrderOutboxService outboxService;
+    private InventoryDeductionStage stage;
+
+    @BeforeEach
+    void setUp() {
+        inventoryFeignClient = mock(InventoryFeignClient.class);
+        compensationClient = mock(InventoryCompensationClient.class);
+        inventoryNearCache = mock(InventoryNearCache.class);
+        outboxService = mock(OrderOutboxService.class);
+        stage = new InventoryDeductionStage(inventoryFeignClient, compensationClient,
+                new CheckoutStageExecutor(Runnable::run, 1000L), inventoryNearCache, outboxService, 4);
+    }
+
+    @Test
+    void testDeductAll_success() {
+        when(inventoryFeignClient.deductInventory(any())).thenReturn(ApiResponse.success(true));
+
+        stage.deductAll(100L, List.of(cartItem(1L, 2), cartItem(2L, 1), cartItem(1L, 3)));
+
+        // 同一商品合并为一次扣减
+        verify(inventoryFeignClient).deductInventory(argThat(r -> r.getProductId() == 1L && r.getQuantity() == 5));
+        verify(inventoryFeignClient).deductInventory(argThat(r -> r.getProductId() == 2L && r.getQuantity() == 1));
+        verifyNoInteractions(compensationClient);
+        // 扣减后失效库存缓存
+        verify(inventoryNearCache).invalidate(argThat(ids -> ids.containsAll(List.of(1L, 2L))));
+    }
+
+    @Test
+    void testDeductAll_partialFailureRestoresDeductedLines() {
+        when(inventoryFeignClient.deductInventory(argThat(r -> r != null && r.getProductId() != 3L)))
+                .thenReturn(ApiResponse.success(true));
+        when(inventoryFeignClient.deductInventory(argThat(r -> r != null && r.getProductId() == 3L)))
+                .thenReturn(new ApiResponse<>(false, "out of stock", null));
+        when(compensationClient.restoreInventory(any())).thenReturn(ApiResponse.success(true));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stage.deductAll(100L, List.of(cartItem(1L, 1), cartItem(2L, 2), cartItem(3L, 1))));
+
+        assertEquals("库存扣减失败，商品ID: 3", ex.getMessage());
+        verify(compensationClient).restoreInventory(argThat(r -> r.getProductId() == 1L && r.getQuantity() == 1));
+        verify(compensationClient).restoreInventory(argThat(r -> r.getProductId() == 2L && r.getQuantity() == 2));
+        verify(compensationClient, never()).restoreInventory(argThat(r -> r.getProductId() == 3L));
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void testDeductAll_restoreFailureKeepsOriginalError() {
+        when(inventoryFeignClient.deductInventory(argThat(r -> r != null && r.getProductId() == 1L)))
+                .thenReturn(ApiResponse.success(true));
+        when(inventoryFeignClient.deductInventory(argThat(r -> r != null && r.getProductId() == 2L)))
+                .thenThrow(new RuntimeException("connection reset"));
+        when(compensationClient.restoreInventory(any())).thenThrow(new RuntimeException("restore down"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> stage.deductAll(100L, List.of(cartItem(1L, 1), cartItem(2L, 1))));
+
+        assertEquals("库存扣减失败，商品ID: 2", ex.getMessage());
+        verify(compensationClient).restoreInventory(argThat(r -> r.getProductId() == 1L));
+        // 回补失败交给 outbox 重试
+        verify(outboxService).enqueueInventoryRestore(eq(100L), argThat(r -> r.getProductId() == 1L && r.getQuantity() == 1));
+    }
+
+    private CartItem cartItem(Long productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,86 @@
+package com.nusiss.orderservice.service.checkout;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.Product;
+import com.nusiss.commonservice.feign.InventoryFeignClient;
+import com.nusiss.commonservice.feign.ProductFeignClient;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：ProductSnapshotFetcher
+ */
+class ProductSnapshotFetcherTest {
+
+    private ProductFeignClient productFeignClient;
+    private ProductSnapshotFetcher fetcher;
+
+    @BeforeEach
+    void setUp() {
+        productFeignClient = mock(ProductFeignClient.class);
+        fetcher = new ProductSnapshotFetcher(
+                new CoalescingReadClient(productFeignClient, mock(InventoryFeignClient.class), new SimpleMeterRegistry()),
+                new CheckoutStageExecutor(Runnable::run, 1000L), 2);
+    }
+
+    @Test
+    void testFetch_collapsesDuplicateIds() {
+        when(productFeignClient.getProductById(1L)).thenReturn(ApiResponse.success(product(1L)));
+        when(productFeignClient.getProductById(2L)).thenReturn(ApiResponse.success(product(2L)));
+        when(productFeignClient.getProductById(3L)).thenReturn(ApiResponse.success(product(3L)));
+
+        Map<Long, Product> snapshot = fetcher.fetch(List.of(1L, 2L, 1L, 3L, 2L));
+
+        assertEquals(3, snapshot.size());
+        verify(productFeignClient, times(1)).getProductById(1L);
+        verify(productFeignClient, times(1)).getProductById(2L);
+        verify(productFeignClient, times(1)).getProductById(3L);
+        // 返回结果不可修改
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put(4L, product(4L)));
+    }
+
+    @Test
+    void testFetch_keepsRequestOrder() {
+        when(productFeignClient.getProductById(1L)).thenReturn(ApiResponse.success(product(1L)));
+        when(productFeignClient.getProductById(2L)).thenReturn(ApiResponse.success(product(2L)));
+        when(productFeignClient.getProductById(3L)).thenReturn(ApiResponse.success(product(3L)));
+
+        Map<Long, Product> snapshot = fetcher.fetch(List.of(3L, 2L, 1L, 3L));
+
+        // 支付请求取第一个商品的 sellerId，顺序必须与购物车一致
+        assertEquals(List.of(3L, 2L, 1L), List.copyOf(snapshot.keySet()));
+    }
+
+    @Test
+    void testFetch_missingProductFails() {
+        when(productFeignClient.getProductById(1L)).thenReturn(ApiResponse.success(product(1L)));
+        when(productFeignClient.getProductById(2L)).thenReturn(new ApiResponse<>(false, "not found", null));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> fetcher.fetch(List.of(1L, 2L)));
+
+        assertEquals("获取商品信息失败，商品ID: 2", ex.getMessage());
+    }
+
+    @Test
+    void testFetch_emptyInput() {
+        assertTrue(fetcher.fetch(List.of()).isEmpty());
+        verifyNoInteractions(productFeignClient);
+    }
+
+    private Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("10.00"));
+        return product;
+    }
+}
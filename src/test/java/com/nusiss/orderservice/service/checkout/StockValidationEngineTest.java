@@ -0,0 +1,142 @@
+package com.nusiss.orderservice.service.checkout;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.commonservice.feign.InventoryFeignClient;
+import com.nusiss.commonservice.feign.ProductFeignClient;
+import com.nusiss.orderservice.service.cache.InventoryNearCache;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：StockValidationEngine
+ */
+class StockValidationEngineTest {
+
+    private InventoryFeignClient inventoryFeignClient;
+    private InventoryNearCache inventoryNearCache;
+
+    @BeforeEach
+    void setUp() {
+        inventoryFeignClient = mock(InventoryFeignClient.class);
+        inventoryNearCache = mock(InventoryNearCache.class);
+        // 库存缓存默认未命中（Integer 返回值的 mock 默认为 0，会被当作库存不足）
+        when(inventoryNearCache.get(any())).thenReturn(null);
+    }
+
+    @Test
+    void testValidate_allSufficient() {
+        StockValidationEngine engine = engine(4);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+        when(inventoryFeignClient.getInventoryQuantity(2L)).thenReturn(ApiResponse.success(5));
+
+        assertDoesNotThrow(() -> engine.validate(List.of(cartItem(1L, 3), cartItem(2L, 5))));
+    }
+
+    @Test
+    void testValidate_mergesDuplicateLines() {
+        StockValidationEngine engine = engine(4);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(5));
+
+        // 同一商品两行合计 6 件，超过库存 5 件
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> engine.validate(List.of(cartItem(1L, 3), cartItem(1L, 3))));
+
+        assertEquals("商品库存不足，商品ID: 1", ex.getMessage());
+        verify(inventoryFeignClient, times(1)).getInventoryQuantity(1L);
+    }
+
+    @Test
+    void testValidate_reportsEveryInsufficientProduct() {
+        StockValidationEngine engine = engine(4);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(0));
+        when(inventoryFeignClient.getInventoryQuantity(2L)).thenReturn(ApiResponse.success(1));
+        when(inventoryFeignClient.getInventoryQuantity(3L)).thenReturn(ApiResponse.success(10));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> engine.validate(List.of(cartItem(1L, 1), cartItem(2L, 2), cartItem(3L, 1))));
+
+        assertEquals("商品库存不足，商品ID: 1, 2", ex.getMessage());
+    }
+
+    @Test
+    void testValidate_reportsEveryShortageInSameGroup() {
+        // 并发上限为 1 时所有商品在同一分组内顺序校验
+        StockValidationEngine engine = engine(1);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(0));
+        when(inventoryFeignClient.getInventoryQuantity(2L)).thenReturn(ApiResponse.success(10));
+        when(inventoryFeignClient.getInventoryQuantity(3L)).thenReturn(ApiResponse.success(0));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> engine.validate(List.of(cartItem(1L, 1), cartItem(2L, 1), cartItem(3L, 1))));
+
+        assertEquals("商品库存不足，商品ID: 1, 3", ex.getMessage());
+    }
+
+    @Test
+    void testValidate_stopsRemainingChecksAfterLookupFailure() {
+        StockValidationEngine engine = engine(1);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(new ApiResponse<>(false, "error", null));
+
+        assertThrows(RuntimeException.class,
+                () -> engine.validate(List.of(cartItem(1L, 1), cartItem(2L, 1), cartItem(3L, 1))));
+
+        verify(inventoryFeignClient, never()).getInventoryQuantity(2L);
+        verify(inventoryFeignClient, never()).getInventoryQuantity(3L);
+    }
+
+    @Test
+    void testValidate_cachedShortageSkipsRemoteChecks() {
+        StockValidationEngine engine = engine(4);
+        when(inventoryNearCache.get(1L)).thenReturn(0);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> engine.validate(List.of(cartItem(1L, 1), cartItem(2L, 1))));
+
+        assertEquals("商品库存不足，商品ID: 1", ex.getMessage());
+        verifyNoInteractions(inventoryFeignClient);
+    }
+
+    @Test
+    void testValidate_cachesRemoteQuantities() {
+        StockValidationEngine engine = engine(4);
+        when(inventoryNearCache.get(2L)).thenReturn(5);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+
+        engine.validate(List.of(cartItem(1L, 1), cartItem(2L, 1)));
+
+        verify(inventoryFeignClient, never()).getInventoryQuantity(2L);
+        verify(inventoryNearCache).put(1L, 10);
+    }
+
+    @Test
+    void testValidate_lookupFailure() {
+        StockValidationEngine engine = engine(4);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(new ApiResponse<>(false, "error", null));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> engine.validate(List.of(cartItem(1L, 1))));
+
+        assertEquals("无法获取商品库存，商品ID: 1", ex.getMessage());
+    }
+
+    private StockValidationEngine engine(int parallelism) {
+        return new StockValidationEngine(
+                new CoalescingReadClient(mock(ProductFeignClient.class), inventoryFeignClient, new SimpleMeterRegistry()),
+                new CheckoutStageExecutor(Runnable::run, 1000L), inventoryNearCache, parallelism);
+    }
+
+    private CartItem cartItem(Long productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,137 @@
+package com.nusiss.orderservice.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nusiss.orderservice.config.CheckoutRejectedException;
+import com.nusiss.orderservice.config.IdempotencyConflictException;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.service.idempotency.IdempotentOrderExecutor.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：IdempotentOrderExecutor
+ */
+class IdempotentOrderExecutorTest {
+
+    private RBucket<IdempotencyRecord> bucket;
+    private RedissonClient redissonClient;
+    private IdempotentOrderExecutor executor;
+    private Order order;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        bucket = mock(RBucket.class);
+        redissonClient = mock(RedissonClient.class);
+        when(redissonClient.<IdempotencyRecord>getBucket(anyString(), any(Codec.class))).thenReturn(bucket);
+        executor = new IdempotentOrderExecutor(redissonClient, new ObjectMapper(), true, 3600L, 60L);
+
+        order = new Order();
+        order.setOrderId(1L);
+    }
+
+    @Test
+    void testExecute_withoutKeyRunsDirectly() {
+        assertSame(order, executor.execute("direct", 100L, null, () -> order));
+        verifyNoInteractions(redissonClient);
+    }
+
+    @Test
+    void testExecute_firstRequestRunsAndStoresResult() {
+        when(bucket.trySet(any(), anyLong(), any())).thenReturn(true);
+
+        Order result = executor.execute("direct", 100L, "k1", () -> order);
+
+        assertSame(order, result);
+        verify(redissonClient).getBucket(eq("order-service:idempotency:direct:100:k1"), any(Codec.class));
+        verify(bucket).set(argThat(r -> r != null && "COMPLETED".equals(r.getStatus()) && r.getOrder() == order),
+                eq(3600L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_completedRequestReturnsStoredResult() {
+        when(bucket.trySet(any(), anyLong(), any())).thenReturn(false);
+        when(bucket.get()).thenReturn(new IdempotencyRecord("COMPLETED", order, null));
+        AtomicInteger calls = new AtomicInteger();
+
+        Order result = executor.execute("direct", 100L, "k1", () -> {
+            calls.incrementAndGet();
+            return new Order();
+        });
+
+        assertSame(order, result);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testExecute_inFlightDuplicateConflicts() {
+        when(bucket.trySet(any(), anyLong(), any())).thenReturn(false);
+        when(bucket.get()).thenReturn(new IdempotencyRecord("IN_FLIGHT", null, null));
+        AtomicInteger calls = new AtomicInteger();
+
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> executor.execute("direct", 100L, "k1", () -> {
+                    calls.incrementAndGet();
+                    return new Order();
+                }));
+
+        assertEquals("相同的下单请求正在处理中，请稍后重试", ex.getMessage());
+        assertEquals(0, calls.get());
+        verify(bucket, times(1)).get();
+    }
+
+    @Test
+    void testExecute_rejectedBeforePaymentReleasesKey() {
+        when(bucket.trySet(any(), anyLong(), any())).thenReturn(true);
+
+        assertThrows(CheckoutRejectedException.class, () -> executor.execute("direct", 100L, "k1", () -> {
+            throw new CheckoutRejectedException("库存不足，无法下单");
+        }));
+
+        verify(bucket).delete();
+        verify(bucket, never()).set(any(), anyLong(), any());
+    }
+
+    @Test
+    void testExecute_unknownFailureStoresRecord() {
+        when(bucket.trySet(any(), anyLong(), any())).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> executor.execute("direct", 100L, "k1", () -> {
+            throw new RuntimeException("Read timed out");
+        }));
+
+        verify(bucket, never()).delete();
+        verify(bucket).set(argThat(r -> r != null && "UNKNOWN".equals(r.getStatus())
+                && "Read timed out".equals(r.getMessage())), eq(3600L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExecute_unknownRecordConflictsOnRetry() {
+        when(bucket.trySet(any(), anyLong(), any())).thenReturn(false);
+        when(bucket.get()).thenReturn(new IdempotencyRecord("UNKNOWN", null, "Read timed out"));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IdempotencyConflictException.class, () -> executor.execute("fromCart", 100L, "k1", () -> {
+            calls.incrementAndGet();
+            return new Order();
+        }));
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testExecute_redisUnavailableRunsWithoutDedup() {
+        when(bucket.trySet(any(), anyLong(), any())).thenThrow(new RuntimeException("redis down"));
+
+        assertSame(order, executor.execute("direct", 100L, "k1", () -> order));
+    }
+}
@@ -1,7 +1,12 @@
 package com.nusiss.orderservice.service.impl;
 
+import com.nusiss.orderservice.config.CustomException;
 import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.entity.Order;
 import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.service.purchase.PurchasedProductCache;
+import com.nusiss.orderservice.service.purchase.PurchasedProductSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -10,6 +15,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,6 +26,12 @@ class OrderItemServiceImplTest {
     @Mock
     private OrderItemRepository orderItemRepository;
 
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PurchasedProductCache purchasedProductCache;
+
     @InjectMocks
     private OrderItemServiceImpl orderItemService;
 
@@ -36,6 +48,26 @@ class OrderItemServiceImplTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void testGetItemsByOrderIds_groupsByOrderWithEmptyListsForMissing() {
+        OrderItem first = new OrderItem();
+        first.setOrderId(1L);
+        OrderItem second = new OrderItem();
+        second.setOrderId(1L);
+        when(orderItemRepository.findByOrderIdIn(List.of(1L, 2L))).thenReturn(List.of(first, second));
+
+        Map<Long, List<OrderItem>> result = orderItemService.getItemsByOrderIds(List.of(1L, 2L));
+
+        assertEquals(2, result.get(1L).size());
+        assertTrue(result.get(2L).isEmpty());
+        verify(orderItemRepository, never()).findByOrderId(anyLong());
+    }
+
+    @Test
+    void testGetItemsByOrderIds_rejectsEmptyList() {
+        assertThrows(CustomException.class, () -> orderItemService.getItemsByOrderIds(List.of()));
+    }
+
     @Test
     void testUpdateOrderItem_Success() {
         OrderItem item = new OrderItem();
@@ -112,6 +144,26 @@ class OrderItemServiceImplTest {
         assertFalse(result);
     }
 
+    @Test
+    void testAddOrderItemsInBatch_recordsPurchasesPerUser() {
+        OrderItem first = new OrderItem();
+        first.setOrderId(1L);
+        first.setProductId(10L);
+        OrderItem second = new OrderItem();
+        second.setOrderId(1L);
+        second.setProductId(11L);
+        List<OrderItem> items = List.of(first, second);
+        Order order = new Order();
+        order.setOrderId(1L);
+        order.setUserId(7L);
+        when(orderItemRepository.saveAll(items)).thenReturn(items);
+        when(orderRepository.findAllById(List.of(1L))).thenReturn(List.of(order));
+
+        orderItemService.addOrderItemsInBatch(items);
+
+        verify(purchasedProductCache).recordPurchase(7L, List.of(10L, 11L));
+    }
+
     /*
      当用户没有关联任何订单商品时，返回空列表
      */
@@ -120,7 +172,7 @@ class OrderItemServiceImplTest {
         // Arrange
         Long userId = 456L;
 
-        when(orderItemRepository.findProductIdsByUserId(userId)).thenReturn(List.of());
+        when(purchasedProductCache.get(userId)).thenReturn(PurchasedProductSet.empty());
 
         // Act
         List<Long> result = orderItemService.getProductIdsByUserId(userId);
@@ -128,24 +180,30 @@ class OrderItemServiceImplTest {
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(orderItemRepository, times(1)).findProductIdsByUserId(userId);
+        verify(purchasedProductCache, times(1)).get(userId);
     }
 
     /*
-     验证当 repository 返回 null 时是否安全处理为 null（当前实现直接返回 repository 结果）
+     已购商品由缓存集合提供，结果去重并升序
      */
     @Test
-    void testGetProductIdsByUserId_WhenRepositoryReturnsNull_ShouldReturnNull() {
-        // Arrange
+    void testGetProductIdsByUserId_ReturnsDistinctSortedIds() {
         Long userId = 789L;
 
-        when(orderItemRepository.findProductIdsByUserId(userId)).thenReturn(null);
+        when(purchasedProductCache.get(userId)).thenReturn(PurchasedProductSet.of(List.of(3L, 1L, 3L)));
 
-        // Act
         List<Long> result = orderItemService.getProductIdsByUserId(userId);
 
-        // Assert
-        assertNull(result);
-        verify(orderItemRepository, times(1)).findProductIdsByUserId(userId);
+        assertEquals(List.of(1L, 3L), result);
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    @Test
+    void testHasPurchasedAndFilterPurchased() {
+        when(purchasedProductCache.get(1L)).thenReturn(PurchasedProductSet.of(List.of(2L, 4L)));
+
+        assertTrue(orderItemService.hasPurchased(1L, 4L));
+        assertFalse(orderItemService.hasPurchased(1L, 3L));
+        assertEquals(List.of(4L, 2L), orderItemService.filterPurchased(1L, List.of(4L, 3L, 2L, 4L)));
     }
 }
@@ -1,12 +1,17 @@
 package com.nusiss.orderservice.service.impl;
 
 import com.nusiss.orderservice.dao.OrderPaymentRepository;
+import com.nusiss.orderservice.dto.OrderPaymentSummary;
 import com.nusiss.orderservice.entity.OrderPayment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -118,13 +123,16 @@ class OrderPaymentServiceImplTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testFilterPayments() {
         OrderPayment p1 = new OrderPayment();
         p1.setPaymentStatus("SUCCESS");
         p1.setPaymentMethod("WeChat");
         p1.setPaymentDate(LocalDateTime.of(2024, 1, 10, 10, 0));
 
-        when(paymentRepository.findAll()).thenReturn(List.of(p1));
+        // 过滤在数据库中完成，仓库只返回当前页的匹配结果
+        when(paymentRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(p1)));
 
         Calendar calendar = Calendar.getInstance();
         calendar.set(2024, Calendar.JANUARY, 1);
@@ -133,8 +141,11 @@ class OrderPaymentServiceImplTest {
         calendar.set(2024, Calendar.DECEMBER, 31);
         Date end = calendar.getTime();
 
-        List<OrderPayment> result = paymentService.filterPayments("SUCCESS", "WeChat", start, end);
+        List<OrderPayment> result = paymentService.filterPayments("SUCCESS", "WeChat", start, end, 1, 20);
         assertEquals(1, result.size());
+        verify(paymentRepository, never()).findAll();
+        verify(paymentRepository).findAll(any(Specification.class), argThat((Pageable p) ->
+                p.getPageNumber() == 0 && p.getPageSize() == 20));
     }
 
     @Test
@@ -149,4 +160,17 @@ class OrderPaymentServiceImplTest {
         Double total = paymentService.calculateTotalPaidByOrderId(1L);
         assertEquals(188.88, total);
     }
+
+    @Test
+    void testGetPaymentSummaries() {
+        OrderPaymentSummary summary = mock(OrderPaymentSummary.class);
+        when(paymentRepository.findSummaryBy(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(summary)));
+
+        List<OrderPaymentSummary> result = paymentService.getPaymentSummaries(2, 10000);
+
+        assertEquals(1, result.size());
+        verify(paymentRepository).findSummaryBy(argThat((Pageable p) ->
+                p.getPageNumber() == 1 && p.getPageSize() == 500));
+        verify(paymentRepository, never()).findAll();
+    }
 }
@@ -7,28 +7,56 @@ import com.nusiss.commonservice.feign.ProductFeignClient;
 import com.nusiss.commonservice.feign.ShoppingCartFeignClient;
 import com.nusiss.commonservice.config.ApiResponse;
 import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderPaymentRepository;
+import com.nusiss.orderservice.dao.OrderShipmentRepository;
 import com.nusiss.orderservice.dao.OrderRepository;
 import com.nusiss.orderservice.dto.CreateOrderFromCartRequest;
 import com.nusiss.orderservice.dto.DirectOrderRequest;
+import com.nusiss.orderservice.config.CheckoutRejectedException;
+import com.nusiss.orderservice.config.CustomException;
 import com.nusiss.orderservice.dto.FacePaymentDirectOrderRequest;
+import com.nusiss.orderservice.dto.OrderDetailResponse;
+import com.nusiss.orderservice.dto.OrderSlice;
+import com.nusiss.orderservice.dto.OrderSummary;
 import com.nusiss.orderservice.entity.Order;
 import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.entity.OrderPayment;
+import com.nusiss.orderservice.feign.InventoryCompensationClient;
+import com.nusiss.orderservice.service.cache.InventoryNearCache;
+import com.nusiss.orderservice.service.purchase.PurchasedProductCache;
+import com.nusiss.orderservice.service.checkout.CheckoutStageExecutor;
+import com.nusiss.orderservice.service.checkout.InventoryDeductionStage;
+import com.nusiss.orderservice.service.checkout.ProductSnapshotFetcher;
+import com.nusiss.orderservice.service.checkout.StockValidationEngine;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.reservation.StockReservation;
+import com.nusiss.orderservice.service.reservation.StockReservationService;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -50,15 +78,59 @@ class OrderServiceImplTest {
     @Mock
     private OrderItemRepository orderItemRepository;
 
+    @Mock
+    private OrderPaymentRepository orderPaymentRepository;
+
+    @Mock
+    private OrderShipmentRepository orderShipmentRepository;
+
     @Mock
     private PaymentFeignClient paymentFeignClient;
 
     @Mock
     private ShoppingCartFeignClient shoppingCartFeignClient;
 
+    @Mock
+    private InventoryCompensationClient inventoryCompensationClient;
+
+    @Mock
+    private InventoryNearCache inventoryNearCache;
+
+    @Mock
+    private PurchasedProductCache purchasedProductCache;
+
+    @Mock
+    private OrderOutboxService orderOutboxService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // 测试中使用同步执行器，保证并发阶段的执行顺序可预测
+        CheckoutStageExecutor stageExecutor = new CheckoutStageExecutor(Runnable::run, 1000L);
+        CoalescingReadClient readClient = new CoalescingReadClient(productFeignClient, inventoryFeignClient,
+                new SimpleMeterRegistry());
+        // 库存缓存默认未命中（Integer 返回值的 mock 默认为 0，会被当作库存不足）
+        when(inventoryNearCache.get(any())).thenReturn(null);
+        ReflectionTestUtils.setField(orderService, "coalescingReadClient", readClient);
+        ReflectionTestUtils.setField(orderService, "checkoutStageExecutor", stageExecutor);
+        ReflectionTestUtils.setField(orderService, "productSnapshotFetcher",
+                new ProductSnapshotFetcher(readClient, stageExecutor, 4));
+        ReflectionTestUtils.setField(orderService, "stockValidationEngine",
+                new StockValidationEngine(readClient, stageExecutor, inventoryNearCache, 4));
+        ReflectionTestUtils.setField(orderService, "inventoryDeductionStage",
+                new InventoryDeductionStage(inventoryFeignClient, inventoryCompensationClient, stageExecutor,
+                        inventoryNearCache, orderOutboxService, 4));
+        ReflectionTestUtils.setField(orderService, "orderPipelineExecutor", (Executor) Runnable::run);
+        // 事务模板直接执行回调
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(stockReservationService.reserve(anyList())).thenReturn(new StockReservation("r-1", Map.of()));
     }
 
     @Test
@@ -117,6 +189,150 @@ class OrderServiceImplTest {
         verify(orderRepository, times(2)).save(any()); // 创建订单 + 更新支付状态
         verify(orderItemRepository).save(any());
         verify(inventoryFeignClient).deductInventory(any());
+        // 扣减成功后确认 Redis 库存预留
+        verify(stockReservationService).confirm(any());
+        verify(stockReservationService, never()).release(any());
+    }
+
+    @Test
+    void testCreateDirectOrder_productNotFound() {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        // 商品查询失败，库存查询正常（两者并发执行）
+        when(productFeignClient.getProductById(1L)).thenReturn(new ApiResponse<>(false, "not found", null));
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createDirectOrder(request));
+
+        assertEquals("商品不存在或无法获取商品信息", ex.getMessage());
+        // 发起支付之前失败，幂等键可释放
+        assertInstanceOf(CheckoutRejectedException.class, ex);
+        verify(orderRepository, never()).save(any());
+        verify(paymentFeignClient, never()).processPayment(any());
+    }
+
+    @Test
+    void testCreateDirectOrder_paymentTimeoutIsNotRejected() {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setPrice(new BigDecimal("50.00"));
+        when(productFeignClient.getProductById(1L)).thenReturn(ApiResponse.success(product));
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+        Order savedOrder = new Order();
+        savedOrder.setOrderId(123L);
+        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        when(paymentFeignClient.processPayment(any())).thenThrow(new RuntimeException("Read timed out"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createDirectOrder(request));
+
+        // 支付结果未知（可能已扣款），不能作为可重试的失败
+        assertFalse(ex instanceof CheckoutRejectedException);
+        assertEquals("Read timed out", ex.getMessage());
+    }
+
+    @Test
+    void testCreateDirectOrder_cachedOutOfStockSkipsRemoteCalls() {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        when(inventoryNearCache.get(1L)).thenReturn(0);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createDirectOrder(request));
+
+        assertEquals("库存不足，无法下单", ex.getMessage());
+        verifyNoInteractions(productFeignClient, inventoryFeignClient, paymentFeignClient);
+    }
+
+    @Test
+    void testCreateDirectOrder_reservationRejectedSkipsRemoteCalls() {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        when(stockReservationService.reserve(anyList())).thenThrow(new RuntimeException("库存不足，无法下单"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createDirectOrder(request));
+
+        assertEquals("库存不足，无法下单", ex.getMessage());
+        verifyNoInteractions(productFeignClient, inventoryFeignClient, paymentFeignClient, orderRepository);
+    }
+
+    @Test
+    void testAcceptDirectOrder_enqueuesPaymentInBackground() {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setShippingAddress("Test Address");
+        request.setPaymentMethod("WeChat");
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setPrice(new BigDecimal("50.00"));
+        when(productFeignClient.getProductById(1L)).thenReturn(ApiResponse.success(product));
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+
+        Order acceptedOrder = new Order();
+        acceptedOrder.setOrderId(500L);
+        acceptedOrder.setOrderStatus("CREATED");
+        acceptedOrder.setPaymentStatus("UNPAID");
+        when(orderRepository.save(any(Order.class))).thenReturn(acceptedOrder);
+
+        Long orderId = orderService.acceptDirectOrder(request);
+
+        // 测试中后台线程池为同步执行，返回时计价已完成，支付与扣减库存交给 outbox
+        assertEquals(500L, orderId);
+        assertEquals(new BigDecimal("100.00"), acceptedOrder.getTotalAmount());
+        assertEquals("UNPAID", acceptedOrder.getPaymentStatus());
+        verify(transactionTemplate).execute(any());
+        verify(orderItemRepository).saveAll(anyList());
+        verify(orderOutboxService).enqueuePayment(eq(500L), argThat(payload ->
+                payload.getPaymentRequest().getAmount().compareTo(new BigDecimal("100.00")) == 0
+                        && !payload.getInventory().isClearCart()
+                        && payload.getInventory().getItems().get(0).getProductId() == 1L
+                        && "r-1".equals(payload.getInventory().getReservationId())));
+        verify(stockReservationService, never()).release(any());
+        verify(paymentFeignClient, never()).processPayment(any());
+        verify(inventoryFeignClient, never()).deductInventory(any());
+    }
+
+    @Test
+    void testAcceptDirectOrder_failureMarksOrderFailed() {
+        DirectOrderRequest request = new DirectOrderRequest();
+        request.setProductId(1L);
+        request.setQuantity(2);
+        request.setUserId(100L);
+        request.setPaymentMethod("WeChat");
+
+        when(productFeignClient.getProductById(1L)).thenReturn(new ApiResponse<>(false, "not found", null));
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+
+        Order acceptedOrder = new Order();
+        acceptedOrder.setOrderId(501L);
+        acceptedOrder.setOrderStatus("CREATED");
+        when(orderRepository.save(any(Order.class))).thenReturn(acceptedOrder);
+
+        Long orderId = orderService.acceptDirectOrder(request);
+
+        assertEquals(501L, orderId);
+        assertEquals("FAILED", acceptedOrder.getOrderStatus());
+        verify(orderOutboxService, never()).enqueuePayment(any(), any());
     }
 
     @Test
@@ -230,9 +446,112 @@ class OrderServiceImplTest {
         verify(orderRepository, times(2)).save(any());
         verify(paymentFeignClient).processPayment(any());
         verify(inventoryFeignClient).deductInventory(any());
+        verify(orderItemRepository).saveAll(anyList()); // 订单项一次批量写入
         verify(shoppingCartFeignClient).clearCart(100L);
     }
 
+    @Test
+    void testCreateOrderFromCart_deductionFailureRestoresStockAndCancelsOrder() {
+        CreateOrderFromCartRequest request = new CreateOrderFromCartRequest();
+        request.setUserId(100L);
+        request.setShippingAddress("Test Address");
+        request.setPaymentMethod("WeChat");
+
+        CartItem first = new CartItem();
+        first.setProductId(1L);
+        first.setQuantity(2);
+        CartItem second = new CartItem();
+        second.setProductId(2L);
+        second.setQuantity(1);
+        when(shoppingCartFeignClient.getCartItems(100L)).thenReturn(ApiResponse.success(List.of(first, second)));
+        when(inventoryFeignClient.getInventoryQuantity(anyLong())).thenReturn(ApiResponse.success(10));
+
+        for (long id = 1L; id <= 2L; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Product " + id);
+            product.setPrice(new BigDecimal("10.00"));
+            when(productFeignClient.getProductById(id)).thenReturn(ApiResponse.success(product));
+        }
+
+        Order savedOrder = new Order();
+        savedOrder.setOrderId(400L);
+        when(orderRepository.save(any())).thenReturn(savedOrder);
+
+        Payment payment = new Payment();
+        payment.setPaymentStatus("PAID");
+        when(paymentFeignClient.processPayment(any())).thenReturn(ApiResponse.success(payment));
+
+        // 商品1扣减成功，商品2扣减失败
+        when(inventoryFeignClient.deductInventory(argThat(r -> r != null && r.getProductId() == 1L)))
+                .thenReturn(ApiResponse.success(true));
+        when(inventoryFeignClient.deductInventory(argThat(r -> r != null && r.getProductId() == 2L)))
+                .thenReturn(ApiResponse.success(false));
+        when(inventoryCompensationClient.restoreInventory(any())).thenReturn(ApiResponse.success(true));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createOrderFromCart(request));
+
+        assertEquals("库存扣减失败，商品ID: 2", ex.getMessage());
+        verify(inventoryCompensationClient).restoreInventory(argThat(r -> r.getProductId() == 1L && r.getQuantity() == 2));
+        verify(inventoryCompensationClient, never()).restoreInventory(argThat(r -> r.getProductId() == 2L));
+        assertEquals("CANCELLED", savedOrder.getOrderStatus());
+        verify(shoppingCartFeignClient, never()).clearCart(any());
+        verify(stockReservationService).release(any());
+    }
+
+    @Test
+    void testCreateOrderFromCart_paymentDeclinedDeletesOrder() {
+        Order savedOrder = prepareCartCheckout();
+        Payment payment = new Payment();
+        payment.setPaymentStatus("FAILED");
+        when(paymentFeignClient.processPayment(any())).thenReturn(ApiResponse.success(payment));
+
+        assertThrows(CheckoutRejectedException.class, () -> orderService.createOrderFromCart(prepareCartRequest()));
+
+        verify(orderRepository).deleteById(savedOrder.getOrderId());
+        verify(inventoryFeignClient, never()).deductInventory(any());
+    }
+
+    @Test
+    void testCreateOrderFromCart_paymentTimeoutKeepsOrder() {
+        Order savedOrder = prepareCartCheckout();
+        when(paymentFeignClient.processPayment(any())).thenThrow(new RuntimeException("Read timed out"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> orderService.createOrderFromCart(prepareCartRequest()));
+
+        // 支付结果未知（可能已扣款），订单保留待核对
+        assertFalse(ex instanceof CheckoutRejectedException);
+        verify(orderRepository, never()).deleteById(any());
+        assertEquals("UNKNOWN", savedOrder.getPaymentStatus());
+        verify(inventoryFeignClient, never()).deductInventory(any());
+    }
+
+    private CreateOrderFromCartRequest prepareCartRequest() {
+        CreateOrderFromCartRequest request = new CreateOrderFromCartRequest();
+        request.setUserId(100L);
+        request.setShippingAddress("Test Address");
+        request.setPaymentMethod("WeChat");
+        return request;
+    }
+
+    // 购物车中一个商品、库存充足，返回保存后的订单
+    private Order prepareCartCheckout() {
+        CartItem cartItem = new CartItem();
+        cartItem.setProductId(1L);
+        cartItem.setQuantity(1);
+        when(shoppingCartFeignClient.getCartItems(100L)).thenReturn(ApiResponse.success(List.of(cartItem)));
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+        Product product = new Product();
+        product.setId(1L);
+        product.setPrice(new BigDecimal("10.00"));
+        when(productFeignClient.getProductById(1L)).thenReturn(ApiResponse.success(product));
+        Order savedOrder = new Order();
+        savedOrder.setOrderId(500L);
+        when(orderRepository.save(any())).thenReturn(savedOrder);
+        return savedOrder;
+    }
+
     @Test
     void testCreateOrderFromCartWithFaceRecognition_success() throws Exception {
         // Step 1: 构造请求对象 + face image
@@ -310,6 +629,28 @@ class OrderServiceImplTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    void testGetOrdersByIds_keepsRequestOrderAndSkipsMissing() {
+        Order first = new Order();
+        first.setOrderId(1L);
+        Order third = new Order();
+        third.setOrderId(3L);
+        when(orderRepository.findAllById(List.of(3L, 2L, 1L))).thenReturn(List.of(first, third));
+
+        Map<Long, Order> result = orderService.getOrdersByIds(Arrays.asList(3L, 2L, null, 1L, 3L));
+
+        assertEquals(List.of(3L, 1L), new ArrayList<>(result.keySet()));
+        assertSame(first, result.get(1L));
+    }
+
+    @Test
+    void testGetOrdersByIds_rejectsTooManyIds() {
+        ReflectionTestUtils.setField(orderService, "maxBatchIds", 2);
+
+        assertThrows(CustomException.class, () -> orderService.getOrdersByIds(List.of(1L, 2L, 3L)));
+        verify(orderRepository, never()).findAllById(any());
+    }
+
     @Test
     void testGetAllOrders() {
         List<Order> orders = List.of(new Order(), new Order());
@@ -367,44 +708,165 @@ class OrderServiceImplTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testFilterOrders_withStatusAndAmountRange() {
         Order order1 = new Order();
         order1.setOrderStatus("CREATED");
         order1.setOrderDate(LocalDateTime.now());
         order1.setTotalAmount(new BigDecimal("100.00"));
 
-        Order order2 = new Order();
-        order2.setOrderStatus("SHIPPED");
-        order2.setOrderDate(LocalDateTime.now());
-        order2.setTotalAmount(new BigDecimal("200.00"));
-
-        when(orderRepository.findAll()).thenReturn(List.of(order1, order2));
+        // 过滤在数据库中完成，仓库只返回当前页的匹配结果
+        when(orderRepository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(order1)));
 
         List<Order> result = orderService.filterOrders(
                 "CREATED",
                 null,
                 null,
                 50.0,
-                150.0
+                150.0,
+                2,
+                1000
         );
 
         assertEquals(1, result.size());
         assertEquals("CREATED", result.get(0).getOrderStatus());
+        verify(orderRepository, never()).findAll();
+        // 不执行 COUNT 查询
+        verify(orderRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        // 页码从 1 开始，单页数量不超过上限
+        verify(orderRepository).findSlice(any(Specification.class), argThat((Pageable p) ->
+                p.getPageNumber() == 1 && p.getPageSize() == 500 && p.getSort().getOrderFor("orderDate") != null));
     }
 
     @Test
     void testGetOrdersWithPaginationAndSorting() {
         Order order = new Order();
         order.setOrderId(1L);
-        Page<Order> page = new PageImpl<>(List.of(order));
-
-        when(orderRepository.findAll(any(Pageable.class))).thenReturn(page);
+        when(orderRepository.findSlice(isNull(), any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(order)));
 
         List<Order> result = orderService.getOrdersWithPaginationAndSorting(1, 10, "orderId", "asc");
 
         assertEquals(1, result.size());
         assertEquals(1L, result.get(0).getOrderId());
+        verify(orderRepository, never()).findAll(any(Pageable.class));
     }
 
+    private Order orderAt(long id, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setOrderId(id);
+        order.setOrderDate(orderDate);
+        return order;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetOrdersByCursor_returnsNextCursorWithoutCount() {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 12, 0);
+        // 多取一行用于判断是否有下一页
+        when(orderRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(List.of(orderAt(3L, base), orderAt(2L, base), orderAt(1L, base.minusDays(1))));
+
+        OrderSlice first = orderService.getOrdersByCursor("orderDate", "desc", 2, null);
+
+        assertEquals(2, first.getContent().size());
+        assertTrue(first.isHasNext());
+        assertNotNull(first.getNextCursor());
+        verify(orderRepository, never()).count();
+        verify(orderRepository, never()).findAll(any(Pageable.class));
 
-}
\ No newline at end of file
+        when(orderRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(List.of(orderAt(1L, base.minusDays(1))));
+
+        OrderSlice second = orderService.getOrdersByCursor("orderDate", "desc", 2, first.getNextCursor());
+
+        assertEquals(1, second.getContent().size());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetOrdersByCursor_rejectsUnindexedSortKey() {
+        assertThrows(CustomException.class,
+                () -> orderService.getOrdersByCursor("shippingAddress", "asc", 10, null));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetOrdersByCursor_rejectsCursorFromDifferentSort() {
+        when(orderRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(List.of(orderAt(2L, null), orderAt(1L, null)));
+        String cursor = orderService.getOrdersByCursor("orderId", "asc", 1, null).getNextCursor();
+
+        assertThrows(CustomException.class, () -> orderService.getOrdersByCursor("orderDate", "asc", 1, cursor));
+        assertThrows(CustomException.class, () -> orderService.getOrdersByCursor("orderId", "asc", 1, "not-a-cursor"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAllOrders_detachesEachRow() {
+        EntityManager entityManager = mock(EntityManager.class);
+        TypedQuery<Order> query = mock(TypedQuery.class);
+        ReflectionTestUtils.setField(orderService, "entityManager", entityManager);
+        Order first = orderAt(1L, null);
+        Order second = orderAt(2L, null);
+        when(entityManager.createQuery(anyString(), eq(Order.class))).thenReturn(query);
+        when(query.setHint(anyString(), any())).thenReturn(query);
+        when(query.getResultStream()).thenReturn(Stream.of(first, second));
+
+        List<Long> seen = new ArrayList<>();
+        orderService.streamAllOrders(order -> seen.add(order.getOrderId()));
+
+        assertEquals(List.of(1L, 2L), seen);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        verify(orderRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetOrderDetail_aggregatesChildren() {
+        Order order = orderAt(7L, LocalDateTime.now());
+        order.setOrderStatus("PAID");
+        OrderItem item = new OrderItem();
+        item.setOrderId(7L);
+        OrderPayment payment = new OrderPayment();
+        payment.setOrderId(7L);
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderId(7L)).thenReturn(List.of(item));
+        when(orderPaymentRepository.findByOrderId(7L)).thenReturn(List.of(payment));
+        when(orderShipmentRepository.findByOrderId(7L)).thenReturn(Optional.empty());
+
+        OrderDetailResponse detail = orderService.getOrderDetail(7L).orElseThrow();
+
+        assertEquals(7L, detail.getOrderId());
+        assertEquals("PAID", detail.getOrderStatus());
+        assertEquals(1, detail.getItems().size());
+        assertEquals(1, detail.getPayments().size());
+        assertNull(detail.getShipment());
+    }
+
+    @Test
+    void testGetOrderDetail_missingOrderSkipsChildQueries() {
+        when(orderRepository.findById(8L)).thenReturn(Optional.empty());
+
+        assertTrue(orderService.getOrderDetail(8L).isEmpty());
+        verifyNoInteractions(orderItemRepository, orderPaymentRepository, orderShipmentRepository);
+    }
+
+    @Test
+    void testGetOrderSummaries_usesProjectionWithoutCount() {
+        OrderSummary summary = mock(OrderSummary.class);
+        when(summary.getOrderId()).thenReturn(5L);
+        when(orderRepository.findSummaryBy(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(summary)));
+
+        List<OrderSummary> result = orderService.getOrderSummaries(1, 20, "totalAmount", "desc");
+
+        assertEquals(5L, result.get(0).getOrderId());
+        verify(orderRepository).findSummaryBy(argThat((Pageable p) -> p.getPageSize() == 20
+                && p.getSort().getOrderFor("totalAmount").isDescending()
+                && p.getSort().getOrderFor("orderId") != null));
+        verify(orderRepository, never()).findAll(any(Pageable.class));
+        assertThrows(CustomException.class, () -> orderService.getOrderSummaries(1, 20, "createUser", "asc"));
+    }
+}
@@ -1,11 +1,14 @@
 package com.nusiss.orderservice.service.impl;
 
 import com.nusiss.orderservice.dao.OrderShipmentRepository;
+import com.nusiss.orderservice.dto.OrderShipmentSummary;
 import com.nusiss.orderservice.entity.OrderShipment;
 import com.nusiss.orderservice.service.strategy.ShipmentStrategyContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -28,6 +31,18 @@ class OrderShipmentServiceImplTest {
         MockitoAnnotations.openMocks(this);
     }
 
+    @Test
+    void testGetShipmentsByOrderIds_singleInQuery() {
+        OrderShipment shipment = new OrderShipment();
+        shipment.setOrderId(2L);
+        when(shipmentRepository.findByOrderIdIn(List.of(1L, 2L))).thenReturn(List.of(shipment));
+
+        Map<Long, OrderShipment> result = shipmentService.getShipmentsByOrderIds(List.of(1L, 2L));
+
+        assertEquals(Set.of(2L), result.keySet());
+        verify(shipmentRepository, never()).findByOrderId(anyLong());
+    }
+
     @Test
     void testCreateShipment() {
         OrderShipment shipment = new OrderShipment();
@@ -127,4 +142,18 @@ class OrderShipmentServiceImplTest {
 
         assertEquals(2, result.size());
     }
+
+    @Test
+    void testGetShipmentSummaries() {
+        OrderShipmentSummary summary = mock(OrderShipmentSummary.class);
+        when(shipmentRepository.findSummaryBy(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(summary)));
+
+        List<OrderShipmentSummary> result = shipmentService.getShipmentSummaries(1, 50);
+
+        assertEquals(1, result.size());
+        verify(shipmentRepository).findSummaryBy(argThat((Pageable p) ->
+                p.getPageNumber() == 0 && p.getPageSize() == 50
+                        && p.getSort().getOrderFor("shipmentId").isDescending()));
+        verify(shipmentRepository, never()).findAll();
+    }
 }
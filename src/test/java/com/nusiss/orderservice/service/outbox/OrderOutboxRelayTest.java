@@ -0,0 +1,133 @@
+package com.nusiss.orderservice.service.outbox;
+
+import com.nusiss.orderservice.dao.OrderOutboxRepository;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：OrderOutboxRelay
+ */
+class OrderOutboxRelayTest {
+
+    private OrderOutboxRepository outboxRepository;
+    private OutboxEventHandler handler;
+    private OrderOutboxRelay relay;
+    private OrderOutboxEvent event;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(OrderOutboxRepository.class);
+        handler = mock(OutboxEventHandler.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        relay = new OrderOutboxRelay(outboxRepository, Map.of(OrderOutboxService.PAYMENT_PROCESS, handler),
+                transactionTemplate, Runnable::run);
+
+        event = new OrderOutboxEvent();
+        event.setEventId(1L);
+        event.setOrderId(100L);
+        event.setEventType(OrderOutboxService.PAYMENT_PROCESS);
+        event.setStatus(OrderOutboxService.STATUS_PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        when(outboxRepository.findClaimable(any(), any())).thenReturn(List.of(event));
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(outboxRepository.findLockedById(1L)).thenReturn(Optional.of(event));
+    }
+
+    @Test
+    void testRelay_successMarksSent() {
+        relay.relay();
+
+        verify(handler).handle(event);
+        assertEquals(OrderOutboxService.STATUS_SENT, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertNull(event.getLeaseOwner());
+    }
+
+    @Test
+    void testRelay_reclaimedLeaseIsNotOverwritten() {
+        // 处理期间租约过期并被其他实例重新领取
+        doAnswer(invocation -> {
+            event.setLeaseOwner("other-relay");
+            return null;
+        }).when(handler).handle(event);
+
+        relay.relay();
+
+        assertEquals(OrderOutboxService.STATUS_PROCESSING, event.getStatus());
+        assertEquals("other-relay", event.getLeaseOwner());
+        assertEquals(0, event.getAttempts());
+    }
+
+    @Test
+    void testRelay_rejectedDispatchLeavesLease() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        relay = new OrderOutboxRelay(outboxRepository, Map.of(OrderOutboxService.PAYMENT_PROCESS, handler),
+                transactionTemplate, command -> {
+                    throw new RejectedExecutionException("full");
+                });
+
+        relay.relay();
+
+        verifyNoInteractions(handler);
+        assertEquals(OrderOutboxService.STATUS_PROCESSING, event.getStatus());
+    }
+
+    @Test
+    void testRelay_failureReschedulesWithBackoff() {
+        doThrow(new RuntimeException("payment-service unavailable")).when(handler).handle(event);
+        LocalDateTime before = LocalDateTime.now();
+
+        relay.relay();
+
+        assertEquals(OrderOutboxService.STATUS_PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals("payment-service unavailable", event.getLastError());
+        assertTrue(event.getNextAttemptAt().isAfter(before.plusSeconds(1)));
+        verify(handler, never()).onExhausted(any());
+    }
+
+    @Test
+    void testRelay_exhaustedMarksFailed() {
+        event.setAttempts(9);
+        doThrow(new RuntimeException("payment-service unavailable")).when(handler).handle(event);
+
+        relay.relay();
+
+        assertEquals(OrderOutboxService.STATUS_FAILED, event.getStatus());
+        assertEquals(10, event.getAttempts());
+        verify(handler).onExhausted(event);
+    }
+
+    @Test
+    void testRelay_nothingToClaim() {
+        when(outboxRepository.findClaimable(any(), any())).thenReturn(List.of());
+
+        relay.relay();
+
+        verifyNoInteractions(handler);
+    }
+
+    @Test
+    void testBackoffFor_isCapped() {
+        assertEquals(2000L, relay.backoffFor(1));
+        assertEquals(8000L, relay.backoffFor(3));
+        assertEquals(300000L, relay.backoffFor(15));
+    }
+}
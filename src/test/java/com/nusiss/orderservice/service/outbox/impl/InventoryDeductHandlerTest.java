@@ -0,0 +1,116 @@
+package com.nusiss.orderservice.service.outbox.impl;
+
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.commonservice.feign.ShoppingCartFeignClient;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dto.OutboxInventoryPayload;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import com.nusiss.orderservice.service.checkout.InventoryDeductionStage;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.reservation.StockReservation;
+import com.nusiss.orderservice.service.reservation.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：InventoryDeductHandler
+ */
+class InventoryDeductHandlerTest {
+
+    @InjectMocks
+    private InventoryDeductHandler handler;
+
+    @Mock
+    private InventoryDeductionStage inventoryDeductionStage;
+
+    @Mock
+    private ShoppingCartFeignClient shoppingCartFeignClient;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderOutboxService outboxService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    private OrderOutboxEvent event;
+    private List<CartItem> items;
+    private StockReservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        event = new OrderOutboxEvent();
+        event.setEventId(2L);
+        event.setOrderId(100L);
+
+        CartItem item = new CartItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        items = List.of(item);
+        reservation = new StockReservation("r-1", Map.of(1L, 2));
+        when(stockReservationService.restore("r-1", items)).thenReturn(reservation);
+    }
+
+    @Test
+    void testHandle_recordsDeductionBeforeConfirmingReservation() {
+        OutboxInventoryPayload payload = new OutboxInventoryPayload(1L, true, items, "r-1", false);
+        when(outboxService.readPayload(event, OutboxInventoryPayload.class)).thenReturn(payload);
+
+        handler.handle(event);
+
+        InOrder inOrder = inOrder(inventoryDeductionStage, outboxService, stockReservationService);
+        inOrder.verify(inventoryDeductionStage).deductAll(100L, items);
+        inOrder.verify(outboxService).updatePayload(event, payload);
+        inOrder.verify(stockReservationService).confirm(reservation);
+        assertTrue(payload.isDeducted());
+        verify(shoppingCartFeignClient).clearCart(1L);
+    }
+
+    @Test
+    void testHandle_redeliveryAfterDeductionSkipsDeduct() {
+        OutboxInventoryPayload payload = new OutboxInventoryPayload(1L, false, items, "r-1", true);
+        when(outboxService.readPayload(event, OutboxInventoryPayload.class)).thenReturn(payload);
+
+        handler.handle(event);
+
+        verifyNoInteractions(inventoryDeductionStage);
+        verify(outboxService, never()).updatePayload(any(), any());
+        verify(stockReservationService).confirm(reservation);
+    }
+
+    @Test
+    void testHandle_progressRecordFailureDoesNotFailEvent() {
+        OutboxInventoryPayload payload = new OutboxInventoryPayload(1L, false, items, "r-1", false);
+        when(outboxService.readPayload(event, OutboxInventoryPayload.class)).thenReturn(payload);
+        doThrow(new RuntimeException("db down")).when(outboxService).updatePayload(event, payload);
+
+        assertDoesNotThrow(() -> handler.handle(event));
+
+        verify(inventoryDeductionStage, times(1)).deductAll(100L, items);
+        verify(stockReservationService).confirm(reservation);
+    }
+
+    @Test
+    void testOnExhausted_deductedEventKeepsOrder() {
+        OutboxInventoryPayload payload = new OutboxInventoryPayload(1L, false, items, "r-1", true);
+        when(outboxService.readPayload(event, OutboxInventoryPayload.class)).thenReturn(payload);
+
+        handler.onExhausted(event);
+
+        verifyNoInteractions(orderRepository);
+        verify(stockReservationService, never()).release(any());
+    }
+}
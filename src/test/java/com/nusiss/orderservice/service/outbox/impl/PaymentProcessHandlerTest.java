@@ -0,0 +1,150 @@
+package com.nusiss.orderservice.service.outbox.impl;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.Payment;
+import com.nusiss.commonservice.entity.PaymentRequest;
+import com.nusiss.commonservice.feign.PaymentFeignClient;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dto.OutboxInventoryPayload;
+import com.nusiss.orderservice.dto.OutboxPaymentPayload;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderOutboxEvent;
+import com.nusiss.orderservice.feign.PaymentIdempotencyKey;
+import com.nusiss.orderservice.service.outbox.OrderOutboxService;
+import com.nusiss.orderservice.service.reservation.StockReservationService;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：PaymentProcessHandler
+ */
+class PaymentProcessHandlerTest {
+
+    @InjectMocks
+    private PaymentProcessHandler handler;
+
+    @Mock
+    private PaymentFeignClient paymentFeignClient;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderOutboxService outboxService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OrderOutboxEvent event;
+    private Order order;
+    private OutboxPaymentPayload payload;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        event = new OrderOutboxEvent();
+        event.setEventId(1L);
+        event.setOrderId(100L);
+
+        order = new Order();
+        order.setOrderId(100L);
+        order.setOrderStatus("CREATED");
+        order.setPaymentStatus("UNPAID");
+        when(orderRepository.findById(100L)).thenReturn(Optional.of(order));
+
+        payload = new OutboxPaymentPayload(new PaymentRequest(), new OutboxInventoryPayload(1L, true, List.of(), "r-1", false));
+        when(outboxService.readPayload(event, OutboxPaymentPayload.class)).thenReturn(payload);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testHandle_paidEnqueuesInventoryDeduct() {
+        Payment payment = new Payment();
+        payment.setPaymentStatus("PAID");
+        when(paymentFeignClient.processPayment(any())).thenReturn(ApiResponse.success(payment));
+
+        handler.handle(event);
+
+        assertEquals("PAID", order.getPaymentStatus());
+        verify(orderRepository).save(order);
+        verify(outboxService).enqueueInventoryDeduct(100L, payload.getInventory());
+        verify(stockReservationService, never()).release(any());
+    }
+
+    @Test
+    void testHandle_declinedMarksOrderFailed() {
+        when(paymentFeignClient.processPayment(any())).thenReturn(new ApiResponse<>(false, "declined", null));
+
+        handler.handle(event);
+
+        assertEquals("FAILED", order.getOrderStatus());
+        assertEquals("UNPAID", order.getPaymentStatus());
+        verify(outboxService, never()).enqueueInventoryDeduct(any(), any());
+        verify(stockReservationService).restore(eq("r-1"), any());
+        verify(stockReservationService).release(any());
+    }
+
+    @Test
+    void testHandle_remoteErrorPropagatesForRetry() {
+        when(paymentFeignClient.processPayment(any())).thenThrow(new RuntimeException("timeout"));
+
+        assertThrows(RuntimeException.class, () -> handler.handle(event));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testHandle_alreadyPaidIsSkipped() {
+        order.setPaymentStatus("PAID");
+
+        handler.handle(event);
+
+        verifyNoInteractions(paymentFeignClient);
+    }
+
+    @Test
+    void testHandle_failedOrderIsSkipped() {
+        order.setOrderStatus("FAILED");
+
+        handler.handle(event);
+
+        verifyNoInteractions(paymentFeignClient);
+    }
+
+    @Test
+    void testHandle_sendsIdempotencyKeyPerOrder() {
+        when(paymentFeignClient.processPayment(any())).thenAnswer(invocation -> {
+            RequestTemplate template = new RequestTemplate();
+            new PaymentIdempotencyKey().apply(template);
+            assertEquals(List.of("order-payment-100"), List.copyOf(template.headers().get(PaymentIdempotencyKey.HEADER)));
+            Payment payment = new Payment();
+            payment.setPaymentStatus("PAID");
+            return ApiResponse.success(payment);
+        });
+
+        handler.handle(event);
+
+        assertEquals("PAID", order.getPaymentStatus());
+        RequestTemplate after = new RequestTemplate();
+        new PaymentIdempotencyKey().apply(after);
+        assertFalse(after.headers().containsKey(PaymentIdempotencyKey.HEADER));
+    }
+}
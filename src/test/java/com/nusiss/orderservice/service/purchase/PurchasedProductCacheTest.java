@@ -0,0 +1,182 @@
+package com.nusiss.orderservice.service.purchase;
+
+import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import com.nusiss.orderservice.service.event.OrderItemChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：PurchasedProductCache
+ */
+class PurchasedProductCacheTest {
+
+    private RScript script;
+    private RBucket<Object> bucket;
+    private RTopic topic;
+    private OrderItemRepository orderItemRepository;
+    private OrderRepository orderRepository;
+    private AtomicLong now;
+    private PurchasedProductCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        script = mock(RScript.class);
+        bucket = mock(RBucket.class);
+        topic = mock(RTopic.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getScript(any(Codec.class))).thenReturn(script);
+        when(redissonClient.getBucket(anyString(), any(Codec.class))).thenReturn(bucket);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+        orderItemRepository = mock(OrderItemRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        now = new AtomicLong(1_000L);
+        cache = new PurchasedProductCache(redissonClient, orderItemRepository, orderRepository, true, 86400L, 5000L,
+                500L, 100, now::get);
+    }
+
+    @Test
+    void testGet_loadsFromDatabaseOnceAndWritesCompressedSetToRedis() {
+        when(orderItemRepository.findProductIdsByUserId(1L)).thenReturn(List.of(3L, 1L, 3L));
+
+        PurchasedProductSet first = cache.get(1L);
+        PurchasedProductSet second = cache.get(1L);
+
+        assertEquals(List.of(1L, 3L), first.toList());
+        assertSame(first, second);
+        verify(orderItemRepository, times(1)).findProductIdsByUserId(1L);
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                eq(List.of("order-service:purchased:{1}", "order-service:purchased:{1}:dirty")),
+                eq(first.encode()), any(byte[].class));
+    }
+
+    @Test
+    void testGet_decodesRedisValueWithoutDatabase() {
+        when(bucket.get()).thenReturn(PurchasedProductSet.of(List.of(7L, 8L)).encode());
+
+        PurchasedProductSet set = cache.get(2L);
+
+        assertTrue(set.contains(8L));
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    @Test
+    void testGet_fallsBackToDatabaseWhenRedisUnavailable() {
+        when(bucket.get()).thenThrow(new RuntimeException("redis down"));
+        when(orderItemRepository.findProductIdsByUserId(3L)).thenReturn(List.of(5L));
+
+        assertTrue(cache.get(3L).contains(5L));
+    }
+
+    @Test
+    void testRecordPurchase_mergesIntoRedisAndEvictsLocalCopies() {
+        byte[] current = PurchasedProductSet.of(List.of(1L)).encode();
+        when(bucket.get()).thenReturn(current);
+        assertFalse(cache.get(4L).contains(2L));
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(),
+                any(Object[].class))).thenReturn(1L);
+
+        cache.recordPurchase(4L, List.of(2L));
+
+        ArgumentCaptor<Object> updated = ArgumentCaptor.forClass(Object.class);
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER), anyList(),
+                eq(current), updated.capture(), any(byte[].class), any(byte[].class));
+        assertEquals(List.of(1L, 2L), PurchasedProductSet.decode((byte[]) updated.getValue()).toList());
+        verify(topic).publish("4");
+        // 本地条目已删除，下次读取重新访问 Redis
+        cache.get(4L);
+        verify(bucket, times(3)).get();
+    }
+
+    @Test
+    void testRecordPurchase_invalidatesAfterRepeatedConflicts() {
+        when(bucket.get()).thenReturn(PurchasedProductSet.of(List.of(1L)).encode());
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(),
+                any(Object[].class))).thenReturn(0L);
+
+        cache.recordPurchase(5L, List.of(2L));
+
+        // 3 次比较并交换 + 1 次失效
+        verify(script, times(4)).eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class),
+                anyList(), any(Object[].class));
+        verify(topic).publish("5");
+    }
+
+    @Test
+    void testOrderItemDeleted_invalidatesOwnerSetOnFlush() {
+        OrderItem item = new OrderItem();
+        item.setOrderId(10L);
+        Order order = new Order();
+        order.setOrderId(10L);
+        order.setUserId(6L);
+        when(orderRepository.findAllById(List.of(10L))).thenReturn(List.of(order));
+
+        cache.onOrderItemChanged(new OrderItemChangedEvent(OrderChangedEvent.ChangeType.DELETED, item));
+        verifyNoInteractions(orderRepository);
+        cache.flushInvalidations();
+
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                eq(List.of("order-service:purchased:{6}", "order-service:purchased:{6}:dirty")), any(byte[].class));
+        verify(topic).publish("6");
+    }
+
+    @Test
+    void testOrderItemCreated_doesNotInvalidate() {
+        OrderItem item = new OrderItem();
+        item.setOrderId(10L);
+
+        cache.onOrderItemChanged(new OrderItemChangedEvent(OrderChangedEvent.ChangeType.CREATED, item));
+        cache.flushInvalidations();
+
+        verifyNoInteractions(orderRepository, script, topic);
+    }
+
+    @Test
+    void testOrderDeleted_invalidatesUserFromEvent() {
+        Order order = new Order();
+        order.setOrderId(11L);
+        order.setUserId(8L);
+
+        cache.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.DELETED, order, order));
+        cache.flushInvalidations();
+
+        verify(topic).publish("8");
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void testFlushInvalidations_retriesWhenOwnerLookupFails() {
+        OrderItem item = new OrderItem();
+        item.setOrderId(12L);
+        Order order = new Order();
+        order.setOrderId(12L);
+        order.setUserId(9L);
+        when(orderRepository.findAllById(List.of(12L)))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(List.of(order));
+
+        cache.onOrderItemChanged(new OrderItemChangedEvent(OrderChangedEvent.ChangeType.UPDATED, item));
+        cache.flushInvalidations();
+        verify(topic, never()).publish(anyString());
+        cache.flushInvalidations();
+
+        verify(topic).publish("9");
+    }
+}
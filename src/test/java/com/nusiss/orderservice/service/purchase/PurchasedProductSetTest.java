@@ -0,0 +1,55 @@
+package com.nusiss.orderservice.service.purchase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单元测试：PurchasedProductSet
+ */
+class PurchasedProductSetTest {
+
+    @Test
+    void testOf_sortsAndRemovesDuplicatesAndNulls() {
+        PurchasedProductSet set = PurchasedProductSet.of(Arrays.asList(30L, 10L, null, 20L, 10L));
+
+        assertEquals(List.of(10L, 20L, 30L), set.toList());
+        assertTrue(set.contains(20L));
+        assertFalse(set.contains(15L));
+    }
+
+    @Test
+    void testWith_mergesNewProductsOnly() {
+        PurchasedProductSet set = PurchasedProductSet.of(List.of(1L, 5L));
+
+        PurchasedProductSet merged = set.with(List.of(5L, 3L, 9L));
+
+        assertEquals(List.of(1L, 3L, 5L, 9L), merged.toList());
+        // 没有新增元素时返回原集合
+        assertSame(merged, merged.with(List.of(1L, 9L)));
+    }
+
+    @Test
+    void testEncodeDecode_roundTripsWithDeltaCompression() {
+        PurchasedProductSet set = PurchasedProductSet.of(List.of(100_000L, 100_001L, 100_003L, Long.MAX_VALUE));
+
+        byte[] encoded = set.encode();
+
+        assertEquals(set.toList(), PurchasedProductSet.decode(encoded).toList());
+        // 1 字节长度 + 3 字节首元素 + 两个 1 字节差值 + 9 字节大差值
+        assertEquals(15, encoded.length);
+    }
+
+    @Test
+    void testDecode_emptyAndTruncatedData() {
+        assertEquals(0, PurchasedProductSet.decode(null).size());
+        assertEquals(0, PurchasedProductSet.decode(PurchasedProductSet.empty().encode()).size());
+
+        byte[] encoded = PurchasedProductSet.of(List.of(1L, 300L)).encode();
+        assertThrows(IllegalArgumentException.class,
+                () -> PurchasedProductSet.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.nusiss.orderservice.service.reservation;
+
+import com.nusiss.commonservice.config.ApiResponse;
+import com.nusiss.commonservice.entity.CartItem;
+import com.nusiss.commonservice.feign.InventoryFeignClient;
+import com.nusiss.commonservice.feign.ProductFeignClient;
+import com.nusiss.orderservice.service.singleflight.CoalescingReadClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RScript;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：StockReservationService
+ */
+class StockReservationServiceTest {
+
+    private RScript script;
+    private InventoryFeignClient inventoryFeignClient;
+    private SimpleMeterRegistry meterRegistry;
+    private StockReservationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        script = mock(RScript.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getScript(any(Codec.class))).thenReturn(script);
+        RSet<Object> skus = mock(RSet.class);
+        when(redissonClient.getSet(anyString(), any(Codec.class))).thenReturn(skus);
+        inventoryFeignClient = mock(InventoryFeignClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        CoalescingReadClient readClient = new CoalescingReadClient(mock(ProductFeignClient.class), inventoryFeignClient,
+                meterRegistry);
+        service = new StockReservationService(redissonClient, readClient, meterRegistry, true, 60000L, 3600L);
+    }
+
+    @Test
+    void testReserve_success() {
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+                .thenReturn(0L);
+
+        StockReservation reservation = service.reserve(List.of(cartItem(1L, 2), cartItem(1L, 1), cartItem(2L, 1)));
+
+        assertTrue(reservation.isTracked());
+        assertEquals(Map.of(1L, 3, 2L, 1), reservation.getLines());
+        assertEquals(1.0, meterRegistry.counter("order.stock.reservation", "result", "reserved").count());
+        verifyNoInteractions(inventoryFeignClient);
+    }
+
+    @Test
+    void testReserve_insufficientStockIsRejected() {
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+                .thenReturn(1L);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> service.reserve(List.of(cartItem(1L, 5))));
+
+        assertEquals("库存不足，无法下单", ex.getMessage());
+        assertEquals(1.0, meterRegistry.counter("order.stock.reservation", "result", "rejected").count());
+    }
+
+    @Test
+    void testReserve_loadsMissingCounterAndRetries() {
+        // 第一次预留：计数器未加载；加载脚本；第二次预留成功
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+                .thenReturn(-1L, 0L, 0L);
+        when(inventoryFeignClient.getInventoryQuantity(1L)).thenReturn(ApiResponse.success(10));
+
+        StockReservation reservation = service.reserve(List.of(cartItem(1L, 2)));
+
+        assertTrue(reservation.isTracked());
+        verify(inventoryFeignClient).getInventoryQuantity(1L);
+        verify(script, times(3)).eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class),
+                anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testReserve_redisUnavailableDegrades() {
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("redis down"));
+
+        StockReservation reservation = service.reserve(List.of(cartItem(1L, 2)));
+
+        assertFalse(reservation.isTracked());
+        assertEquals(1.0, meterRegistry.counter("order.stock.reservation", "result", "degraded").count());
+    }
+
+    @Test
+    void testRelease_untrackedReservationIsNoop() {
+        service.release(new StockReservation(null, Map.of(1L, 2)));
+
+        verifyNoInteractions(script);
+    }
+
+    private CartItem cartItem(Long productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,275 @@
+package com.nusiss.orderservice.service.rollup;
+
+import com.nusiss.orderservice.config.CustomException;
+import com.nusiss.orderservice.dao.OrderRollupRepository;
+import com.nusiss.orderservice.dao.PaymentRollupRepository;
+import com.nusiss.orderservice.dao.RollupFenceRepository;
+import com.nusiss.orderservice.dto.RollupAggregateRow;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderPayment;
+import com.nusiss.orderservice.entity.RollupFence;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import com.nusiss.orderservice.service.event.OrderPaymentChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：OrderRollupService
+ */
+class OrderRollupServiceTest {
+
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2024, 6, 1, 10, 25);
+
+    private OrderRollupRepository orderRollupRepository;
+    private PaymentRollupRepository paymentRollupRepository;
+    private RollupFenceRepository rollupFenceRepository;
+    private RLock lock;
+    private OrderRollupService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderRollupRepository = mock(OrderRollupRepository.class);
+        paymentRollupRepository = mock(PaymentRollupRepository.class);
+        rollupFenceRepository = mock(RollupFenceRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        lock = mock(RLock.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        service = new OrderRollupService(orderRollupRepository, paymentRollupRepository, rollupFenceRepository,
+                transactionTemplate, redissonClient, true, 2);
+    }
+
+    private static RollupAggregateRow row(int hour, String dimension, String paymentStatus, long count, String amount) {
+        return new RollupAggregateRow() {
+            @Override
+            public Integer getHourOfDay() {
+                return hour;
+            }
+
+            @Override
+            public String getDimension() {
+                return dimension;
+            }
+
+            @Override
+            public String getPaymentStatus() {
+                return paymentStatus;
+            }
+
+            @Override
+            public Long getRowCount() {
+                return count;
+            }
+
+            @Override
+            public BigDecimal getAmount() {
+                return new BigDecimal(amount);
+            }
+        };
+    }
+
+    private Order order(String status, String paymentStatus, String amount) {
+        Order order = new Order();
+        order.setOrderId(1L);
+        order.setOrderDate(ORDER_TIME);
+        order.setOrderStatus(status);
+        order.setPaymentStatus(paymentStatus);
+        order.setTotalAmount(amount == null ? null : new BigDecimal(amount));
+        return order;
+    }
+
+    @Test
+    void testCreatedOrdersAreMergedBeforeFlush() {
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED,
+                order("CREATED", "UNPAID", "10.00"), null));
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED,
+                order("CREATED", "UNPAID", "5.50"), null));
+
+        service.flush();
+
+        // 两笔订单合并为每个粒度一次写入
+        verify(orderRollupRepository).upsertDelta("HOUR", LocalDateTime.of(2024, 6, 1, 10, 0),
+                "CREATED", "UNPAID", 2L, new BigDecimal("15.50"));
+        verify(orderRollupRepository).upsertDelta("DAY", LocalDateTime.of(2024, 6, 1, 0, 0),
+                "CREATED", "UNPAID", 2L, new BigDecimal("15.50"));
+        verifyNoMoreInteractions(orderRollupRepository);
+    }
+
+    @Test
+    void testStatusChangeMovesOrderBetweenBuckets() {
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED,
+                order("PAID", "PAID", "20.00"), order("CREATED", "UNPAID", "20.00")));
+
+        service.flush();
+
+        verify(orderRollupRepository).upsertDelta(eq("HOUR"), any(), eq("CREATED"), eq("UNPAID"),
+                eq(-1L), eq(new BigDecimal("-20.00")));
+        verify(orderRollupRepository).upsertDelta(eq("HOUR"), any(), eq("PAID"), eq("PAID"),
+                eq(1L), eq(new BigDecimal("20.00")));
+    }
+
+    @Test
+    void testUpdateWithoutDimensionChangeIsIgnored() {
+        Order previous = order("CREATED", "UNPAID", "20.00");
+        Order current = order("CREATED", "UNPAID", "20.0");
+        current.setShippingAddress("new address");
+
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED, current, previous));
+        service.flush();
+
+        verifyNoInteractions(orderRollupRepository);
+    }
+
+    @Test
+    void testPaymentDeltasUseMethodAndStatus() {
+        OrderPayment payment = new OrderPayment();
+        payment.setPaymentDate(ORDER_TIME);
+        payment.setPaymentMethod("WeChat");
+        payment.setPaymentStatus("SUCCESS");
+        payment.setAmountPaid(30.0);
+
+        service.onPaymentChanged(new OrderPaymentChangedEvent(OrderChangedEvent.ChangeType.DELETED, payment, payment));
+        service.flush();
+
+        verify(paymentRollupRepository).upsertDelta("DAY", LocalDateTime.of(2024, 6, 1, 0, 0),
+                "WeChat", "SUCCESS", -1L, new BigDecimal("-30.0"));
+    }
+
+    @Test
+    void testDeltasCapturedBeforeRebuildAreDropped() {
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED,
+                order("CREATED", "UNPAID", "10.00"), null));
+        // 其他实例在增量写入之前重算了这一天
+        RollupFence fence = new RollupFence();
+        fence.setBucketDate(LocalDate.of(2024, 6, 1));
+        fence.setRebuiltAt(LocalDateTime.now().plusSeconds(1));
+        when(rollupFenceRepository.lockForFlush(any())).thenReturn(List.of(fence));
+
+        service.flush();
+
+        verify(rollupFenceRepository).lockForFlush(argThat(days -> days.contains(LocalDate.of(2024, 6, 1))));
+        verifyNoInteractions(orderRollupRepository);
+    }
+
+    @Test
+    void testDeltasCapturedAfterRebuildAreWritten() {
+        RollupFence fence = new RollupFence();
+        fence.setBucketDate(LocalDate.of(2024, 6, 1));
+        fence.setRebuiltAt(LocalDateTime.now().minusSeconds(1));
+        when(rollupFenceRepository.lockForFlush(any())).thenReturn(List.of(fence));
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED,
+                order("CREATED", "UNPAID", "10.00"), null));
+
+        service.flush();
+
+        verify(orderRollupRepository).upsertDelta("DAY", LocalDateTime.of(2024, 6, 1, 0, 0),
+                "CREATED", "UNPAID", 1L, new BigDecimal("10.00"));
+    }
+
+    @Test
+    void testFailedFlushKeepsDeltasForRetry() {
+        when(orderRollupRepository.upsertDelta(anyString(), any(), anyString(), anyString(), anyLong(), any()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED,
+                order("CREATED", null, "10.00"), null));
+
+        service.flush();
+        service.flush();
+
+        verify(orderRollupRepository, times(2)).upsertDelta(eq("DAY"), any(), eq("CREATED"), eq("UNKNOWN"),
+                eq(1L), eq(new BigDecimal("10.00")));
+    }
+
+    @Test
+    void testBackfillRebuildsEachDayUnderLock() {
+        when(lock.tryLock()).thenReturn(true);
+
+        int days = service.backfill(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 3));
+
+        assertEquals(3, days);
+        verify(orderRollupRepository, times(3)).aggregateHourly(any(), any());
+        verify(paymentRollupRepository, times(3)).aggregateHourly(any(), any());
+        verify(orderRollupRepository).deleteRange(LocalDateTime.of(2024, 6, 2, 0, 0), LocalDateTime.of(2024, 6, 3, 0, 0));
+        verify(rollupFenceRepository, times(1)).fence(eq(LocalDate.of(2024, 6, 2)), any());
+        verify(lock).unlock();
+    }
+
+    @Test
+    void testBackfillFencesBeforeReadingDetails() {
+        when(lock.tryLock()).thenReturn(true);
+        LocalDateTime start = LocalDate.of(2024, 6, 1).atStartOfDay();
+
+        LocalDateTime before = LocalDateTime.now();
+        service.backfill(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 1));
+
+        // 栅栏时间取在读取明细之前，读取之后不再更新栅栏
+        InOrder inOrder = inOrder(rollupFenceRepository, orderRollupRepository);
+        inOrder.verify(rollupFenceRepository).fence(eq(LocalDate.of(2024, 6, 1)), argThat(at -> !at.isBefore(before)));
+        inOrder.verify(orderRollupRepository).aggregateHourly(start, start.plusDays(1));
+        verify(rollupFenceRepository, times(1)).fence(any(), any());
+    }
+
+    @Test
+    void testBackfillWritesHourlyAndDailyRowsFromAggregates() {
+        when(lock.tryLock()).thenReturn(true);
+        LocalDateTime start = LocalDate.of(2024, 6, 1).atStartOfDay();
+        when(orderRollupRepository.aggregateHourly(start, start.plusDays(1))).thenReturn(List.of(
+                row(9, "PAID", "PAID", 2, "20.00"),
+                row(10, "PAID", "PAID", 1, "5.50"),
+                row(10, null, "", 1, "1.00")));
+
+        service.backfill(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 1));
+
+        verify(orderRollupRepository).upsertDelta("HOUR", start.plusHours(9), "PAID", "PAID", 2L, new BigDecimal("20.00"));
+        verify(orderRollupRepository).upsertDelta("HOUR", start.plusHours(10), "PAID", "PAID", 1L, new BigDecimal("5.50"));
+        verify(orderRollupRepository).upsertDelta("DAY", start, "PAID", "PAID", 3L, new BigDecimal("25.50"));
+        verify(orderRollupRepository).upsertDelta("DAY", start, "UNKNOWN", "UNKNOWN", 1L, new BigDecimal("1.00"));
+    }
+
+    @Test
+    void testReconcileIncludesToday() {
+        when(lock.tryLock()).thenReturn(true);
+
+        service.reconcile();
+
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        verify(orderRollupRepository).deleteRange(today, today.plusDays(1));
+        verify(orderRollupRepository, times(3)).aggregateHourly(any(), any());
+    }
+
+    @Test
+    void testBackfillRejectedWhileAnotherRebuildRuns() {
+        when(lock.tryLock()).thenReturn(false);
+
+        assertThrows(CustomException.class,
+                () -> service.backfill(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 1)));
+        verifyNoInteractions(orderRollupRepository);
+    }
+
+    @Test
+    void testUnsupportedGranularityRejected() {
+        assertThrows(CustomException.class,
+                () -> service.getOrderRollups("WEEK", LocalDate.now(), LocalDate.now(), null));
+    }
+}
@@ -0,0 +1,149 @@
+package com.nusiss.orderservice.service.search;
+
+import com.nusiss.orderservice.config.CustomException;
+import com.nusiss.orderservice.dto.OrderSearchHit;
+import com.nusiss.orderservice.dto.OrderSearchPage;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单元测试：OrderSearchIndex
+ */
+class OrderSearchIndexTest {
+
+    private OrderSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new OrderSearchIndex(new ByteBuffersDirectory(), 50, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.destroy();
+    }
+
+    private Order order(long orderId, String address, int day) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(7L);
+        order.setOrderStatus("PAID");
+        order.setTotalAmount(new BigDecimal("59.80"));
+        order.setShippingAddress(address);
+        order.setOrderDate(LocalDateTime.of(2024, 6, day, 10, 0));
+        return order;
+    }
+
+    private OrderItem item(String productName) {
+        OrderItem item = new OrderItem();
+        item.setProductName(productName);
+        return item;
+    }
+
+    private List<Long> ids(OrderSearchPage page) {
+        return page.getContent().stream().map(OrderSearchHit::getOrderId).toList();
+    }
+
+    @Test
+    void testSearchMatchesFragmentsOfProductNameAndAddress() {
+        index.upsert(order(1L, "北京市海淀区中关村大街1号", 1), List.of(item("Apple iPhone 15 手机壳")));
+        index.upsert(order(2L, "上海市浦东新区世纪大道100号", 2), List.of(item("无线蓝牙耳机")));
+        index.commit();
+        index.refresh();
+
+        assertEquals(List.of(1L), ids(index.search("PHONE", "product", 1, 10)));
+        assertEquals(List.of(2L), ids(index.search("蓝牙", "all", 1, 10)));
+        assertEquals(List.of(1L), ids(index.search("中关村", "address", 1, 10)));
+        assertTrue(index.search("中关村", "product", 1, 10).getContent().isEmpty());
+
+        OrderSearchHit hit = index.search("世纪大道", "all", 1, 10).getContent().get(0);
+        assertEquals(7L, hit.getUserId());
+        assertEquals(new BigDecimal("59.80"), hit.getTotalAmount());
+        assertEquals(LocalDateTime.of(2024, 6, 2, 10, 0), hit.getOrderDate());
+        assertEquals(List.of("无线蓝牙耳机"), hit.getProductNames());
+    }
+
+    @Test
+    void testPhraseDoesNotSpanTwoProductNames() {
+        index.upsert(order(1L, "address", 1), List.of(item("绿茶"), item("茶饮料")));
+        index.refresh();
+
+        assertTrue(index.search("绿茶饮", "product", 1, 10).getContent().isEmpty());
+        assertEquals(List.of(1L), ids(index.search("茶饮", "product", 1, 10)));
+    }
+
+    @Test
+    void testUpsertReplacesAndDeleteRemovesDocument() {
+        index.upsert(order(1L, "杭州市西湖区", 1), List.of());
+        index.refresh();
+        index.upsert(order(1L, "南京市鼓楼区", 1), List.of());
+        index.refresh();
+
+        assertTrue(index.search("西湖", "address", 1, 10).getContent().isEmpty());
+        assertEquals(List.of(1L), ids(index.search("鼓楼", "address", 1, 10)));
+
+        index.delete(1L);
+        index.refresh();
+        assertEquals(0, index.numDocs());
+    }
+
+    @Test
+    void testPaginatesNewestFirst() {
+        for (int i = 1; i <= 5; i++) {
+            index.upsert(order(i, "深圳市南山区", i), List.of());
+        }
+        index.refresh();
+
+        OrderSearchPage first = index.search("南山", "all", 1, 2);
+        OrderSearchPage third = index.search("南山", "all", 3, 2);
+        assertEquals(List.of(5L, 4L), ids(first));
+        assertEquals(List.of(1L), ids(third));
+        assertEquals(5, first.getTotal());
+        assertTrue(first.isTotalExact());
+    }
+
+    @Test
+    void testRollbackDiscardsUncommittedRebuild() {
+        index.upsert(order(1L, "成都市武侯区", 1), List.of());
+        index.commit();
+        index.deleteAll();
+
+        index.rollback();
+        index.refresh();
+
+        assertEquals(List.of(1L), ids(index.search("武侯", "address", 1, 10)));
+    }
+
+    @Test
+    void testFindByIdRangeReturnsStoredFields() {
+        Order first = order(1L, "杭州市西湖区", 1);
+        index.upsert(first, List.of(item("龙井茶")));
+        index.upsert(order(2L, "杭州市滨江区", 2), List.of());
+        index.upsert(order(5L, "杭州市余杭区", 3), List.of());
+        index.refresh();
+
+        Map<Long, OrderSearchHit> hits = index.findByIdRange(1L, 2L);
+
+        assertEquals(Set.of(1L, 2L), hits.keySet());
+        assertEquals(OrderSearchIndex.toHit(first, List.of(item("龙井茶"))), hits.get(1L));
+    }
+
+    @Test
+    void testRejectsShortKeywordAndDeepPages() {
+        assertThrows(CustomException.class, () -> index.search(" 茶 ", "all", 1, 10));
+        assertThrows(CustomException.class, () -> index.search("茶叶", "unknown", 1, 10));
+        assertThrows(CustomException.class, () -> index.search("茶叶", "all", 3, 50));
+    }
+}
@@ -0,0 +1,178 @@
+package com.nusiss.orderservice.service.search;
+
+import com.nusiss.orderservice.dao.OrderItemRepository;
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.dto.OrderSearchHit;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.entity.OrderItem;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import com.nusiss.orderservice.service.event.OrderItemChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：OrderSearchIndexer
+ */
+class OrderSearchIndexerTest {
+
+    private OrderSearchIndex index;
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+    private RTopic topic;
+    private OrderSearchIndexer indexer;
+
+    @BeforeEach
+    void setUp() {
+        index = mock(OrderSearchIndex.class);
+        orderRepository = mock(OrderRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        topic = mock(RTopic.class);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+        indexer = new OrderSearchIndexer(index, orderRepository, orderItemRepository, redissonClient, 2, true);
+    }
+
+    private Order order(long orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+
+    private OrderItem item(long orderId, String productName) {
+        OrderItem item = new OrderItem();
+        item.setOrderId(orderId);
+        item.setProductName(productName);
+        return item;
+    }
+
+    @Test
+    void testFlushReindexesChangedOrdersAndDeletesMissingOnes() {
+        Order order = order(1L);
+        OrderItem item = item(1L, "蓝牙耳机");
+        indexer.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.CREATED, order, null));
+        indexer.onOrderItemChanged(new OrderItemChangedEvent(OrderChangedEvent.ChangeType.CREATED, item));
+        indexer.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.DELETED, order(2L), null));
+        when(orderRepository.findAllById(anyList())).thenReturn(List.of(order));
+        when(orderItemRepository.findByOrderIdIn(anyCollection())).thenReturn(List.of(item));
+
+        indexer.flush();
+
+        verify(index).upsert(order, List.of(item));
+        verify(index).delete(2L);
+        verify(index).commit();
+        verify(index).refresh();
+        verify(topic).publish(argThat(message -> message.toString().endsWith("|1,2")));
+        assertEquals(0, indexer.getPendingCount());
+    }
+
+    @Test
+    void testFlushKeepsChangesWhenIndexingFails() {
+        indexer.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED, order(1L), null));
+        when(orderRepository.findAllById(anyList())).thenThrow(new RuntimeException("db down"));
+
+        indexer.flush();
+
+        verify(index, never()).commit();
+        assertEquals(1, indexer.getPendingCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushIndexesRemoteChangesWithoutRebroadcasting() {
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        indexer.subscribe();
+        verify(topic).addListener(eq(String.class), listener.capture());
+        Order order = order(5L);
+        when(orderRepository.findAllById(List.of(5L))).thenReturn(List.of(order));
+
+        listener.getValue().onMessage("order-service:search-index-changes", "other-instance|5");
+        indexer.flush();
+
+        verify(index).upsert(order, List.of());
+        verify(topic, never()).publish(any());
+        assertEquals(0, indexer.getPendingCount());
+    }
+
+    @Test
+    void testFlushRetryDoesNotRebroadcastLocalChanges() {
+        indexer.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED, order(1L), null));
+        when(orderRepository.findAllById(anyList()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(List.of(order(1L)));
+
+        indexer.flush();
+        indexer.flush();
+
+        verify(topic, times(1)).publish(any());
+        verify(index).commit();
+    }
+
+    @Test
+    void testRebuildReadsOrdersInKeysetBatches() {
+        when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(order(1L), order(2L)));
+        when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(order(3L)));
+        when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(eq(3L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(orderItemRepository.findUncachedByOrderIdIn(anyCollection()))
+                .thenReturn(List.of(item(1L, "绿茶")), List.of());
+
+        assertEquals(3, indexer.rebuild());
+
+        verify(index).deleteAll();
+        verify(index).add(order(1L), List.of(item(1L, "绿茶")));
+        verify(index).add(order(3L), List.of());
+        verify(index).commit();
+        verify(index, never()).rollback();
+    }
+
+    @Test
+    void testRebuildRollsBackOnFailure() {
+        when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(anyLong(), any(Pageable.class)))
+                .thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> indexer.rebuild());
+
+        verify(index).rollback();
+        verify(index, never()).commit();
+    }
+
+    @Test
+    void testReconcileRepairsStaleAndMissingDocumentsAndDeletesOrphans() {
+        Order order1 = order(1L);
+        Order order2 = order(2L);
+        List<OrderItem> items1 = List.of(item(1L, "绿茶"));
+        when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(order1, order2));
+        when(orderRepository.findByOrderIdGreaterThanOrderByOrderIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(orderItemRepository.findUncachedByOrderIdIn(anyCollection())).thenReturn(items1);
+        OrderSearchHit stale = OrderSearchIndex.toHit(order(2L), List.of());
+        stale.setOrderStatus("PAID");
+        when(index.findByIdRange(Long.MIN_VALUE + 1, 2L))
+                .thenReturn(Map.of(1L, OrderSearchIndex.toHit(order1, items1), 2L, stale));
+        when(index.findByIdRange(3L, Long.MAX_VALUE))
+                .thenReturn(Map.of(9L, OrderSearchIndex.toHit(order(9L), List.of())));
+
+        assertEquals(2, indexer.reconcile());
+
+        verify(index, never()).upsert(eq(order1), anyList());
+        verify(index).upsert(order2, List.of());
+        verify(index).delete(9L);
+        verify(index, times(2)).commit();
+    }
+}
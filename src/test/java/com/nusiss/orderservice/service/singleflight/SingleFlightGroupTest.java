@@ -0,0 +1,94 @@
+package com.nusiss.orderservice.service.singleflight;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单元测试：SingleFlightGroup
+ */
+class SingleFlightGroupTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlightGroup<Long, String> group;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        group = new SingleFlightGroup<>("product", meterRegistry);
+    }
+
+    @Test
+    void testExecute_concurrentCallsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> group.execute(1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "product-1";
+            }), pool);
+            // 等待 leader 开始加载后再发起重复调用
+            while (group.inFlightCount() == 0) {
+                Thread.onSpinWait();
+            }
+            CompletableFuture<String> follower1 = CompletableFuture.supplyAsync(
+                    () -> group.execute(1L, () -> "unexpected"), pool);
+            CompletableFuture<String> follower2 = CompletableFuture.supplyAsync(
+                    () -> group.execute(1L, () -> "unexpected"), pool);
+            while (meterRegistry.counter("order.singleflight.calls", "name", "product", "role", "shared").count() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("product-1", leader.get(1, TimeUnit.SECONDS));
+            assertEquals("product-1", follower1.get(1, TimeUnit.SECONDS));
+            assertEquals("product-1", follower2.get(1, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(2.0 / 3, meterRegistry.get("order.singleflight.collapse.ratio").gauge().value(), 1e-9);
+            assertEquals(0, group.inFlightCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExecute_sequentialCallsAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        group.execute(1L, () -> "v" + loads.incrementAndGet());
+        String second = group.execute(1L, () -> "v" + loads.incrementAndGet());
+
+        assertEquals("v2", second);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testExecute_failureIsPropagatedAndCleared() {
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> group.execute(1L, () -> {
+            throw new IllegalStateException("product-service down");
+        }));
+
+        assertEquals("product-service down", ex.getMessage());
+        assertEquals(0, group.inFlightCount());
+        assertEquals("ok", group.execute(1L, () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.nusiss.orderservice.service.stats;
+
+import com.nusiss.orderservice.dao.OrderRepository;
+import com.nusiss.orderservice.entity.Order;
+import com.nusiss.orderservice.service.event.OrderChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单元测试：UserOrderStatsService
+ */
+class UserOrderStatsServiceTest {
+
+    private RScript script;
+    private RMap<Object, Object> hash;
+    private OrderRepository orderRepository;
+    private UserOrderStatsService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        script = mock(RScript.class);
+        hash = mock(RMap.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getScript(any(Codec.class))).thenReturn(script);
+        when(redissonClient.getMap(anyString(), any(Codec.class))).thenReturn(hash);
+        orderRepository = mock(OrderRepository.class);
+        service = new UserOrderStatsService(redissonClient, orderRepository, true, 86400L, 5000L);
+    }
+
+    @Test
+    void testGetStats_readsPrecomputedHashWithoutDatabase() {
+        when(hash.readAllMap()).thenReturn(Map.of(
+                "total", "5", "s:PAID", "3", "s:UNPAID", "2", "s:CANCELLED", "0",
+                "latestId", "42", "latestStatus", "UNPAID", "latestAt", "1000"));
+
+        UserOrderStats stats = service.getStats(1L);
+
+        assertEquals(5, stats.getTotal());
+        assertEquals(3, stats.countOf("PAID"));
+        assertEquals(0, stats.countOf("CANCELLED"));
+        assertEquals(42L, stats.getLatestOrderId());
+        assertEquals("UNPAID", stats.getLatestStatus());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetStats_rebuildsFromDatabaseWhenMissing() {
+        when(hash.readAllMap()).thenReturn(Map.of());
+        when(orderRepository.countByStatusForUser(1L))
+                .thenReturn(List.of(new Object[]{"PAID", 2L}, new Object[]{"COMPLETED", 1L}));
+        Order latest = new Order();
+        latest.setOrderId(9L);
+        latest.setOrderStatus("PAID");
+        latest.setCreateDatetime(LocalDateTime.now());
+        when(orderRepository.findFirstByUserIdOrderByCreateDatetimeDescOrderIdDesc(1L)).thenReturn(Optional.of(latest));
+
+        UserOrderStats stats = service.getStats(1L);
+
+        assertEquals(3, stats.getTotal());
+        assertEquals(1, stats.countOf("COMPLETED"));
+        assertEquals("PAID", stats.getLatestStatus());
+        // 重建结果写回 Redis
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER),
+                eq(List.of("order-service:user-stats:{1}", "order-service:user-stats:{1}:dirty")),
+                any(Object[].class));
+    }
+
+    @Test
+    void testGetStats_fallsBackToDatabaseWhenRedisFails() {
+        when(hash.readAllMap()).thenThrow(new RuntimeException("redis down"));
+        when(orderRepository.countByStatusForUser(1L)).thenReturn(List.of());
+
+        UserOrderStats stats = service.getStats(1L);
+
+        assertEquals(0, stats.getTotal());
+        assertNull(stats.getLatestStatus());
+        verifyNoInteractions(script);
+    }
+
+    @Test
+    void testOnOrderChanged_appliesStatusTransition() {
+        Order order = new Order();
+        order.setOrderId(7L);
+        order.setUserId(1L);
+        order.setOrderStatus("PAID");
+
+        Order previous = new Order();
+        previous.setOrderId(7L);
+        previous.setUserId(1L);
+        previous.setOrderStatus("CREATED");
+
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED, order, previous));
+
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER), anyList(),
+                eq("U"), eq("7"), eq("CREATED"), eq("PAID"), eq("0"), eq("86400"), eq("5000"));
+    }
+
+    @Test
+    void testOnOrderChanged_unknownPreviousStateInvalidates() {
+        Order order = new Order();
+        order.setOrderId(7L);
+        order.setUserId(1L);
+
+        service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ChangeType.UPDATED, order, null));
+
+        // 只执行失效脚本（参数仅 dirty TTL）
+        verify(script).eval(eq(RScript.Mode.READ_WRITE), anyString(), eq(RScript.ReturnType.INTEGER), anyList(),
+                eq("5000"));
+    }
+}